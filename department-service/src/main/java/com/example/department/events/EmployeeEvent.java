@@ -0,0 +1,14 @@
+package com.example.department.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Envelope employee-service publishes through its outbox; {@code data} depends on {@code type}. */
+public record EmployeeEvent(UUID eventId,
+                            String type,
+                            Instant occurredAt,
+                            String aggregateType,
+                            Long aggregateId,
+                            JsonNode data) {}
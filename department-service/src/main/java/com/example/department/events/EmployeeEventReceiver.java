@@ -0,0 +1,47 @@
+package com.example.department.events;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Processes employee events delivered by employee-service's outbox relay, at least once and possibly
+ * out of order. Each event is recorded in {@code received_event_log}; a redelivery is acked as DUPLICATE.
+ * A batch is one transaction: malformed events are rejected individually, a database failure fails
+ * the whole request and the relay retries it.
+ */
+@Service
+@RequiredArgsConstructor
+public class EmployeeEventReceiver {
+    private static final Logger log = LoggerFactory.getLogger(EmployeeEventReceiver.class);
+
+    public static final int MAX_BATCH = 500;
+
+    private final ReceivedEventLogRepository receivedEvents;
+
+    @Transactional
+    public List<EventAck> receive(List<EmployeeEvent> events) {
+        Instant now = Instant.now();
+        List<EventAck> acks = new ArrayList<>(events.size());
+        for (EmployeeEvent e : events) {
+            if (e.eventId() == null || e.type() == null || e.type().isBlank()) {
+                acks.add(new EventAck(e.eventId(), EventAck.REJECTED, "eventId and type are required"));
+                continue;
+            }
+            int inserted = receivedEvents.recordIfAbsent(e.eventId(), e.type(), e.aggregateId(), e.occurredAt(), now);
+            if (inserted == 0) {
+                acks.add(new EventAck(e.eventId(), EventAck.DUPLICATE, null));
+                continue;
+            }
+            log.debug("Received {} for employee {}", e.type(), e.aggregateId());
+            acks.add(new EventAck(e.eventId(), EventAck.ACCEPTED, null));
+        }
+        return acks;
+    }
+}
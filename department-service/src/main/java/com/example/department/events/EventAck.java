@@ -0,0 +1,11 @@
+package com.example.department.events;
+
+import java.util.UUID;
+
+/** Per-event verdict in a batch response. ACCEPTED and DUPLICATE are acks; the relay retries the rest. */
+public record EventAck(UUID eventId, String status, String error) {
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String FAILED = "FAILED";
+    public static final String REJECTED = "REJECTED";
+}
@@ -0,0 +1,5 @@
+package com.example.department.events;
+
+import java.util.List;
+
+public record EventBatch(List<EmployeeEvent> events) {}
@@ -0,0 +1,4 @@
+package com.example.department.events;
+
+/** Advertised to the employee-service outbox relay so it knows whether to send batches. */
+public record EventCapabilities(boolean batch, int maxEvents) {}
@@ -1,4 +1,28 @@
 package com.example.department.events;
 
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(name = "received_event_log", schema = "department")
 public class ReceivedEventLog {
+    @Id
+    @Column(name = "event_id")
+    private UUID eventId;
+
+    @Column(nullable = false, length = 100)
+    private String type;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(name = "occurred_at", columnDefinition = "timestamptz")
+    private Instant occurredAt;
+
+    @Column(name = "received_at", nullable = false, columnDefinition = "timestamptz")
+    private Instant receivedAt;
 }
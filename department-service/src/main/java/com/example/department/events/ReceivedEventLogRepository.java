@@ -1,4 +1,25 @@
 package com.example.department.events;
 
-public class ReceivedEventLogRepository {
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface ReceivedEventLogRepository extends JpaRepository<ReceivedEventLog, UUID> {
+
+    // 1 = first delivery, 0 = already processed
+    @Modifying
+    @Query(value = """
+           insert into department.received_event_log (event_id, type, aggregate_id, occurred_at, received_at)
+           values (:eventId, :type, :aggregateId, :occurredAt, :receivedAt)
+           on conflict (event_id) do nothing
+           """, nativeQuery = true)
+    int recordIfAbsent(@Param("eventId") UUID eventId,
+                       @Param("type") String type,
+                       @Param("aggregateId") Long aggregateId,
+                       @Param("occurredAt") Instant occurredAt,
+                       @Param("receivedAt") Instant receivedAt);
 }
@@ -13,6 +13,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
@@ -47,6 +51,16 @@ public class DepartmentService {
         return toDTO(d);
     }
 
+    /** Batch lookup used by employee-service enrichment; unknown ids are simply absent from the map. */
+    public Map<Long, DepartmentDTO> getByIds(Collection<Long> ids) {
+        Map<Long, DepartmentDTO> result = new LinkedHashMap<>();
+        if (ids == null || ids.isEmpty()) return result;
+        for (Department d : repository.findAllById(ids.stream().distinct().toList())) {
+            result.put(d.getId(), toDTO(d));
+        }
+        return result;
+    }
+
     public DepartmentDTO getByCode(String code) {
         Department d = repository.findByCodeIgnoreCase(code)
                 .orElseThrow(() -> new ResourceNotFoundException("Department not found"));
@@ -108,7 +122,8 @@ public class DepartmentService {
 
         if (refCount > 0) {
             throw new BusinessConflictException(
-                    "Cannot delete: " + refCount + " employee(s) still reference this department. Move them first.");
+                    "Cannot delete: " + refCount + " employee(s) still reference this department. Move them first "
+                            + "(POST /api/v1/employees/bulk-update with filter.departmentId=" + id + ").");
         }
         repository.delete(d);
     }
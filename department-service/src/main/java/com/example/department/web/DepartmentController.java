@@ -12,6 +12,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/departments")
@@ -33,6 +34,12 @@ public class DepartmentController {
         return service.list(nameContains, code, pageable);
     }
 
+    // ids in, map out: GET /api/v1/departments/batch?ids=1,2,3
+    @GetMapping("/batch")
+    public Map<Long, DepartmentDTO> byIds(@RequestParam List<Long> ids) {
+        return service.getByIds(ids);
+    }
+
     @GetMapping("/{id}")
     public DepartmentDTO byId(@PathVariable Long id) {
         return service.getById(id);
@@ -1,4 +1,48 @@
 package com.example.department.web;
 
+import com.example.department.events.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Receiving side of employee-service's outbox relay.
+ * <ul>
+ *   <li>{@code POST /events/employee} – one event; 200 when processed or already seen</li>
+ *   <li>{@code POST /events/employee/batch} – up to {@link EmployeeEventReceiver#MAX_BATCH} events, one ack each</li>
+ *   <li>{@code GET /events/employee/capabilities} – lets the relay negotiate batch mode</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/events/employee")
 public class EmployeeEventsController {
+
+    private final EmployeeEventReceiver receiver;
+
+    public EmployeeEventsController(EmployeeEventReceiver receiver) {
+        this.receiver = receiver;
+    }
+
+    @GetMapping("/capabilities")
+    public EventCapabilities capabilities() {
+        return new EventCapabilities(true, EmployeeEventReceiver.MAX_BATCH);
+    }
+
+    @PostMapping
+    public ResponseEntity<EventAck> receive(@RequestBody EmployeeEvent event) {
+        EventAck ack = receiver.receive(List.of(event)).get(0);
+        HttpStatus status = EventAck.REJECTED.equals(ack.status()) ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.OK;
+        return ResponseEntity.status(status).body(ack);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<EventBatchResult> receiveBatch(@RequestBody EventBatch batch) {
+        List<EmployeeEvent> events = batch.events() == null ? List.of() : batch.events();
+        if (events.size() > EmployeeEventReceiver.MAX_BATCH) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.ok(new EventBatchResult(receiver.receive(events)));
+    }
 }
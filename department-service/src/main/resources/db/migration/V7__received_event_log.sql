@@ -0,0 +1,13 @@
+-- Employee events this service has already processed, keyed by the publisher's event id.
+-- The outbox relay delivers at least once; a redelivered event hits the primary key and is acked as DUPLICATE.
+CREATE TABLE IF NOT EXISTS department.received_event_log (
+    event_id     UUID         PRIMARY KEY,
+    type         VARCHAR(100) NOT NULL,
+    aggregate_id BIGINT,
+    occurred_at  TIMESTAMPTZ,
+    received_at  TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+-- retention sweeps go oldest-first
+CREATE INDEX IF NOT EXISTS ix_received_event_log_received_at
+    ON department.received_event_log (received_at);
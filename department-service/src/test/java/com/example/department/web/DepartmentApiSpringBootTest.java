@@ -1,6 +1,7 @@
 package com.example.department.web;
 
 import com.example.department.domain.Department;
+import com.example.department.events.ReceivedEventLogRepository;
 import com.example.department.repo.DepartmentRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +14,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -43,6 +45,7 @@ class DepartmentApiSpringBootTest {
     @Autowired MockMvc mvc;
 
     @MockBean DepartmentRepository repository;
+    @MockBean ReceivedEventLogRepository receivedEvents;
 
     @Test
     void get_by_id_ok() throws Exception {
@@ -71,4 +74,33 @@ class DepartmentApiSpringBootTest {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id").value(123));
     }
+
+    @Test
+    void event_batch_acks_each_event() throws Exception {
+        UUID fresh = UUID.randomUUID();
+        UUID seen = UUID.randomUUID();
+        when(receivedEvents.recordIfAbsent(eq(fresh), any(), any(), any(), any())).thenReturn(1);
+        when(receivedEvents.recordIfAbsent(eq(seen), any(), any(), any(), any())).thenReturn(0);
+
+        mvc.perform(post("/events/employee/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"events":[
+                                  {"eventId":"%s","type":"employee.created.v1","aggregateId":1,"data":{"id":1}},
+                                  {"eventId":"%s","type":"employee.updated.v1","aggregateId":2,"data":{"id":2}},
+                                  {"eventId":"%s","aggregateId":3}
+                                ]}""".formatted(fresh, seen, UUID.randomUUID())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.acks[0].status").value("ACCEPTED"))
+                .andExpect(jsonPath("$.acks[1].status").value("DUPLICATE"))
+                .andExpect(jsonPath("$.acks[2].status").value("REJECTED"));
+    }
+
+    @Test
+    void event_capabilities_advertise_batch_mode() throws Exception {
+        mvc.perform(get("/events/employee/capabilities"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.batch").value(true))
+                .andExpect(jsonPath("$.maxEvents").value(500));
+    }
 }
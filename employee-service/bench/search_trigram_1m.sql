@@ -0,0 +1,80 @@
+-- Search plan benchmark at 1M rows: leading-wildcard LIKE without vs with trigram GIN indexes.
+-- Runs in a throwaway schema; never touches employee.employees.
+--
+--   psql -h localhost -U postgres -d postgres -f employee-service/bench/search_trigram_1m.sql
+--
+-- Expected: "before" is a Seq Scan over all 1M rows for every query. "after" turns the
+-- OR of LIKE predicates into a BitmapOr of Bitmap Index Scans on the *_trgm indexes;
+-- only the matching rows get rechecked and sorted by similarity.
+
+\timing on
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DROP SCHEMA IF EXISTS employee_bench CASCADE;
+CREATE SCHEMA employee_bench;
+
+CREATE TABLE employee_bench.employees (
+    id BIGSERIAL PRIMARY KEY,
+    first_name VARCHAR(120) NOT NULL,
+    last_name  VARCHAR(120) NOT NULL,
+    email      VARCHAR(200) NOT NULL UNIQUE,
+    department_id BIGINT
+);
+
+-- 1M synthetic people: names drawn from small pools so some queries are selective and some are not
+INSERT INTO employee_bench.employees (first_name, last_name, email, department_id)
+SELECT f.name,
+       l.name || (g % 997),
+       lower(f.name) || '.' || lower(l.name) || g || '@example.com',
+       1 + g % 50
+FROM generate_series(1, 1000000) g
+CROSS JOIN LATERAL (SELECT (ARRAY['Alice','Bob','Carol','Dan','Erin','Frank','Grace','Heidi','Ivan','Judy'])[1 + g % 10] AS name) f
+CROSS JOIN LATERAL (SELECT (ARRAY['Smith','Johnson','Williams','Brown','Jones','Garcia','Miller','Davis','Lopez','Wilson'])[1 + (g / 10) % 10] AS name) l;
+
+ANALYZE employee_bench.employees;
+
+-- ---------- before: no trigram indexes ----------
+\echo '== before: selective needle =='
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM employee_bench.employees e
+WHERE lower(e.first_name) LIKE '%son123%' OR lower(e.last_name) LIKE '%son123%' OR lower(e.email) LIKE '%son123%'
+ORDER BY greatest(similarity(lower(e.first_name), 'son123'),
+                  similarity(lower(e.last_name),  'son123'),
+                  similarity(lower(e.email),      'son123')) DESC, e.id
+LIMIT 20;
+
+\echo '== before: lastNameContains (ExampleMatcher shape) =='
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM employee_bench.employees e WHERE lower(e.last_name) LIKE '%avis42%' ORDER BY e.id LIMIT 20;
+
+-- ---------- after: same indexes as V5__add_trigram_search_indexes.sql ----------
+CREATE INDEX ix_bench_first_name_trgm ON employee_bench.employees USING GIN (LOWER(first_name) gin_trgm_ops);
+CREATE INDEX ix_bench_last_name_trgm  ON employee_bench.employees USING GIN (LOWER(last_name) gin_trgm_ops);
+CREATE INDEX ix_bench_email_trgm      ON employee_bench.employees USING GIN (LOWER(email) gin_trgm_ops);
+ANALYZE employee_bench.employees;
+
+\echo '== after: selective needle =='
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM employee_bench.employees e
+WHERE lower(e.first_name) LIKE '%son123%' OR lower(e.last_name) LIKE '%son123%' OR lower(e.email) LIKE '%son123%'
+ORDER BY greatest(similarity(lower(e.first_name), 'son123'),
+                  similarity(lower(e.last_name),  'son123'),
+                  similarity(lower(e.email),      'son123')) DESC, e.id
+LIMIT 20;
+
+\echo '== after: count query used for the page total =='
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM employee_bench.employees e
+WHERE lower(e.first_name) LIKE '%son123%' OR lower(e.last_name) LIKE '%son123%' OR lower(e.email) LIKE '%son123%';
+
+\echo '== after: lastNameContains (ExampleMatcher shape) =='
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM employee_bench.employees e WHERE lower(e.last_name) LIKE '%avis42%' ORDER BY e.id LIMIT 20;
+
+\echo '== after: needle shorter than 3 chars (no trigrams; expect the planner to fall back to a scan) =='
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM employee_bench.employees e
+WHERE lower(e.first_name) LIKE '%al%' OR lower(e.last_name) LIKE '%al%' OR lower(e.email) LIKE '%al%'
+LIMIT 20;
+
+DROP SCHEMA employee_bench CASCADE;
@@ -13,6 +13,7 @@ public final class ProblemTypes {
     public static final String VALIDATION = "urn:problem:validation";
     public static final String NOT_FOUND  = "urn:problem:not-found";
     public static final String CONFLICT   = "urn:problem:conflict";
+    public static final String GONE       = "urn:problem:gone";
     public static final String INTERNAL   = "urn:problem:internal";
 }
 
@@ -4,10 +4,20 @@ import com.example.employee.dto.DepartmentDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
-@FeignClient(name = "DEPARTMENT-SERVICE", path = "/api/v1/departments")
+import java.util.Collection;
+import java.util.Map;
+
+// not primary: DepartmentClientConfig exposes the cached decorator as the primary DepartmentClient
+@FeignClient(name = "DEPARTMENT-SERVICE", path = "/api/v1/departments",
+        qualifiers = "departmentFeignClient", primary = false)
 public interface DepartmentClient {
 
     @GetMapping("/{id}")
     DepartmentDTO getDepartment(@PathVariable("id") Long id);
+
+    // one round trip for a whole page; ids that don't exist are absent from the result
+    @GetMapping("/batch")
+    Map<Long, DepartmentDTO> getDepartments(@RequestParam("ids") Collection<Long> ids);
 }
@@ -3,9 +3,15 @@ package com.example.employee.client;
 import com.example.employee.dto.DepartmentDTO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Collection;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -26,4 +32,20 @@ public class DepartmentRestTemplateClient implements DepartmentClient {
             return null;
         }
     }
+
+    @Override
+    public Map<Long, DepartmentDTO> getDepartments(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return Map.of();
+        var uri = UriComponentsBuilder.fromHttpUrl(baseUrl + "/api/v1/departments/batch")
+                .queryParam("ids", ids.toArray())
+                .build()
+                .toUri();
+        try {
+            Map<Long, DepartmentDTO> body = rest.exchange(uri, HttpMethod.GET, null,
+                    new ParameterizedTypeReference<Map<Long, DepartmentDTO>>() {}).getBody();
+            return body == null ? Map.of() : body;
+        } catch (RestClientException ex) {
+            return Map.of();
+        }
+    }
 }
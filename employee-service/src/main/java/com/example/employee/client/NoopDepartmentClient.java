@@ -5,8 +5,12 @@ import com.example.employee.dto.DepartmentDTO;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.Map;
+
 @Component
 @ConditionalOnMissingBean(DepartmentClient.class)
 public class NoopDepartmentClient implements DepartmentClient {
     @Override public DepartmentDTO getDepartment(Long id) { return null; }
+    @Override public Map<Long, DepartmentDTO> getDepartments(Collection<Long> ids) { return Map.of(); }
 }
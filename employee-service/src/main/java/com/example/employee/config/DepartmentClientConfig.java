@@ -0,0 +1,79 @@
+package com.example.employee.config;
+
+import com.example.employee.client.DepartmentClient;
+import com.example.employee.service.DepartmentCache;
+import com.example.employee.service.DepartmentClientCached;
+import com.example.employee.service.DepartmentClientHedged;
+import com.example.employee.service.DepartmentClientResilient;
+import feign.Client;
+import feign.Request;
+import feign.http2client.Http2Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient;
+import org.springframework.cloud.openfeign.loadbalancer.LoadBalancerFeignRequestTransformer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Wires the {@link DepartmentClient} that the rest of the service injects:
+ * near-cache in front of a circuit breaker + bulkhead in front of the Feign client,
+ * optionally hedging slow calls ({@code department.hedging.enabled}).
+ */
+@Configuration
+public class DepartmentClientConfig {
+
+    @Bean
+    @Primary
+    public DepartmentClient departmentClient(@Qualifier("departmentFeignClient") DepartmentClient feign,
+                                             DepartmentCache cache,
+                                             MeterRegistry registry,
+                                             @Value("${department.resilience.window:20}") int window,
+                                             @Value("${department.resilience.minimum-calls:10}") int minimumCalls,
+                                             @Value("${department.resilience.failure-rate:50}") int failureRate,
+                                             @Value("${department.resilience.open-duration:30s}") Duration openDuration,
+                                             @Value("${department.resilience.half-open-calls:3}") int halfOpenCalls,
+                                             @Value("${department.resilience.max-concurrent:16}") int maxConcurrent,
+                                             @Value("${department.resilience.max-wait:50ms}") Duration maxWait,
+                                             @Value("${department.resilience.stale-ttl:1h}") Duration staleTtl,
+                                             @Value("${department.hedging.enabled:false}") boolean hedging,
+                                             @Value("${department.hedging.budget-percent:5}") int hedgeBudgetPercent,
+                                             @Value("${department.hedging.initial-delay:100ms}") Duration hedgeInitialDelay,
+                                             @Value("${department.hedging.min-delay:10ms}") Duration hedgeMinDelay,
+                                             @Value("${department.hedging.min-samples:100}") long hedgeMinSamples) {
+        DepartmentClient remote = feign;
+        if (hedging) {
+            remote = new DepartmentClientHedged(feign, registry, new DepartmentClientHedged.Settings(
+                    hedgeBudgetPercent, hedgeInitialDelay, hedgeMinDelay, hedgeMinSamples, maxConcurrent));
+        }
+        var settings = new DepartmentClientResilient.Settings(window, minimumCalls, failureRate, openDuration,
+                halfOpenCalls, maxConcurrent, maxWait, staleTtl);
+        return new DepartmentClientCached(cache, new DepartmentClientResilient(remote, registry, settings));
+    }
+
+    /**
+     * Feign transport on the JDK {@link HttpClient} instead of {@code HttpURLConnection}, which ignores interrupts
+     * until its read timeout: an interrupted call is aborted and its connection closed, so a cancelled hedge
+     * attempt gives its thread and socket back right away. Connect timeout and redirects match Feign's default
+     * {@link Request.Options}; {@link Http2Client} builds a new HttpClient per call when they differ.
+     */
+    @Bean
+    public Client feignClient(LoadBalancerClient loadBalancer, LoadBalancerClientFactory loadBalancerFactory,
+                              List<LoadBalancerFeignRequestTransformer> transformers) {
+        var options = new Request.Options();
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(options.connectTimeoutMillis()))
+                .followRedirects(options.isFollowRedirects() ? HttpClient.Redirect.ALWAYS : HttpClient.Redirect.NEVER)
+                .build();
+        return new FeignBlockingLoadBalancerClient(new Http2Client(http), loadBalancer, loadBalancerFactory, transformers);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.employee.config;
+
+import com.example.employee.web.ReadYourWritesFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only transactions on streaming replicas ({@code datasource.replicas.enabled}); see
+ * {@link ReplicaRoutingDataSource}. Replaces Boot's single pool: the primary pool is still configured by
+ * {@code spring.datasource.*}, each replica gets a pool of {@code datasource.replicas.pool-size}.
+ * To try it locally, point {@code urls} at a second database, or at an H2 stand-in with
+ * {@code lag-query: select 0}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                             MeterRegistry registry,
+                                                             @Value("${datasource.replicas.urls}") List<String> urls,
+                                                             @Value("${datasource.replicas.username:${spring.datasource.username:}}") String username,
+                                                             @Value("${datasource.replicas.password:${spring.datasource.password:}}") String password,
+                                                             @Value("${datasource.replicas.pool-size:10}") int poolSize,
+                                                             @Value("${datasource.replicas.max-lag:5s}") Duration maxLag,
+                                                             @Value("${datasource.replicas.lag-check-interval:2s}") Duration checkInterval,
+                                                             @Value("${datasource.replicas.lag-query:}") String lagQuery) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (url.isBlank()) continue;
+            var pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (replicas.size() + 1));
+            pool.setJdbcUrl(url.trim());
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setMaximumPoolSize(poolSize);
+            pool.setReadOnly(true);
+            // Boot only instruments pools that are beans: hikaricp.connections.* for the replicas, too
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicas.put(pool.getPoolName(), pool);
+        }
+        var settings = new ReplicaRoutingDataSource.Settings(maxLag, checkInterval,
+                lagQuery.isBlank() ? ReplicaRoutingDataSource.POSTGRES_LAG_QUERY : lagQuery);
+        return new ReplicaRoutingDataSource(primary, replicas, settings, registry);
+    }
+
+    /** What JPA and everything else injects: connections are fetched at the first statement, when the read-only flag is known. */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingDataSource routing) {
+        return new ReadYourWritesFilter(routing.settings().stickyWindow());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.employee.config;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-your-writes state of the current request, kept by {@code ReadYourWritesFilter} while replica routing is on.
+ * A request that is pinned, or that already wrote, reads from the primary; outside requests (schedulers,
+ * async threads) nothing is pinned.
+ */
+public final class ReadYourWrites {
+
+    /** Response header after a write; echoed back by clients that want to read their own writes. */
+    public static final String HEADER = "X-Read-Your-Writes";
+
+    private static final ThreadLocal<State> CURRENT = new ThreadLocal<>();
+
+    private static final class State {
+        boolean primary;
+        final Runnable onWrite;
+
+        State(boolean primary, Runnable onWrite) {
+            this.primary = primary;
+            this.onWrite = onWrite;
+        }
+    }
+
+    private ReadYourWrites() {
+    }
+
+    /** Starts a request; {@code onWrite} runs once per committed read-write transaction of it. */
+    public static void begin(boolean pinnedToPrimary, Runnable onWrite) {
+        CURRENT.set(new State(pinnedToPrimary, onWrite));
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    static boolean pinnedToPrimary() {
+        State s = CURRENT.get();
+        return s != null && s.primary;
+    }
+
+    // called when a read-write transaction takes a primary connection
+    static void wrote() {
+        State s = CURRENT.get();
+        if (s == null) return;
+        s.primary = true;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    s.onWrite.run();
+                }
+            });
+        } else {
+            s.onWrite.run();
+        }
+    }
+
+    /**
+     * Marks the current request as having written, for writes committed on another thread (batched creates):
+     * later reads of the request go to the primary and {@code onWrite} runs now.
+     */
+    public static void markWritten() {
+        State s = CURRENT.get();
+        if (s == null) return;
+        s.primary = true;
+        s.onWrite.run();
+    }
+}
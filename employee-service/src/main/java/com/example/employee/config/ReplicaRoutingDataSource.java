@@ -0,0 +1,201 @@
+package com.example.employee.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to streaming replicas and everything else to the primary.
+ * <ul>
+ *   <li>the transaction's read-only flag is only known once it has begun, so this has to sit behind a
+ *       {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which fetches the
+ *       connection at the first statement</li>
+ *   <li>replicas are used round-robin. Every {@code checkInterval} each one is asked for its replay lag;
+ *       one that is further behind than {@code maxLag}, or unreachable, is skipped until a later check
+ *       finds it caught up. With no replica left, reads go to the primary</li>
+ *   <li>read-your-writes: a request that wrote, or that is pinned by {@link ReadYourWrites}, reads from the
+ *       primary. A replica used for reads was at most {@code maxLag} behind at its last check, so after
+ *       {@link Settings#stickyWindow()} it has every write committed before</li>
+ * </ul>
+ * Connections outside a transaction (Flyway, schedulers, health checks) go to the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    /** Replay lag in seconds; 0 on a primary, or while the replica has replayed everything it received. */
+    public static final String POSTGRES_LAG_QUERY = """
+            select case when not pg_is_in_recovery() then 0
+                        when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                        else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)
+                   end""";
+
+    public record Settings(Duration maxLag, Duration checkInterval, String lagQuery) {
+        /** How long after a write its session keeps reading from the primary. */
+        public Duration stickyWindow() {
+            return maxLag.plus(checkInterval);
+        }
+    }
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        final Counter routed;
+        volatile boolean usable;
+        volatile double lagSeconds = Double.NaN;
+
+        Replica(String name, DataSource dataSource, Counter routed) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.routed = routed;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Settings settings;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+    private final Counter toPrimary;
+    private final Counter pinned;
+    private final Counter fallback;
+
+    /** {@code replicas} maps a name (used in metrics and logs) to its pool. */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Settings settings,
+                                    MeterRegistry registry) {
+        this.primary = primary;
+        this.settings = settings;
+        this.replicas = replicas.entrySet().stream()
+                .map(e -> new Replica(e.getKey(), e.getValue(), routed(registry, "replica", e.getKey())))
+                .toList();
+        this.toPrimary = routed(registry, "primary", "primary");
+        this.pinned = routed(registry, "pinned", "primary");
+        this.fallback = routed(registry, "fallback", "primary");
+        for (Replica r : this.replicas) {
+            Gauge.builder("datasource.replica.lag", r, x -> x.lagSeconds)
+                    .description("Replay lag at the last check; NaN while unreachable")
+                    .baseUnit("seconds")
+                    .tag("replica", r.name)
+                    .register(registry);
+            Gauge.builder("datasource.replica.usable", r, x -> x.usable ? 1 : 0)
+                    .description("1 while the replica takes reads")
+                    .tag("replica", r.name)
+                    .register(registry);
+        }
+        var threads = new CustomizableThreadFactory("replica-lag-");
+        threads.setDaemon(true);
+        this.checker = Executors.newSingleThreadScheduledExecutor(threads);
+        // reads go to the primary until the first check has passed
+        checker.scheduleWithFixedDelay(this::check, 0, settings.checkInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static Counter routed(MeterRegistry registry, String route, String target) {
+        return Counter.builder("datasource.routing.connections")
+                .description("Connections handed out, by route")
+                .tag("route", route)
+                .tag("target", target)
+                .register(registry);
+    }
+
+    public Settings settings() {
+        return settings;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) ReadYourWrites.wrote();
+            toPrimary.increment();
+            return primary.getConnection();
+        }
+        if (ReadYourWrites.pinnedToPrimary()) {
+            pinned.increment();
+            return primary.getConnection();
+        }
+        Replica replica = pick();
+        if (replica != null) {
+            try {
+                Connection c = replica.dataSource.getConnection();
+                replica.routed.increment();
+                return c;
+            } catch (SQLException ex) {
+                markUnusable(replica, ex);
+            }
+        }
+        fallback.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // explicit credentials are a primary-only path, e.g. admin tooling
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) ReadYourWrites.wrote();
+        toPrimary.increment();
+        return primary.getConnection(username, password);
+    }
+
+    private Replica pick() {
+        int n = replicas.size();
+        if (n == 0) return null;
+        int start = Math.floorMod(next.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get((start + i) % n);
+            if (r.usable) return r;
+        }
+        return null;
+    }
+
+    synchronized void check() {
+        double maxLag = settings.maxLag().toMillis() / 1000.0;
+        for (Replica r : replicas) {
+            try (Connection c = r.dataSource.getConnection();
+                 Statement st = c.createStatement();
+                 ResultSet rs = st.executeQuery(settings.lagQuery())) {
+                rs.next();
+                double lag = rs.getDouble(1);
+                r.lagSeconds = lag;
+                boolean usable = lag <= maxLag;
+                if (usable != r.usable) {
+                    if (usable) log.info("Replica {} takes reads again (lag {}s)", r.name, lag);
+                    else log.warn("Replica {} is {}s behind, reads go elsewhere until it catches up", r.name, lag);
+                }
+                r.usable = usable;
+            } catch (SQLException | RuntimeException ex) {
+                markUnusable(r, ex);
+            }
+        }
+    }
+
+    private void markUnusable(Replica r, Exception ex) {
+        r.lagSeconds = Double.NaN;
+        if (r.usable) log.warn("Replica {} is unreachable, reads go elsewhere: {}", r.name, ex.toString());
+        r.usable = false;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        checker.shutdownNow();
+        for (Replica r : replicas) {
+            if (r.dataSource instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+}
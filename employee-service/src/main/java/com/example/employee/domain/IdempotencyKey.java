@@ -0,0 +1,23 @@
+package com.example.employee.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "idempotency_keys", schema = "employee")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class IdempotencyKey {
+    @Id
+    @Column(name = "idem_key", length = 200)
+    private String key;
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+    @Column(name = "response_json", columnDefinition = "text")
+    private String responseJson;
+    @Column(name = "created_at", nullable = false, columnDefinition = "timestamptz")
+    private Instant createdAt;
+    @Column(name = "expires_at", nullable = false, columnDefinition = "timestamptz")
+    private Instant expiresAt;
+}
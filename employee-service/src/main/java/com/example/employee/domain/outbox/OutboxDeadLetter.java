@@ -0,0 +1,36 @@
+package com.example.employee.domain.outbox;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "outbox_dead_letter", schema = "employee")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class OutboxDeadLetter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "event_id", nullable = false)
+    private UUID eventId;
+    @Column(nullable = false, length = 200)
+    private String subscriber;
+    @Column(name = "aggregate_type", nullable = false, length = 50)
+    private String aggregateType;
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+    @Column(nullable = false, length = 100)
+    private String type;
+    @Column(name = "payload_json", nullable = false, columnDefinition = "text")
+    private String payloadJson;
+    @Column(name = "attempt_count", nullable = false)
+    private int attemptCount;
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+    @Column(name = "event_created_at", nullable = false, columnDefinition = "timestamptz")
+    private Instant eventCreatedAt;
+    @Column(name = "dead_at", nullable = false, columnDefinition = "timestamptz")
+    private Instant deadAt;
+}
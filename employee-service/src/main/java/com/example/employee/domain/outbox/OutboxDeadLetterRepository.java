@@ -0,0 +1,45 @@
+package com.example.employee.domain.outbox;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface OutboxDeadLetterRepository extends JpaRepository<OutboxDeadLetter, Long> {
+
+    Page<OutboxDeadLetter> findBySubscriber(String subscriber, Pageable pageable);
+
+    // Requeue = a fresh copy of the event (same envelope and eventId, so the subscriber can still
+    // de-duplicate) that is already DISPATCHED, with a single delivery to the dead letter's subscriber.
+    @Modifying
+    @Query(value = """
+           with moved as (
+               delete from employee.outbox_dead_letter where id = :id
+               returning event_id, subscriber, aggregate_type, aggregate_id, type, payload_json
+           ), copied as (
+               insert into employee.outbox_event (event_id, aggregate_type, aggregate_id, type, payload_json, status)
+               select event_id, aggregate_type, aggregate_id, type, payload_json, 'DISPATCHED' from moved
+               returning id, event_id, created_at, aggregate_id
+           )
+           insert into employee.outbox_delivery (event_id, subscriber, created_at, aggregate_id)
+           select c.id, m.subscriber, c.created_at, c.aggregate_id from copied c join moved m on m.event_id = c.event_id
+           """, nativeQuery = true)
+    int requeue(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = """
+           with moved as (
+               delete from employee.outbox_dead_letter where subscriber = :subscriber
+               returning event_id, subscriber, aggregate_type, aggregate_id, type, payload_json
+           ), copied as (
+               insert into employee.outbox_event (event_id, aggregate_type, aggregate_id, type, payload_json, status)
+               select event_id, aggregate_type, aggregate_id, type, payload_json, 'DISPATCHED' from moved
+               returning id, event_id, created_at, aggregate_id
+           )
+           insert into employee.outbox_delivery (event_id, subscriber, created_at, aggregate_id)
+           select c.id, m.subscriber, c.created_at, c.aggregate_id from copied c join moved m on m.event_id = c.event_id
+           """, nativeQuery = true)
+    int requeueAll(@Param("subscriber") String subscriber);
+}
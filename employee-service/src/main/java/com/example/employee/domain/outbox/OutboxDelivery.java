@@ -0,0 +1,45 @@
+package com.example.employee.domain.outbox;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+@Entity
+@Table(name = "outbox_delivery", schema = "employee")
+@IdClass(OutboxDelivery.Key.class)
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class OutboxDelivery {
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+    @Id
+    @Column(length = 200)
+    private String subscriber;
+    // the event's created_at; also the partition key, so a delivery is dropped together with its event
+    @Column(name = "created_at", nullable = false, columnDefinition = "timestamptz")
+    private Instant createdAt;
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+    @Column(nullable = false, length = 16)
+    private String status;
+    @Column(name = "attempt_count", nullable = false)
+    private int attemptCount;
+    @Column(name = "next_attempt_at", nullable = false, columnDefinition = "timestamptz")
+    private Instant nextAttemptAt;
+    @Column(name = "last_attempt_at", columnDefinition = "timestamptz")
+    private Instant lastAttemptAt;
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+    @Column(name = "locked_by", length = 100)
+    private String lockedBy;
+    @Column(name = "locked_until", columnDefinition = "timestamptz")
+    private Instant lockedUntil;
+
+    @Getter @Setter @NoArgsConstructor @AllArgsConstructor @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long eventId;
+        private String subscriber;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.employee.domain.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxDeliveryRepository extends JpaRepository<OutboxDelivery, OutboxDelivery.Key> {
+
+    // transaction-scoped; claims for one subscriber run one at a time, which the ordering guard relies on
+    @Query(value = "select pg_try_advisory_xact_lock(hashtext('employee.outbox_claim:' || :subscriber))", nativeQuery = true)
+    boolean tryLockClaims(@Param("subscriber") String subscriber);
+
+    // Row-locks up to :batch due deliveries of one subscriber in the given lanes (aggregate_id mod :lanes),
+    // in event order. A delivery is skipped while an earlier delivery of the same aggregate is leased or
+    // backing off; earlier ones that are due come first in this same claim.
+    @Query(value = """
+           select d.event_id from employee.outbox_delivery d
+           where d.subscriber = :subscriber
+             and d.status <> 'SENT'
+             and d.next_attempt_at <= :now
+             and (d.locked_until is null or d.locked_until < :now)
+             and mod(d.aggregate_id, :lanes) in (:freeLanes)
+             and not exists (
+                 select 1 from employee.outbox_delivery p
+                 where p.subscriber = d.subscriber
+                   and p.aggregate_id = d.aggregate_id
+                   and p.event_id < d.event_id
+                   and p.status <> 'SENT'
+                   and (p.next_attempt_at > :now or p.locked_until >= :now))
+           order by d.event_id
+           limit :batch
+           for update of d skip locked
+           """, nativeQuery = true)
+    List<Long> lockDue(@Param("subscriber") String subscriber,
+                       @Param("now") Instant now,
+                       @Param("lanes") int lanes,
+                       @Param("freeLanes") Collection<Integer> freeLanes,
+                       @Param("batch") int batch);
+
+    @Modifying
+    @Query(value = """
+           update employee.outbox_delivery
+              set locked_by = :owner, locked_until = :until
+            where subscriber = :subscriber and event_id in (:eventIds)
+           """, nativeQuery = true)
+    int lease(@Param("subscriber") String subscriber,
+              @Param("eventIds") Collection<Long> eventIds,
+              @Param("owner") String owner,
+              @Param("until") Instant until);
+
+    List<OutboxDelivery> findBySubscriberAndEventIdIn(String subscriber, Collection<Long> eventIds);
+
+    // hands deliveries that were claimed but not attempted back without counting an attempt
+    @Modifying
+    @Query(value = """
+           update employee.outbox_delivery
+              set locked_by = null, locked_until = null
+            where subscriber = :subscriber and event_id in (:eventIds) and locked_by = :owner
+           """, nativeQuery = true)
+    int release(@Param("subscriber") String subscriber,
+                @Param("eventIds") Collection<Long> eventIds,
+                @Param("owner") String owner);
+
+    // outcome updates only apply while the lease is still ours
+    @Modifying
+    @Query(value = """
+           update employee.outbox_delivery
+              set status = 'SENT', last_attempt_at = :now, last_error = null,
+                  locked_by = null, locked_until = null
+            where subscriber = :subscriber and event_id in (:eventIds) and locked_by = :owner
+           """, nativeQuery = true)
+    int markSent(@Param("subscriber") String subscriber,
+                 @Param("eventIds") Collection<Long> eventIds,
+                 @Param("owner") String owner,
+                 @Param("now") Instant now);
+
+    @Modifying
+    @Query(value = """
+           update employee.outbox_delivery
+              set status = 'FAILED', attempt_count = attempt_count + 1, last_attempt_at = :now,
+                  next_attempt_at = :nextAttemptAt, last_error = :error,
+                  locked_by = null, locked_until = null
+            where subscriber = :subscriber and event_id = :eventId and locked_by = :owner
+           """, nativeQuery = true)
+    int markFailed(@Param("subscriber") String subscriber,
+                   @Param("eventId") Long eventId,
+                   @Param("owner") String owner,
+                   @Param("now") Instant now,
+                   @Param("nextAttemptAt") Instant nextAttemptAt,
+                   @Param("error") String error);
+
+    // out of attempts: the delivery moves to outbox_dead_letter along with a copy of the event
+    @Modifying
+    @Query(value = """
+           with dead as (
+               delete from employee.outbox_delivery
+                where subscriber = :subscriber and event_id = :eventId and locked_by = :owner
+               returning event_id, subscriber, created_at, attempt_count
+           )
+           insert into employee.outbox_dead_letter
+               (event_id, subscriber, aggregate_type, aggregate_id, type, payload_json,
+                attempt_count, last_error, event_created_at, dead_at)
+           select e.event_id, d.subscriber, e.aggregate_type, e.aggregate_id, e.type, e.payload_json,
+                  d.attempt_count + 1, :error, e.created_at, :now
+           from dead d join employee.outbox_event e on e.id = d.event_id and e.created_at = d.created_at
+           """, nativeQuery = true)
+    int deadLetter(@Param("subscriber") String subscriber,
+                   @Param("eventId") Long eventId,
+                   @Param("owner") String owner,
+                   @Param("now") Instant now,
+                   @Param("error") String error);
+}
@@ -1,4 +1,46 @@
 package com.example.employee.domain.outbox;
 
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "outbox_event", schema = "employee")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class OutboxEvent {
+    public static final String PENDING = "PENDING";
+    public static final String DISPATCHED = "DISPATCHED";
+    public static final String SENT = "SENT";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "event_id", nullable = false, unique = true)
+    private UUID eventId;
+    @Column(name = "aggregate_type", nullable = false, length = 50)
+    private String aggregateType;
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+    @Column(nullable = false, length = 100)
+    private String type;
+    @Column(name = "payload_json", nullable = false, columnDefinition = "text")
+    private String payloadJson;
+    @Column(nullable = false, length = 16)
+    private String status;
+    @Column(name = "attempt_count", nullable = false)
+    private int attemptCount;
+    @Column(name = "created_at", nullable = false, columnDefinition = "timestamptz")
+    private Instant createdAt;
+    @Column(name = "next_attempt_at", nullable = false, columnDefinition = "timestamptz")
+    private Instant nextAttemptAt;
+    @Column(name = "last_attempt_at", columnDefinition = "timestamptz")
+    private Instant lastAttemptAt;
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+    @Column(name = "locked_by", length = 100)
+    private String lockedBy;
+    @Column(name = "locked_until", columnDefinition = "timestamptz")
+    private Instant lockedUntil;
 }
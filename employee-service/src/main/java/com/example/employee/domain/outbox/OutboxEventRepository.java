@@ -1,4 +1,80 @@
 package com.example.employee.domain.outbox;
 
-public class OutboxEventRepository {
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // transaction-scoped; fan-outs run one at a time, so an aggregate's deliveries appear in event order
+    @Query(value = "select pg_try_advisory_xact_lock(hashtext('employee.outbox_fanout'))", nativeQuery = true)
+    boolean tryLockFanOut();
+
+    // Claims up to :batch undispatched events (SKIP LOCKED, so relays never queue behind each other),
+    // creates one delivery per subscriber and marks them DISPATCHED, all in one statement.
+    // :subscribers is a comma-separated list of subscriber names.
+    @Modifying
+    @Query(value = """
+           with claimed as (
+               select id, created_at, aggregate_id from employee.outbox_event
+               where status = 'PENDING'
+               order by id
+               limit :batch
+               for update skip locked
+           ), fanned as (
+               insert into employee.outbox_delivery (event_id, subscriber, created_at, aggregate_id)
+               select c.id, s.name, c.created_at, c.aggregate_id
+               from claimed c cross join unnest(string_to_array(:subscribers, ',')) as s(name)
+               on conflict do nothing
+           )
+           update employee.outbox_event e
+              set status = 'DISPATCHED'
+             from claimed c
+            where e.id = c.id and e.created_at = c.created_at
+           """, nativeQuery = true)
+    int fanOut(@Param("subscribers") String subscribers, @Param("batch") int batch);
+
+    @Modifying
+    @Query(value = """
+           update employee.outbox_event e
+              set status = 'SENT', last_attempt_at = now()
+            where e.id in (:ids)
+              and e.status = 'DISPATCHED'
+              and not exists (select 1 from employee.outbox_delivery d
+                              where d.event_id = e.id and d.status <> 'SENT')
+           """, nativeQuery = true)
+    int completeDelivered(@Param("ids") Collection<Long> ids);
+
+    // transaction-scoped; one instance maintains partitions at a time
+    @Query(value = "select pg_try_advisory_xact_lock(hashtext('employee.outbox_maintenance'))", nativeQuery = true)
+    boolean tryLockMaintenance();
+
+    /** Creates the daily partitions from yesterday up to {@code daysAhead}; returns how many were new. */
+    @Query(value = "select employee.outbox_ensure_partitions(:daysAhead)", nativeQuery = true)
+    int ensurePartitions(@Param("daysAhead") int daysAhead);
+
+    /** Drops the days ending before {@code cutoff} that have nothing left to deliver; returns how many. */
+    @Query(value = "select employee.outbox_drop_partitions(:cutoff)", nativeQuery = true)
+    int dropPartitions(@Param("cutoff") Instant cutoff);
+
+    // keyset page over [from, to) in (createdAt, id) order; each page is its own short query
+    @Query("""
+           select new com.example.employee.domain.outbox.OutboxEventRow(
+                  e.id, e.eventId, e.aggregateId, e.type, e.payloadJson, e.createdAt)
+           from OutboxEvent e
+           where e.createdAt >= :from and e.createdAt < :to
+             and (e.createdAt > :afterCreatedAt or (e.createdAt = :afterCreatedAt and e.id > :afterId))
+           order by e.createdAt, e.id
+           """)
+    List<OutboxEventRow> replayPage(@Param("from") Instant from,
+                                    @Param("to") Instant to,
+                                    @Param("afterCreatedAt") Instant afterCreatedAt,
+                                    @Param("afterId") long afterId,
+                                    Pageable page);
 }
@@ -0,0 +1,7 @@
+package com.example.employee.domain.outbox;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** What a replay needs of an outbox row, without loading the entity into the persistence context. */
+public record OutboxEventRow(Long id, UUID eventId, Long aggregateId, String type, String payloadJson, Instant createdAt) {}
@@ -0,0 +1,9 @@
+package com.example.employee.dto;
+
+import java.util.List;
+
+/**
+ * Keyset page: {@code nextCursor} is the opaque {@code after} token for the following page,
+ * {@code next} the ready-to-follow link. Both are null on the last page.
+ */
+public record CursorPage<T>(List<T> items, int limit, String nextCursor, String next) {}
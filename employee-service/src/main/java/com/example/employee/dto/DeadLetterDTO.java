@@ -0,0 +1,19 @@
+package com.example.employee.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** An outbox delivery that ran out of attempts; {@code payload} is the event envelope as it was sent. */
+public record DeadLetterDTO(Long id,
+                            UUID eventId,
+                            String subscriber,
+                            String type,
+                            String aggregateType,
+                            Long aggregateId,
+                            int attemptCount,
+                            String lastError,
+                            Instant eventCreatedAt,
+                            Instant deadAt,
+                            @JsonRawValue String payload) {}
@@ -0,0 +1,9 @@
+package com.example.employee.dto;
+
+import java.time.Instant;
+
+/**
+ * One audited write of an employee. {@code action} is CREATE, UPDATE, PATCH, BULK_UPDATE or DELETE;
+ * {@code employee} is the employee as that write left it (as deleted, for DELETE).
+ */
+public record EmployeeAuditDTO(Long id, Instant ts, String action, String traceId, EmployeeDTO employee) {}
@@ -0,0 +1,14 @@
+package com.example.employee.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/** Bulk PATCH: every employee matching {@code filter} gets the non-null fields of {@code patch}. */
+public record EmployeeBulkUpdateDTO(@NotNull @Valid Filter filter, @NotNull @Valid EmployeePatchDTO patch) {
+
+    /** Criteria are combined with AND; at least one is required. {@code emailDomain} is e.g. "example.com". */
+    public record Filter(Long departmentId, @Size(max = 10000) List<Long> ids, @Size(max = 200) String emailDomain) {}
+}
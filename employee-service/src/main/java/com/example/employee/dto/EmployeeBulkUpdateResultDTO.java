@@ -0,0 +1,4 @@
+package com.example.employee.dto;
+
+/** {@code matched} employees fit the filter; {@code updated} of them actually changed (and got an event). */
+public record EmployeeBulkUpdateResultDTO(long matched, long updated) {}
@@ -0,0 +1,10 @@
+package com.example.employee.dto;
+
+import java.time.Instant;
+
+/**
+ * One entry of the employee change feed. {@code op} is UPSERT or DELETE; {@code employee} is the
+ * employee as it is now (not as of the change), null once deleted. Applying entries in feed order
+ * therefore converges on the current state.
+ */
+public record EmployeeChangeDTO(String op, Long employeeId, Instant changedAt, EmployeeDTO employee) {}
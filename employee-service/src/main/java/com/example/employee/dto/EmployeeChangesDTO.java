@@ -0,0 +1,6 @@
+package com.example.employee.dto;
+
+import java.util.List;
+
+/** A page of the change feed; {@code next} is the {@code since} token for the following request, never null. */
+public record EmployeeChangesDTO(List<EmployeeChangeDTO> changes, String next) {}
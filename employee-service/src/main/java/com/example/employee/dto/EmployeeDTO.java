@@ -1,5 +1,6 @@
 package com.example.employee.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -27,5 +28,6 @@ public class EmployeeDTO {
     private String email;
 
     private Long departmentId;
-    private DepartmentDTO department; // response enrichment
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private DepartmentDTO department; // response enrichment, only with ?expand=department
 }
@@ -0,0 +1,4 @@
+package com.example.employee.dto;
+
+/** Typeahead hit: just enough to render a people-picker row, no department enrichment. */
+public record EmployeeSuggestionDTO(Long id, String firstName, String lastName, String email) {}
@@ -0,0 +1,13 @@
+package com.example.employee.dto;
+
+import java.time.Instant;
+
+/** Progress of a bulk import; {@code finishedAt} is null while it runs, {@code error} set only when it failed. */
+public record ImportJobDTO(String jobId,
+                           String status,
+                           long received,
+                           long inserted,
+                           long failed,
+                           Instant startedAt,
+                           Instant finishedAt,
+                           String error) {}
@@ -1,4 +1,5 @@
 package com.example.employee.dto.events;
 
-public class EmployeeCreatedEvent {
+public record EmployeeCreatedEvent(Long id, String firstName, String lastName, String email, Long departmentId) {
+    public static final String TYPE = "employee.created.v1";
 }
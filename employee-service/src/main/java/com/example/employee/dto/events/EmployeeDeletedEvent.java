@@ -0,0 +1,5 @@
+package com.example.employee.dto.events;
+
+public record EmployeeDeletedEvent(Long id, Long departmentId) {
+    public static final String TYPE = "employee.deleted.v1";
+}
@@ -0,0 +1,7 @@
+package com.example.employee.dto.events;
+
+/** {@code previousDepartmentId} lets consumers move the employee between departments without a lookup. */
+public record EmployeeUpdatedEvent(Long id, String firstName, String lastName, String email,
+                                   Long departmentId, Long previousDepartmentId) {
+    public static final String TYPE = "employee.updated.v1";
+}
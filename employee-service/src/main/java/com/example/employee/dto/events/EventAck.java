@@ -0,0 +1,18 @@
+package com.example.employee.dto.events;
+
+import java.util.UUID;
+
+/**
+ * A subscriber's verdict on one event of a batch. ACCEPTED and DUPLICATE are acks; FAILED and
+ * REJECTED leave the event to be retried.
+ */
+public record EventAck(UUID eventId, String status, String error) {
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String FAILED = "FAILED";
+    public static final String REJECTED = "REJECTED";
+
+    public boolean acked() {
+        return ACCEPTED.equals(status) || DUPLICATE.equals(status);
+    }
+}
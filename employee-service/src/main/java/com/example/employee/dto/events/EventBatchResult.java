@@ -0,0 +1,6 @@
+package com.example.employee.dto.events;
+
+import java.util.List;
+
+/** Response to {@code POST <subscriber>/batch}: one ack per event received, in any order. */
+public record EventBatchResult(List<EventAck> acks) {}
@@ -0,0 +1,4 @@
+package com.example.employee.dto.events;
+
+/** What a subscriber advertises at {@code GET <subscriber>/capabilities}. */
+public record EventCapabilities(boolean batch, int maxEvents) {}
@@ -0,0 +1,15 @@
+package com.example.employee.dto.events;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Envelope for events published through the outbox. {@code eventId} is unique per event, so
+ * consumers can de-duplicate redeliveries; {@code data} is one of the {@code Employee*Event} records.
+ */
+public record IntegrationEvent<T>(UUID eventId,
+                                  String type,
+                                  Instant occurredAt,
+                                  String aggregateType,
+                                  Long aggregateId,
+                                  T data) {}
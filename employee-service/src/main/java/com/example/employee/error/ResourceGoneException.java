@@ -0,0 +1,7 @@
+package com.example.employee.error;
+
+public class ResourceGoneException extends RuntimeException{
+    public ResourceGoneException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.employee.repo;
+
+import java.time.Instant;
+import java.util.List;
+
+/** The append-only, monthly partitioned employee audit trail (V15). */
+public interface EmployeeAuditRepository {
+
+    /** One audited write; {@code employee} is the row as written (as deleted, for DELETE). {@code id} is null until stored. */
+    record EmployeeAudit(Long id, Instant ts, long employeeId, String action, EmployeeRow employee, String traceId) {}
+
+    /** Appends {@code entries} with one multi-row insert. */
+    void appendAudit(List<EmployeeAudit> entries);
+
+    /**
+     * Up to {@code limit} entries of one employee, newest first, strictly before ({@code beforeTs}, {@code beforeId});
+     * from the newest entry if {@code beforeTs} is null. Served by {@code ix_employee_audit_employee_ts}.
+     */
+    List<EmployeeAudit> findAudit(long employeeId, Instant beforeTs, Long beforeId, int limit);
+
+    /** Creates the monthly partitions up to {@code monthsAhead}; returns how many it created. */
+    int ensureAuditPartitions(int monthsAhead);
+}
@@ -0,0 +1,93 @@
+package com.example.employee.repo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class EmployeeAuditRepositoryImpl implements EmployeeAuditRepository {
+
+    private static final String COLUMNS = "a.id, a.ts, a.employee_id, a.action, a.first_name, a.last_name, a.email, a.department_id, a.trace_id";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public void appendAudit(List<EmployeeAudit> entries) {
+        if (entries.isEmpty()) return;
+        List<String> values = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            values.add(("(cast(:ts%1$d as timestamptz), :id%1$d, :a%1$d, cast(:f%1$d as varchar), cast(:l%1$d as varchar), "
+                    + "cast(:e%1$d as varchar), cast(:d%1$d as bigint), cast(:t%1$d as varchar))").formatted(i));
+        }
+        Query query = em.createNativeQuery("""
+                insert into employee.employee_audit
+                    (ts, employee_id, action, first_name, last_name, email, department_id, trace_id)
+                values %s
+                """.formatted(String.join(", ", values)));
+        for (int i = 0; i < entries.size(); i++) {
+            EmployeeAudit a = entries.get(i);
+            EmployeeRow r = a.employee();
+            query.setParameter("ts" + i, a.ts())
+                    .setParameter("id" + i, a.employeeId())
+                    .setParameter("a" + i, a.action())
+                    .setParameter("f" + i, r == null ? null : r.firstName())
+                    .setParameter("l" + i, r == null ? null : r.lastName())
+                    .setParameter("e" + i, r == null ? null : r.email())
+                    .setParameter("d" + i, r == null ? null : r.departmentId())
+                    .setParameter("t" + i, a.traceId());
+        }
+        query.executeUpdate();
+    }
+
+    @Override
+    public List<EmployeeAudit> findAudit(long employeeId, Instant beforeTs, Long beforeId, int limit) {
+        Query query = beforeTs == null
+                ? em.createNativeQuery("""
+                        select %s from employee.employee_audit a
+                        where a.employee_id = :employeeId
+                        order by a.ts desc, a.id desc
+                        limit :limit
+                        """.formatted(COLUMNS))
+                : em.createNativeQuery("""
+                        select %s from employee.employee_audit a
+                        where a.employee_id = :employeeId
+                          and (a.ts, a.id) < (cast(:ts as timestamptz), :id)
+                        order by a.ts desc, a.id desc
+                        limit :limit
+                        """.formatted(COLUMNS))
+                .setParameter("ts", beforeTs)
+                .setParameter("id", beforeId);
+        List<?> rows = query.setParameter("employeeId", employeeId)
+                .setParameter("limit", limit)
+                .getResultList();
+        List<EmployeeAudit> out = new ArrayList<>(rows.size());
+        for (Object o : rows) {
+            Object[] r = (Object[]) o;
+            EmployeeRow employee = new EmployeeRow(((Number) r[2]).longValue(), (String) r[4], (String) r[5],
+                    (String) r[6], r[7] == null ? null : ((Number) r[7]).longValue());
+            out.add(new EmployeeAudit(((Number) r[0]).longValue(), instant(r[1]), ((Number) r[2]).longValue(),
+                    (String) r[3], employee, (String) r[8]));
+        }
+        return out;
+    }
+
+    @Override
+    public int ensureAuditPartitions(int monthsAhead) {
+        Object created = em.createNativeQuery("select employee.employee_audit_ensure_partitions(:monthsAhead)")
+                .setParameter("monthsAhead", monthsAhead)
+                .getSingleResult();
+        return ((Number) created).intValue();
+    }
+
+    // timestamptz comes back as Timestamp or OffsetDateTime depending on the Hibernate/driver pairing
+    private static Instant instant(Object value) {
+        if (value instanceof java.sql.Timestamp ts) return ts.toInstant();
+        if (value instanceof OffsetDateTime odt) return odt.toInstant();
+        return (Instant) value;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.employee.repo;
+
+import java.util.Collection;
+import java.util.List;
+
+/** Set-based writes that touch many employees in one statement. */
+public interface EmployeeBulkRepository {
+
+    /** {@code matched} is capped at the {@code limit} passed in; {@code updated} holds the rows as written. */
+    record BulkUpdate(long matched, List<EmployeeRow> updated) {}
+
+    /**
+     * Applies the non-null patch values to up to {@code limit} employees matching every non-null filter, in
+     * one {@code UPDATE ... RETURNING} that also writes an {@code employee.updated.v1} outbox event per changed
+     * row. Rows the patch would not change are neither written nor evented.
+     */
+    BulkUpdate bulkUpdate(Long departmentId, Collection<Long> ids, String emailDomain,
+                          String firstName, String lastName, Long newDepartmentId, int limit);
+}
@@ -0,0 +1,103 @@
+package com.example.employee.repo;
+
+import com.example.employee.dto.events.EmployeeUpdatedEvent;
+import com.example.employee.service.Outbox;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// The statement is assembled from fixed fragments for the filters and patch fields that are present;
+// every value is a bind parameter.
+class EmployeeBulkRepositoryImpl implements EmployeeBulkRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public BulkUpdate bulkUpdate(Long departmentId, Collection<Long> ids, String emailDomain,
+                                 String firstName, String lastName, Long newDepartmentId, int limit) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        List<String> where = new ArrayList<>();
+        if (departmentId != null) {
+            where.add("e.department_id = :filterDepartmentId");
+            params.put("filterDepartmentId", departmentId);
+        }
+        if (ids != null) {
+            where.add("e.id in (:ids)");
+            params.put("ids", ids);
+        }
+        if (emailDomain != null) {
+            // served by the trigram index on lower(email)
+            where.add("lower(e.email) like :emailSuffix");
+            params.put("emailSuffix", "%@" + emailDomain.toLowerCase(Locale.ROOT)
+                    .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_"));
+        }
+        List<String> set = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        patch("first_name", "firstName", firstName, set, changed, params);
+        patch("last_name", "lastName", lastName, set, changed, params);
+        patch("department_id", "departmentId", newDepartmentId, set, changed, params);
+        if (where.isEmpty() || set.isEmpty()) throw new IllegalArgumentException("Bulk update needs a filter and a patch");
+
+        // target locks the matches in id order (concurrent bulk updates cannot deadlock) and keeps the
+        // pre-update department for the events; the final select always yields at least the count row
+        Query query = em.createNativeQuery("""
+                with target as (
+                    select e.id, e.department_id from employee.employees e
+                    where %1$s
+                    order by e.id
+                    limit :limit
+                    for update
+                ), upd as (
+                    update employee.employees e set %2$s
+                    from target t
+                    where e.id = t.id and (%3$s)
+                    returning e.id, e.first_name, e.last_name, e.email, e.department_id,
+                              t.department_id as previous_department_id
+                ), events as (
+                    insert into employee.outbox_event (event_id, aggregate_type, aggregate_id, type, payload_json)
+                    select u.event_id, '%5$s', u.id, '%4$s',
+                           json_build_object('eventId', u.event_id, 'type', '%4$s', 'occurredAt', now(),
+                                             'aggregateType', '%5$s', 'aggregateId', u.id,
+                                             'data', json_build_object('id', u.id, 'firstName', u.first_name,
+                                                                       'lastName', u.last_name, 'email', u.email,
+                                                                       'departmentId', u.department_id,
+                                                                       'previousDepartmentId', u.previous_department_id))::text
+                    from (select upd.*, gen_random_uuid() as event_id from upd) u
+                    order by u.id
+                )
+                select (select count(*) from target), u.id, u.first_name, u.last_name, u.email, u.department_id
+                from (select 1) one left join upd u on true
+                order by u.id
+                """.formatted(String.join(" and ", where), String.join(", ", set), String.join(" or ", changed),
+                EmployeeUpdatedEvent.TYPE, Outbox.EMPLOYEE));
+        params.forEach(query::setParameter);
+        query.setParameter("limit", limit);
+
+        long matched = 0;
+        List<EmployeeRow> updated = new ArrayList<>();
+        for (Object r : query.getResultList()) {
+            Object[] row = (Object[]) r;
+            matched = ((Number) row[0]).longValue();
+            if (row[1] == null) continue;
+            updated.add(new EmployeeRow(((Number) row[1]).longValue(), (String) row[2], (String) row[3], (String) row[4],
+                    row[5] == null ? null : ((Number) row[5]).longValue()));
+        }
+        return new BulkUpdate(matched, updated);
+    }
+
+    private static void patch(String column, String param, Object value,
+                              List<String> set, List<String> changed, Map<String, Object> params) {
+        if (value == null) return;
+        set.add(column + " = :" + param);
+        changed.add("e." + column + " is distinct from :" + param);
+        params.put(param, value);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.employee.repo;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads of the trigger-written change log (V13). Only changes of transactions older than the reading
+ * statement's snapshot xmin are returned, so positions handed out never get a late-committing
+ * predecessor and a consumer can follow them without gaps.
+ * <p>
+ * The price: xmin is the oldest transaction still running anywhere on the Postgres cluster that has
+ * written something, in any service's schema. While one stays open, changes committed after it
+ * started are held back from every reader, and the feed stalls for as long as that transaction runs.
+ * {@link #findChangeLag} measures it.
+ */
+public interface EmployeeChangeRepository {
+
+    /** Position in the change log: the writing transaction id, then the change id. */
+    record ChangePosition(long xid, long id) implements Comparable<ChangePosition> {
+        public static final ChangePosition START = new ChangePosition(0, 0);
+
+        @Override
+        public int compareTo(ChangePosition o) {
+            int c = Long.compare(xid, o.xid);
+            return c != 0 ? c : Long.compare(id, o.id);
+        }
+    }
+
+    /**
+     * {@code held}: committed changes the feed cannot hand out yet. {@code oldestWriter}: how long the oldest
+     * open transaction that holds them back has been running; zero when none is open or it cannot be seen
+     * (pg_stat_activity only shows the database role's own sessions without pg_read_all_stats).
+     */
+    record ChangeLag(long held, Duration oldestWriter) {}
+
+    /** {@code employee} is the current row, null once the employee is gone. */
+    record EmployeeChange(ChangePosition position, long employeeId, String op, Instant changedAt, EmployeeRow employee) {}
+
+    /** Up to {@code limit} visible changes after {@code after}, in log order. */
+    List<EmployeeChange> findChangesAfter(ChangePosition after, int limit);
+
+    /** Position of the newest visible change; empty while the log is empty. */
+    Optional<ChangePosition> findChangeHead();
+
+    /** How far the feed trails the committed log because of transactions still open. */
+    ChangeLag findChangeLag();
+
+    /** Highest position removed by {@link #purgeChanges}; empty if nothing was purged yet. */
+    Optional<ChangePosition> findChangesPurgedThrough();
+
+    /** Deletes up to {@code batch} changes older than {@code before} and records how far the log is purged. */
+    int purgeChanges(Instant before, int batch);
+}
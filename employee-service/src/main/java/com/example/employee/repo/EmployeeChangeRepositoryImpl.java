@@ -0,0 +1,128 @@
+package com.example.employee.repo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// xid8 has no binary mapping in the driver, so it travels as text and is compared as xid8 in SQL.
+// "visible" = written by a transaction older than the statement snapshot's xmin (see V13). That xmin
+// is cluster-wide: one long-running writer, in this service or any other on the same Postgres, holds
+// back every change committed after it started until it ends. findChangeLag reports how much and how long.
+class EmployeeChangeRepositoryImpl implements EmployeeChangeRepository {
+
+    private static final String VISIBLE = "c.xid < pg_snapshot_xmin(pg_current_snapshot())";
+    private static final String HELD = "c.xid >= pg_snapshot_xmin(pg_current_snapshot())";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<EmployeeChange> findChangesAfter(ChangePosition after, int limit) {
+        List<?> rows = em.createNativeQuery("""
+                select c.xid::text, c.id, c.employee_id, c.op, c.changed_at,
+                       e.id as current_id, e.first_name, e.last_name, e.email, e.department_id
+                from employee.employee_change c
+                left join employee.employees e on e.id = c.employee_id
+                where (c.xid, c.id) > (cast(:xid as xid8), :id)
+                  and %s
+                order by c.xid, c.id
+                limit :limit
+                """.formatted(VISIBLE))
+                .setParameter("xid", Long.toString(after.xid()))
+                .setParameter("id", after.id())
+                .setParameter("limit", limit)
+                .getResultList();
+        List<EmployeeChange> out = new ArrayList<>(rows.size());
+        for (Object r : rows) {
+            Object[] row = (Object[]) r;
+            EmployeeRow employee = row[5] == null ? null : new EmployeeRow(((Number) row[5]).longValue(),
+                    (String) row[6], (String) row[7], (String) row[8],
+                    row[9] == null ? null : ((Number) row[9]).longValue());
+            out.add(new EmployeeChange(position(row[0], row[1]), ((Number) row[2]).longValue(), (String) row[3],
+                    instant(row[4]), employee));
+        }
+        return out;
+    }
+
+    @Override
+    public Optional<ChangePosition> findChangeHead() {
+        // backward scan of ix_employee_change_xid_id, stops at the first visible row
+        return first("""
+                select c.xid::text, c.id from employee.employee_change c
+                where %s
+                order by c.xid desc, c.id desc
+                limit 1
+                """.formatted(VISIBLE));
+    }
+
+    @Override
+    public ChangeLag findChangeLag() {
+        // the held rows are the tail of ix_employee_change_xid_id; the writer holding them back is the
+        // oldest session with an xid assigned
+        Object[] row = (Object[]) em.createNativeQuery("""
+                select (select count(*) from employee.employee_change c where %s),
+                       (select extract(epoch from clock_timestamp() - min(a.xact_start))
+                        from pg_stat_activity a where a.backend_xid is not null)
+                """.formatted(HELD))
+                .getSingleResult();
+        long held = ((Number) row[0]).longValue();
+        Duration oldestWriter = row[1] == null ? Duration.ZERO
+                : Duration.ofMillis(Math.round(((Number) row[1]).doubleValue() * 1000));
+        return new ChangeLag(held, oldestWriter);
+    }
+
+    @Override
+    public Optional<ChangePosition> findChangesPurgedThrough() {
+        return first("select p.xid::text, p.change_id from employee.employee_change_purged p where p.id = 1");
+    }
+
+    @Override
+    public int purgeChanges(Instant before, int batch) {
+        // the mark only moves forward, so overlapping purges cannot lower it
+        Object removed = em.createNativeQuery("""
+                with gone as (
+                    delete from employee.employee_change
+                    where id in (select id from employee.employee_change
+                                 where changed_at < :before
+                                 order by changed_at
+                                 limit :batch)
+                    returning xid, id
+                ), mark as (
+                    insert into employee.employee_change_purged as p (id, xid, change_id)
+                    select 1, g.xid, g.id from gone g
+                    order by g.xid desc, g.id desc
+                    limit 1
+                    on conflict (id) do update
+                       set xid = excluded.xid, change_id = excluded.change_id
+                     where (p.xid, p.change_id) < (excluded.xid, excluded.change_id)
+                )
+                select count(*) from gone
+                """)
+                .setParameter("before", before)
+                .setParameter("batch", batch)
+                .getSingleResult();
+        return ((Number) removed).intValue();
+    }
+
+    private Optional<ChangePosition> first(String sql) {
+        return em.createNativeQuery(sql).getResultStream().findFirst()
+                .map(r -> position(((Object[]) r)[0], ((Object[]) r)[1]));
+    }
+
+    private static ChangePosition position(Object xid, Object id) {
+        return new ChangePosition(Long.parseLong((String) xid), ((Number) id).longValue());
+    }
+
+    // timestamptz comes back as Timestamp or OffsetDateTime depending on the Hibernate/driver pairing
+    private static Instant instant(Object value) {
+        if (value instanceof java.sql.Timestamp ts) return ts.toInstant();
+        if (value instanceof OffsetDateTime odt) return odt.toInstant();
+        return (Instant) value;
+    }
+}
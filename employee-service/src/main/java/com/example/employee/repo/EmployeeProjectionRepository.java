@@ -0,0 +1,21 @@
+package com.example.employee.repo;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sparse employee reads: only the requested fields are selected, one map per row keyed by field
+ * name in the requested order. Field names are the {@code EmployeeDTO} property names.
+ */
+public interface EmployeeProjectionRepository {
+
+    Optional<Map<String, Object>> findFieldsById(Long id, List<String> fields);
+
+    /** Filters are optional and behave like the list endpoint's: exact email, lastName substring, both case-insensitive. */
+    Page<Map<String, Object>> findFields(List<String> fields, String email, String lastNameContains, Long departmentId,
+                                         Pageable pageable);
+}
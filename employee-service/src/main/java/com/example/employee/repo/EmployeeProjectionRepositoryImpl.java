@@ -0,0 +1,129 @@
+package com.example.employee.repo;
+
+import com.example.employee.domain.Employee;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+// Criteria queries for the filtered reads. Field names are checked against COLUMNS before they reach
+// a query, so they can be spliced into a select list (EmployeeSearchRepositoryImpl does).
+class EmployeeProjectionRepositoryImpl implements EmployeeProjectionRepository {
+
+    private static final Map<String, String> COLUMNS = Map.of(
+            "id", "id",
+            "firstName", "first_name",
+            "lastName", "last_name",
+            "email", "email",
+            "departmentId", "department_id");
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(Long id, List<String> fields) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> q = cb.createTupleQuery();
+        Root<Employee> e = q.from(Employee.class);
+        q.multiselect(select(e, fields)).where(cb.equal(e.get("id"), id));
+        return em.createQuery(q).getResultStream().findFirst().map(t -> row(t, fields));
+    }
+
+    @Override
+    public Page<Map<String, Object>> findFields(List<String> fields, String email, String lastNameContains,
+                                                Long departmentId, Pageable pageable) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> q = cb.createTupleQuery();
+        Root<Employee> e = q.from(Employee.class);
+        q.multiselect(select(e, fields))
+                .where(filters(cb, e, email, lastNameContains, departmentId))
+                .orderBy(orders(cb, e, pageable.getSort()));
+
+        TypedQuery<Tuple> query = em.createQuery(q);
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(query.getResultList().stream().map(t -> row(t, fields)).toList());
+        }
+        query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        List<Map<String, Object>> rows = query.getResultList().stream().map(t -> row(t, fields)).toList();
+        return PageableExecutionUtils.getPage(rows, pageable, () -> {
+            CriteriaQuery<Long> c = cb.createQuery(Long.class);
+            Root<Employee> ce = c.from(Employee.class);
+            c.select(cb.count(ce)).where(filters(cb, ce, email, lastNameContains, departmentId));
+            return em.createQuery(c).getSingleResult();
+        });
+    }
+
+    private static List<Selection<?>> select(Root<Employee> e, List<String> fields) {
+        List<Selection<?>> out = new ArrayList<>(fields.size());
+        for (String f : fields) {
+            column(f);
+            out.add(e.get(f).alias(f));
+        }
+        return out;
+    }
+
+    private static Predicate[] filters(CriteriaBuilder cb, Root<Employee> e, String email, String lastNameContains,
+                                       Long departmentId) {
+        List<Predicate> where = new ArrayList<>();
+        if (email != null) {
+            where.add(cb.equal(cb.lower(e.get("email")), email.toLowerCase(Locale.ROOT)));
+        }
+        if (lastNameContains != null) {
+            String needle = lastNameContains.toLowerCase(Locale.ROOT)
+                    .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            where.add(cb.like(cb.lower(e.get("lastName")), "%" + needle + "%", '\\'));
+        }
+        if (departmentId != null) {
+            where.add(cb.equal(e.get("departmentId"), departmentId));
+        }
+        return where.toArray(Predicate[]::new);
+    }
+
+    // id breaks ties, so paging over a non-unique sort key is stable
+    private static List<Order> orders(CriteriaBuilder cb, Root<Employee> e, Sort sort) {
+        List<Order> out = new ArrayList<>();
+        boolean byId = false;
+        for (Sort.Order o : sort) {
+            column(o.getProperty());
+            out.add(o.isAscending() ? cb.asc(e.get(o.getProperty())) : cb.desc(e.get(o.getProperty())));
+            byId |= o.getProperty().equals("id");
+        }
+        if (!byId) out.add(cb.asc(e.get("id")));
+        return out;
+    }
+
+    private static Map<String, Object> row(Tuple t, List<String> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String f : fields) row.put(f, t.get(f));
+        return row;
+    }
+
+    // native bigint columns may come back as BigInteger depending on the driver mapping
+    static Object normalize(String field, Object value) {
+        if (value instanceof Number n && (field.equals("id") || field.equals("departmentId"))) return n.longValue();
+        return value;
+    }
+
+    static String column(String field) {
+        String column = COLUMNS.get(field);
+        if (column == null) throw new IllegalArgumentException("Unknown employee field: " + field);
+        return column;
+    }
+}
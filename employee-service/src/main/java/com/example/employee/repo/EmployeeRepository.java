@@ -3,39 +3,95 @@ package com.example.employee.repo;
 import com.example.employee.domain.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.query.QueryByExampleExecutor;
 
+import jakarta.persistence.QueryHint;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface EmployeeRepository extends JpaRepository<Employee, Long>, QueryByExampleExecutor<Employee> {
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, QueryByExampleExecutor<Employee>,
+        EmployeeProjectionRepository, EmployeeBulkRepository, EmployeeChangeRepository, EmployeeWriteRepository,
+        EmployeeAuditRepository, EmployeeSearchRepository {
     boolean existsByEmail(String email);
     boolean existsByEmailAndIdNot(String email, Long id);
 
-    List<Employee> findByFirstNameIgnoreCaseContainingOrLastNameIgnoreCaseContainingOrEmailIgnoreCaseContaining(
-            String q1, String q2, String q3
-    );
-
     interface DeptCount {
         Long getDepartmentId();
         long getCount();
     }
 
-    @Query("select e.departmentId as departmentId, count(e) as count from Employee e group by e.departmentId")
-    List<DeptCount> countByDepartment();
+    // ----- headcount counters (V6 triggers); department_id 0 = no department -----
+    @Query(value = """
+           select nullif(department_id, 0) as departmentId, sum(headcount)::bigint as count
+           from employee.department_headcount
+           group by department_id
+           having sum(headcount) <> 0
+           order by department_id
+           """, nativeQuery = true)
+    List<DeptCount> headcountByDepartment();
+
+    @Query(value = """
+           select coalesce(sum(headcount), 0)::bigint
+           from employee.department_headcount
+           where department_id = coalesce(:departmentId, 0)
+           """, nativeQuery = true)
+    long headcountOf(@Param("departmentId") Long departmentId);
 
-    boolean existsByEmailIgnoreCase(String email);
-    Optional<Employee> findByEmailIgnoreCase(String email);
+    // transaction-scoped; keeps reconcilers on several instances from applying the same repair twice
+    @Query(value = "select pg_try_advisory_xact_lock(hashtext('employee.department_headcount'))", nativeQuery = true)
+    boolean tryLockHeadcounts();
 
+    // one snapshot for both sides; adds the difference to slot 0 and returns the number of departments repaired
+    @Modifying
+    @Query(value = """
+           with actual as (
+               select coalesce(department_id, 0) as d, count(*) as c from employee.employees group by 1
+           ), counted as (
+               select department_id as d, sum(headcount) as c from employee.department_headcount group by 1
+           )
+           insert into employee.department_headcount as h (department_id, slot, headcount)
+           select coalesce(a.d, k.d), 0, coalesce(a.c, 0) - coalesce(k.c, 0)
+           from actual a full join counted k on k.d = a.d
+           where coalesce(a.c, 0) <> coalesce(k.c, 0)
+           on conflict (department_id, slot) do update set headcount = h.headcount + excluded.headcount
+           """, nativeQuery = true)
+    int reconcileHeadcounts();
 
-    // simple name/email search (case-insensitive)
+
+    // forward-only server-side cursor; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
     @Query("""
-           select e from Employee e
-           where lower(e.firstName) like lower(concat('%', ?1, '%'))
-              or lower(e.lastName)  like lower(concat('%', ?1, '%'))
-              or lower(e.email)     like lower(concat('%', ?1, '%'))
+           select new com.example.employee.repo.EmployeeRow(e.id, e.firstName, e.lastName, e.email, e.departmentId)
+           from Employee e
+           order by e.id
            """)
-    List<Employee> search(String q);
+    Stream<EmployeeRow> streamAll();
+
+    // ----- keyset (cursor) pagination: no OFFSET, no count query -----
+    @Query(value = "select * from employee.employees order by id limit :limit", nativeQuery = true)
+    List<Employee> findFirstById(@Param("limit") int limit);
+
+    @Query(value = "select * from employee.employees where id > :afterId order by id limit :limit", nativeQuery = true)
+    List<Employee> findAfterId(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Query(value = "select * from employee.employees order by last_name, id limit :limit", nativeQuery = true)
+    List<Employee> findFirstByLastName(@Param("limit") int limit);
+
+    @Query(value = """
+           select * from employee.employees
+           where (last_name, id) > (:lastName, :afterId)
+           order by last_name, id
+           limit :limit
+           """, nativeQuery = true)
+    List<Employee> findAfterLastName(@Param("lastName") String lastName,
+                                     @Param("afterId") long afterId,
+                                     @Param("limit") int limit);
 
 }
@@ -0,0 +1,7 @@
+package com.example.employee.repo;
+
+/**
+ * Unmanaged read-only projection of an employee row. Used where rows are streamed, so the
+ * persistence context does not grow with the table.
+ */
+public record EmployeeRow(Long id, String firstName, String lastName, String email, Long departmentId) {}
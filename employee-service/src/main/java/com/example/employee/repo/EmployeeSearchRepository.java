@@ -0,0 +1,28 @@
+package com.example.employee.repo;
+
+import com.example.employee.domain.Employee;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranked substring search. The {@code lower(col) LIKE} predicates are served by the V5 trigram GIN indexes;
+ * matches are ordered by pg_trgm {@code similarity()}, best first, then by id. {@code q} is the lower-cased
+ * needle, {@code pattern} the same needle LIKE-escaped and wrapped in '%'. A pageable's sort is ignored.
+ */
+public interface EmployeeSearchRepository {
+
+    Page<Employee> searchRanked(String q, String pattern, Pageable pageable);
+
+    /** Best matches only: one extra row is read to tell whether there were more, nothing is counted. */
+    Slice<Employee> searchRankedTop(String q, String pattern, Pageable pageable);
+
+    /** Sparse variant of {@link #searchRanked}, see {@link EmployeeProjectionRepository}. */
+    Page<Map<String, Object>> searchRankedFields(List<String> fields, String q, String pattern, Pageable pageable);
+
+    /** Sparse variant of {@link #searchRankedTop}: the best {@code limit} matches, nothing counted. */
+    Slice<Map<String, Object>> searchRankedFieldsTop(List<String> fields, String q, String pattern, int limit);
+}
@@ -0,0 +1,126 @@
+package com.example.employee.repo;
+
+import com.example.employee.domain.Employee;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// pg_trgm is shared with project-service and may live in any schema of the database, depending on which
+// service created it first and with what search_path. similarity() is qualified with the schema read from
+// pg_extension on the first search instead of relying on the connection's search_path.
+class EmployeeSearchRepositoryImpl implements EmployeeSearchRepository {
+
+    private static final String WHERE = """
+            where lower(e.first_name) like :pattern
+               or lower(e.last_name)  like :pattern
+               or lower(e.email)      like :pattern
+            """;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private volatile String orderBy;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Page<Employee> searchRanked(String q, String pattern, Pageable pageable) {
+        List<Employee> rows = ranked("e.*", Employee.class, q, pattern, (int) pageable.getOffset(), pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(pattern));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Slice<Employee> searchRankedTop(String q, String pattern, Pageable pageable) {
+        List<Employee> rows = ranked("e.*", Employee.class, q, pattern, (int) pageable.getOffset(), pageable.getPageSize() + 1)
+                .getResultList();
+        return slice(rows, pageable);
+    }
+
+    @Override
+    public Page<Map<String, Object>> searchRankedFields(List<String> fields, String q, String pattern, Pageable pageable) {
+        List<Map<String, Object>> rows = rankedFields(fields, q, pattern, (int) pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(pattern));
+    }
+
+    @Override
+    public Slice<Map<String, Object>> searchRankedFieldsTop(List<String> fields, String q, String pattern, int limit) {
+        return slice(rankedFields(fields, q, pattern, 0, limit + 1), PageRequest.of(0, limit));
+    }
+
+    private List<Map<String, Object>> rankedFields(List<String> fields, String q, String pattern, int offset, int max) {
+        String columns = fields.stream()
+                .map(f -> "e." + EmployeeProjectionRepositoryImpl.column(f) + " as \"" + f + "\"")
+                .collect(Collectors.joining(", "));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Object r : ranked(columns, null, q, pattern, offset, max).getResultList()) {
+            // a single selected column comes back as the bare value, several as Object[]
+            Object[] values = fields.size() == 1 ? new Object[] {r} : (Object[]) r;
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                row.put(fields.get(i), EmployeeProjectionRepositoryImpl.normalize(fields.get(i), values[i]));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private Query ranked(String columns, Class<?> entity, String q, String pattern, int offset, int max) {
+        String sql = "select " + columns + " from employee.employees e " + WHERE + orderBy();
+        Query query = entity == null ? em.createNativeQuery(sql) : em.createNativeQuery(sql, entity);
+        return query.setParameter("q", q)
+                .setParameter("pattern", pattern)
+                .setFirstResult(offset)
+                .setMaxResults(max);
+    }
+
+    private long count(String pattern) {
+        return ((Number) em.createNativeQuery("select count(*) from employee.employees e " + WHERE)
+                .setParameter("pattern", pattern)
+                .getSingleResult()).longValue();
+    }
+
+    private String orderBy() {
+        String o = orderBy;
+        if (o == null) {
+            String similarity = quoteIdent(trigramSchema()) + ".similarity";
+            orderBy = o = """
+                    order by greatest(%1$s(lower(e.first_name), :q),
+                                      %1$s(lower(e.last_name),  :q),
+                                      %1$s(lower(e.email),      :q)) desc,
+                             e.id
+                    """.formatted(similarity);
+        }
+        return o;
+    }
+
+    private String trigramSchema() {
+        List<?> schema = em.createNativeQuery("""
+                select n.nspname::text from pg_extension x join pg_namespace n on n.oid = x.extnamespace
+                where x.extname = 'pg_trgm'
+                """).getResultList();
+        if (schema.isEmpty()) throw new IllegalStateException("pg_trgm is not installed (see V5)");
+        return (String) schema.get(0);
+    }
+
+    private static String quoteIdent(String name) {
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    private static <T> Slice<T> slice(List<T> rows, Pageable pageable) {
+        boolean more = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(more ? rows.subList(0, pageable.getPageSize()) : rows, pageable, more);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.employee.repo;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Single-employee writes as one statement each: the row and its outbox event are written in one round
+ * trip. Email uniqueness is left to {@code ux_employees_email_lower} (V14) instead of a prior lookup.
+ */
+public interface EmployeeWriteRepository {
+
+    String EMAIL_CONSTRAINT = "ux_employees_email_lower";
+
+    /** The row as written, plus the department it had before. */
+    record Written(EmployeeRow row, Long previousDepartmentId) {}
+
+    /** Inserts and writes an {@code employee.created.v1} event; empty if the email is taken (case-insensitively). */
+    Optional<EmployeeRow> insertIfEmailFree(String firstName, String lastName, String email, Long departmentId);
+
+    /**
+     * Multi-row {@link #insertIfEmailFree} (ids of {@code rows} are ignored): one statement inserts them in list
+     * order, each with its event. Rows whose email is taken, also by an earlier row of the list, are skipped;
+     * the result holds the inserted ones.
+     */
+    List<EmployeeRow> insertAllIfEmailFree(List<EmployeeRow> rows);
+
+    /**
+     * Overwrites every field, or with {@code patch} only the non-null ones, and writes an {@code employee.updated.v1}
+     * event; empty if there is no such employee. An email taken by another employee fails on {@link #EMAIL_CONSTRAINT}.
+     */
+    Optional<Written> updateById(Long id, String firstName, String lastName, String email, Long departmentId, boolean patch);
+
+    /** Deletes and writes an {@code employee.deleted.v1} event; returns the row as it was, empty if there is no such employee. */
+    Optional<EmployeeRow> deleteReturning(Long id);
+}
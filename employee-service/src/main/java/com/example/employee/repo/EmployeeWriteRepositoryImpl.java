@@ -0,0 +1,154 @@
+package com.example.employee.repo;
+
+import com.example.employee.dto.events.EmployeeCreatedEvent;
+import com.example.employee.dto.events.EmployeeDeletedEvent;
+import com.example.employee.dto.events.EmployeeUpdatedEvent;
+import com.example.employee.service.Outbox;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Each statement writes the row in a "w" CTE and its event from w's RETURNING in "events", with the same
+// envelope Outbox.append writes. Values are cast so that null binds still get a type.
+class EmployeeWriteRepositoryImpl implements EmployeeWriteRepository {
+
+    // 'data' object per event type, over the columns of w
+    private static final String CREATED_DATA = """
+            json_build_object('id', w.id, 'firstName', w.first_name, 'lastName', w.last_name,
+                              'email', w.email, 'departmentId', w.department_id)""";
+    private static final String UPDATED_DATA = """
+            json_build_object('id', w.id, 'firstName', w.first_name, 'lastName', w.last_name,
+                              'email', w.email, 'departmentId', w.department_id,
+                              'previousDepartmentId', w.previous_department_id)""";
+    private static final String DELETED_DATA = "json_build_object('id', w.id, 'departmentId', w.department_id)";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Optional<EmployeeRow> insertIfEmailFree(String firstName, String lastName, String email, Long departmentId) {
+        Query query = em.createNativeQuery("""
+                with w as (
+                    insert into employee.employees (first_name, last_name, email, department_id)
+                    values (cast(:firstName as varchar), cast(:lastName as varchar), cast(:email as varchar),
+                            cast(:departmentId as bigint))
+                    on conflict ((lower(email))) do nothing
+                    returning id, first_name, last_name, email, department_id
+                ), %s
+                select w.id, w.first_name, w.last_name, w.email, w.department_id, null from w
+                """.formatted(events(EmployeeCreatedEvent.TYPE, CREATED_DATA)));
+        query.setParameter("firstName", firstName)
+                .setParameter("lastName", lastName)
+                .setParameter("email", email)
+                .setParameter("departmentId", departmentId);
+        return single(query).map(Written::row);
+    }
+
+    @Override
+    public List<EmployeeRow> insertAllIfEmailFree(List<EmployeeRow> rows) {
+        if (rows.isEmpty()) return List.of();
+        List<String> values = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            values.add("(cast(:f%1$d as varchar), cast(:l%1$d as varchar), cast(:e%1$d as varchar), cast(:d%1$d as bigint), %1$d)"
+                    .formatted(i));
+        }
+        Query query = em.createNativeQuery("""
+                with input (first_name, last_name, email, department_id, ord) as (
+                    values %s
+                ), w as (
+                    insert into employee.employees (first_name, last_name, email, department_id)
+                    select first_name, last_name, email, department_id from input order by ord
+                    on conflict ((lower(email))) do nothing
+                    returning id, first_name, last_name, email, department_id
+                ), %s
+                select w.id, w.first_name, w.last_name, w.email, w.department_id, null from w
+                order by w.id
+                """.formatted(String.join(", ", values),
+                events(EmployeeCreatedEvent.TYPE, CREATED_DATA)));
+        for (int i = 0; i < rows.size(); i++) {
+            EmployeeRow r = rows.get(i);
+            query.setParameter("f" + i, r.firstName())
+                    .setParameter("l" + i, r.lastName())
+                    .setParameter("e" + i, r.email())
+                    .setParameter("d" + i, r.departmentId());
+        }
+        List<EmployeeRow> inserted = new ArrayList<>(rows.size());
+        for (Object r : query.getResultList()) inserted.add(written((Object[]) r).row());
+        return inserted;
+    }
+
+    @Override
+    public Optional<Written> updateById(Long id, String firstName, String lastName, String email, Long departmentId,
+                                        boolean patch) {
+        // "prev" locks the row first, so previous_department_id is the value this update replaced
+        Query query = em.createNativeQuery("""
+                with prev as (
+                    select id, department_id from employee.employees where id = :id for update
+                ), w as (
+                    update employee.employees e
+                    set first_name = %s, last_name = %s, email = %s, department_id = %s
+                    from prev p
+                    where e.id = p.id
+                    returning e.id, e.first_name, e.last_name, e.email, e.department_id,
+                              p.department_id as previous_department_id
+                ), %s
+                select w.id, w.first_name, w.last_name, w.email, w.department_id, w.previous_department_id from w
+                """.formatted(
+                value("first_name", "firstName", "varchar", patch),
+                value("last_name", "lastName", "varchar", patch),
+                value("email", "email", "varchar", patch),
+                value("department_id", "departmentId", "bigint", patch),
+                events(EmployeeUpdatedEvent.TYPE, UPDATED_DATA)));
+        query.setParameter("id", id)
+                .setParameter("firstName", firstName)
+                .setParameter("lastName", lastName)
+                .setParameter("email", email)
+                .setParameter("departmentId", departmentId);
+        return single(query);
+    }
+
+    @Override
+    public Optional<EmployeeRow> deleteReturning(Long id) {
+        Query query = em.createNativeQuery("""
+                with w as (
+                    delete from employee.employees where id = :id
+                    returning id, first_name, last_name, email, department_id
+                ), %s
+                select w.id, w.first_name, w.last_name, w.email, w.department_id, null from w
+                """.formatted(events(EmployeeDeletedEvent.TYPE, DELETED_DATA)));
+        query.setParameter("id", id);
+        return single(query).map(Written::row);
+    }
+
+    private static String events(String type, String data) {
+        return """
+                events as (
+                    insert into employee.outbox_event (event_id, aggregate_type, aggregate_id, type, payload_json)
+                    select u.event_id, '%2$s', u.id, '%1$s',
+                           json_build_object('eventId', u.event_id, 'type', '%1$s', 'occurredAt', now(),
+                                             'aggregateType', '%2$s', 'aggregateId', u.id,
+                                             'data', u.data)::text
+                    from (select w.id, gen_random_uuid() as event_id, %3$s as data from w) u
+                )""".formatted(type, Outbox.EMPLOYEE, data);
+    }
+
+    // PUT writes the value as given (null clears a nullable column), PATCH keeps the column when it is null
+    private static String value(String column, String param, String type, boolean patch) {
+        String bound = "cast(:" + param + " as " + type + ")";
+        return patch ? "coalesce(" + bound + ", e." + column + ")" : bound;
+    }
+
+    private Optional<Written> single(Query query) {
+        return query.getResultList().stream().findFirst().map(r -> written((Object[]) r));
+    }
+
+    private static Written written(Object[] row) {
+        return new Written(new EmployeeRow(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                (String) row[3], row[4] == null ? null : ((Number) row[4]).longValue()),
+                row[5] == null ? null : ((Number) row[5]).longValue());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.employee.repo;
+
+import com.example.employee.domain.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // 1 = claimed (new key, or an expired one taken over), 0 = a live row already exists.
+    // Waits for a concurrent uncommitted claim of the same key to finish first.
+    @Modifying
+    @Query(value = """
+           insert into employee.idempotency_keys (idem_key, request_hash, created_at, expires_at)
+           values (:key, :requestHash, :now, :expiresAt)
+           on conflict (idem_key) do update
+              set request_hash = excluded.request_hash,
+                  response_json = null,
+                  created_at = excluded.created_at,
+                  expires_at = excluded.expires_at
+            where employee.idempotency_keys.expires_at < excluded.created_at
+           """, nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("now") Instant now,
+              @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query(value = "update employee.idempotency_keys set response_json = :json where idem_key = :key", nativeQuery = true)
+    int complete(@Param("key") String key, @Param("json") String responseJson);
+
+    // bounded batches keep the purge transaction short
+    @Modifying
+    @Query(value = """
+           delete from employee.idempotency_keys
+           where idem_key in (select idem_key from employee.idempotency_keys
+                              where expires_at < :now
+                              limit :batch)
+           """, nativeQuery = true)
+    int purgeExpired(@Param("now") Instant now, @Param("batch") int batch);
+}
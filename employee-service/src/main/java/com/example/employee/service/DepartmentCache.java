@@ -0,0 +1,137 @@
+package com.example.employee.service;
+
+import com.example.employee.dto.DepartmentDTO;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process near-cache for department lookups.
+ * <ul>
+ *   <li>size-bounded, entries expire after {@code department.cache.ttl}</li>
+ *   <li>misses (404, timeout, any load error) are cached as empty for {@code department.cache.negative-ttl}</li>
+ *   <li>concurrent misses for the same id share one in-flight load (single-flight)</li>
+ *   <li>hit/miss/eviction stats are published as {@code cache.*{cache=departments}} meters</li>
+ * </ul>
+ */
+@Component
+public class DepartmentCache {
+    private static final Logger log = LoggerFactory.getLogger(DepartmentCache.class);
+
+    private final AsyncCache<Long, Optional<DepartmentDTO>> cache;
+    private final Counter invalidations;
+
+    public DepartmentCache(MeterRegistry registry,
+                           @Value("${department.cache.ttl:10m}") Duration ttl,
+                           @Value("${department.cache.negative-ttl:30s}") Duration negativeTtl,
+                           @Value("${department.cache.maximum-size:10000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new HitOrMissExpiry(ttl, negativeTtl))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), "departments");
+        this.invalidations = Counter.builder("department.cache.invalidations")
+                .description("Explicit department cache invalidations")
+                .register(registry);
+    }
+
+    /** Cached single lookup; the first caller for a missing id loads it on its own thread, others wait for it. */
+    public DepartmentDTO get(Long id, Function<Long, DepartmentDTO> loader) {
+        var mine = new CompletableFuture<Optional<DepartmentDTO>>();
+        var shared = cache.get(id, (k, executor) -> mine);
+        if (shared == mine) {
+            mine.complete(loadOne(id, loader));
+        }
+        return shared.join().orElse(null);
+    }
+
+    /** Cached batch lookup; only ids that are neither cached nor already in flight reach the loader. */
+    public Map<Long, DepartmentDTO> getAll(Collection<Long> ids, Function<Set<Long>, Map<Long, DepartmentDTO>> loader) {
+        var mine = new CompletableFuture<Map<Long, Optional<DepartmentDTO>>>();
+        var requested = new AtomicReference<Set<Long>>();
+        var shared = cache.getAll(ids, (missing, executor) -> {
+            requested.set(Set.copyOf(missing));
+            return mine;
+        });
+        if (requested.get() != null) {
+            mine.complete(loadAll(requested.get(), loader));
+        }
+
+        Map<Long, DepartmentDTO> result = new LinkedHashMap<>();
+        shared.join().forEach((id, dept) -> dept.ifPresent(d -> result.put(id, d)));
+        return result;
+    }
+
+    /** Invalidation hook for department-change notifications. */
+    public void invalidate(Long id) {
+        cache.synchronous().invalidate(id);
+        invalidations.increment();
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+        invalidations.increment();
+    }
+
+    private static Optional<DepartmentDTO> loadOne(Long id, Function<Long, DepartmentDTO> loader) {
+        try {
+            return Optional.ofNullable(loader.apply(id));
+        } catch (Exception ex) {
+            log.debug("Department lookup failed; caching miss for id={} err={}", id, ex.toString());
+            return Optional.empty();
+        }
+    }
+
+    private static Map<Long, Optional<DepartmentDTO>> loadAll(Set<Long> ids, Function<Set<Long>, Map<Long, DepartmentDTO>> loader) {
+        Map<Long, DepartmentDTO> found;
+        try {
+            found = loader.apply(ids);
+        } catch (Exception ex) {
+            log.debug("Department batch lookup failed; caching misses for ids={} err={}", ids, ex.toString());
+            found = null;
+        }
+        // every requested id gets an entry so that unknown ids are negatively cached too
+        Map<Long, Optional<DepartmentDTO>> out = new HashMap<>();
+        for (Long id : ids) {
+            out.put(id, Optional.ofNullable(found == null ? null : found.get(id)));
+        }
+        return out;
+    }
+
+    /** Positive entries live for {@code ttl}, negative ones for the (shorter) {@code negativeTtl}. */
+    private record HitOrMissExpiry(Duration ttl, Duration negativeTtl) implements Expiry<Long, Optional<DepartmentDTO>> {
+        @Override
+        public long expireAfterCreate(Long key, Optional<DepartmentDTO> value, long currentTime) {
+            return (value.isPresent() ? ttl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Long key, Optional<DepartmentDTO> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long key, Optional<DepartmentDTO> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.employee.service;
+
+import com.example.employee.client.DepartmentClient;
+import com.example.employee.dto.DepartmentDTO;
+
+import java.util.Collection;
+import java.util.Map;
+
+/** {@link DepartmentClient} decorator that answers from {@link DepartmentCache} and only goes remote on a miss. */
+public class DepartmentClientCached implements DepartmentClient {
+
+    private final DepartmentCache cache;
+    private final DepartmentClient delegate;
+
+    public DepartmentClientCached(DepartmentCache cache, DepartmentClient delegate) {
+        this.cache = cache;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public DepartmentDTO getDepartment(Long id) {
+        if (id == null) return null;
+        return cache.get(id, delegate::getDepartment);
+    }
+
+    @Override
+    public Map<Long, DepartmentDTO> getDepartments(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return Map.of();
+        return cache.getAll(ids, delegate::getDepartments);
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.employee.service;
+
+import com.example.employee.client.DepartmentClient;
+import com.example.employee.dto.DepartmentDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link DepartmentClient} decorator that hedges slow lookups.
+ * <ul>
+ *   <li>if a call has not answered within the observed p95 of department lookups, a second identical call
+ *       is sent; the load balancer's round robin puts it on another instance. The first successful answer
+ *       wins and the other call is cancelled: its thread is interrupted, and the Feign transport (JDK
+ *       {@code HttpClient}, see {@code DepartmentClientConfig}) aborts the exchange and closes its connection</li>
+ *   <li>until {@code min-samples} lookups were timed, {@code initial-delay} stands in for the p95; the delay
+ *       never drops below {@code min-delay}</li>
+ *   <li>hedges draw on a budget refilled by {@code budget-percent}% of a token per call, so hedging adds at
+ *       most that share of extra load (plus a small burst); without a token the call just keeps waiting</li>
+ *   <li>attempts run on a pool of two threads (primary and hedge) per bulkhead permit ({@code max-concurrent});
+ *       when every thread is busy a call runs on the caller's thread without a hedge, and a hedge is skipped</li>
+ *   <li>{@code department.client.hedges{event=fired|won|over_budget|saturated}} count hedges sent, hedges that
+ *       answered first, hedges skipped for lack of budget and hedges skipped for lack of a thread;
+ *       {@code department.client.latency} is the per-attempt timer the p95 is read from</li>
+ * </ul>
+ * Sits inside the circuit breaker, so a hedged lookup counts as one call there.
+ */
+public class DepartmentClientHedged implements DepartmentClient {
+
+    /** Hedge delay and budget; see the class doc for their meaning. */
+    public record Settings(int budgetPercent, Duration initialDelay, Duration minDelay, long minSamples,
+                           int maxConcurrent) {}
+
+    private static final double PERCENTILE = 0.95;
+    private static final double MAX_TOKENS = 10;
+
+    private final DepartmentClient delegate;
+    private final Settings settings;
+    private final ThreadPoolExecutor executor;
+    private final Timer latency;
+    private final Counter fired;
+    private final Counter won;
+    private final Counter overBudget;
+    private final Counter saturated;
+    private double tokens;  // guarded by this
+
+    private record Attempt<T>(CompletableFuture<T> result, Future<?> task) {}
+
+    private record Winner<T>(T value, boolean hedge) {}
+
+    public DepartmentClientHedged(DepartmentClient delegate, MeterRegistry registry, Settings settings) {
+        this.delegate = delegate;
+        this.settings = settings;
+        var threads = new CustomizableThreadFactory("department-hedge-");
+        threads.setDaemon(true);
+        // no queue: an attempt either gets a thread now or the call goes without it; idle threads exit after a minute
+        this.executor = new ThreadPoolExecutor(0, 2 * settings.maxConcurrent(), 1, TimeUnit.MINUTES,
+                new SynchronousQueue<>(), threads);
+        this.latency = Timer.builder("department.client.latency")
+                .description("Latency of single department lookup attempts")
+                .publishPercentiles(PERCENTILE)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(registry);
+        this.fired = hedges(registry, "fired");
+        this.won = hedges(registry, "won");
+        this.overBudget = hedges(registry, "over_budget");
+        this.saturated = hedges(registry, "saturated");
+    }
+
+    @Override
+    public DepartmentDTO getDepartment(Long id) {
+        return hedged(() -> delegate.getDepartment(id));
+    }
+
+    @Override
+    public Map<Long, DepartmentDTO> getDepartments(Collection<Long> ids) {
+        return hedged(() -> delegate.getDepartments(ids));
+    }
+
+    private <T> T hedged(Supplier<T> remote) {
+        deposit();
+        Attempt<T> primary;
+        try {
+            primary = attempt(remote);
+        } catch (RejectedExecutionException full) {
+            return remote.get();
+        }
+        try {
+            return primary.result().get(hedgeDelay().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException slow) {
+            // fall through to the hedge
+        } catch (ExecutionException ex) {
+            throw unwrap(ex);
+        } catch (InterruptedException ex) {
+            primary.task().cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during department lookup", ex);
+        }
+
+        if (!withdraw()) {
+            overBudget.increment();
+            return await(primary.result(), primary);
+        }
+        Attempt<T> hedge;
+        try {
+            hedge = attempt(remote);
+        } catch (RejectedExecutionException full) {
+            saturated.increment();
+            return await(primary.result(), primary);
+        }
+        fired.increment();
+        CompletableFuture<Winner<T>> first = new CompletableFuture<>();
+        var failures = new AtomicInteger();
+        primary.result().whenComplete((v, ex) -> settle(first, failures, v, ex, false));
+        hedge.result().whenComplete((v, ex) -> settle(first, failures, v, ex, true));
+
+        Winner<T> winner;
+        try {
+            winner = await(first, primary, hedge);
+        } finally {
+            primary.task().cancel(true);
+            hedge.task().cancel(true);
+        }
+        if (winner.hedge()) won.increment();
+        return winner.value();
+    }
+
+    // first success wins; only when both attempts failed does the caller see a failure
+    private static <T> void settle(CompletableFuture<Winner<T>> first, AtomicInteger failures,
+                                   T value, Throwable ex, boolean hedge) {
+        if (ex == null) first.complete(new Winner<>(value, hedge));
+        else if (failures.incrementAndGet() == 2) first.completeExceptionally(ex);
+    }
+
+    private <T> Attempt<T> attempt(Supplier<T> remote) {
+        var result = new CompletableFuture<T>();
+        Future<?> task = executor.submit(() -> {
+            long start = System.nanoTime();
+            try {
+                T value = remote.get();
+                latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                result.complete(value);
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return new Attempt<>(result, task);
+    }
+
+    private static <T> T await(CompletableFuture<T> result, Attempt<?>... attempts) {
+        try {
+            return result.get();
+        } catch (ExecutionException ex) {
+            throw unwrap(ex);
+        } catch (InterruptedException ex) {
+            for (Attempt<?> a : attempts) a.task().cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during department lookup", ex);
+        }
+    }
+
+    int attemptsInFlight() {
+        return executor.getActiveCount();
+    }
+
+    Duration hedgeDelay() {
+        Duration delay = settings.initialDelay();
+        if (latency.count() >= settings.minSamples()) {
+            for (ValueAtPercentile p : latency.takeSnapshot().percentileValues()) {
+                if (p.percentile() == PERCENTILE) delay = Duration.ofNanos((long) p.value(TimeUnit.NANOSECONDS));
+            }
+        }
+        return delay.compareTo(settings.minDelay()) < 0 ? settings.minDelay() : delay;
+    }
+
+    private synchronized void deposit() {
+        tokens = Math.min(MAX_TOKENS, tokens + settings.budgetPercent() / 100.0);
+    }
+
+    private synchronized boolean withdraw() {
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    private static RuntimeException unwrap(ExecutionException ex) {
+        return ex.getCause() instanceof RuntimeException re ? re : new IllegalStateException(ex.getCause());
+    }
+
+    private static Counter hedges(MeterRegistry registry, String event) {
+        return Counter.builder("department.client.hedges")
+                .description("Hedged department lookups")
+                .tag("event", event)
+                .register(registry);
+    }
+}
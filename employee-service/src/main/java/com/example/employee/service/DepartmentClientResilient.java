@@ -1,4 +1,237 @@
 package com.example.employee.service;
 
-public class DepartmentClientResilient {
+import com.example.employee.client.DepartmentClient;
+import com.example.employee.dto.DepartmentDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * {@link DepartmentClient} decorator that keeps a department-service outage from stalling employee reads.
+ * <ul>
+ *   <li>circuit breaker over the last {@code window} calls: once at least {@code minimum-calls} were made and
+ *       {@code failure-rate}% of them failed, calls are rejected for {@code open-duration}; then up to
+ *       {@code half-open-calls} trial calls decide whether it closes again or stays open</li>
+ *   <li>bulkhead: at most {@code max-concurrent} calls in flight; a caller waits {@code max-wait} for a
+ *       permit, then is rejected, so a slow department-service cannot absorb every request thread</li>
+ *   <li>only timeouts, connection errors and 5xx count as failures. A 404 is an answer: the department is
+ *       gone, so the lookup returns null (which the near-cache keeps as a miss). Other 4xx are neither</li>
+ *   <li>a rejected or failed call answers at once with the last department seen (kept for
+ *       {@code stale-ttl}) or nothing, so responses degrade to missing enrichment instead of timeouts</li>
+ *   <li>breaker state is exported as {@code department.client.circuit.state} (0 closed, 1 open, 2 half-open),
+ *       rejections as {@code department.client.rejections{reason}}, outcomes as {@code department.client.calls{outcome}}</li>
+ * </ul>
+ */
+public class DepartmentClientResilient implements DepartmentClient {
+    private static final Logger log = LoggerFactory.getLogger(DepartmentClientResilient.class);
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Breaker and bulkhead limits; see the class doc for their meaning. */
+    public record Settings(int window, int minimumCalls, int failureRatePercent, Duration openDuration,
+                           int halfOpenCalls, int maxConcurrent, Duration maxWait, Duration staleTtl) {}
+
+    private final DepartmentClient delegate;
+    private final Settings settings;
+    private final Clock clock;
+    private final Semaphore bulkhead;
+    private final Cache<Long, DepartmentDTO> lastKnown;
+
+    // breaker state, guarded by this
+    private final boolean[] outcomes;       // ring buffer of the last calls; true = failed
+    private int recorded;
+    private int next;
+    private int failures;
+    private State state = State.CLOSED;
+    private Instant openedAt = Instant.EPOCH;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter rejectedOpen;
+    private final Counter rejectedFull;
+
+    public DepartmentClientResilient(DepartmentClient delegate, MeterRegistry registry, Settings settings) {
+        this(delegate, registry, settings, Clock.systemUTC());
+    }
+
+    DepartmentClientResilient(DepartmentClient delegate, MeterRegistry registry, Settings settings, Clock clock) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.clock = clock;
+        this.bulkhead = new Semaphore(settings.maxConcurrent());
+        this.outcomes = new boolean[settings.window()];
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(settings.staleTtl())
+                .build();
+        Gauge.builder("department.client.circuit.state", this, c -> c.state().ordinal())
+                .description("Department client circuit breaker: 0 closed, 1 open, 2 half-open")
+                .register(registry);
+        Gauge.builder("department.client.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Free department client bulkhead permits")
+                .register(registry);
+        this.succeeded = calls(registry, "success");
+        this.failed = calls(registry, "failure");
+        this.rejectedOpen = rejections(registry, "circuit_open");
+        this.rejectedFull = rejections(registry, "bulkhead_full");
+    }
+
+    @Override
+    public DepartmentDTO getDepartment(Long id) {
+        if (id == null) return null;
+        DepartmentDTO dept = call(() -> {
+            try {
+                return delegate.getDepartment(id);
+            } catch (FeignException.NotFound ex) {
+                lastKnown.invalidate(id);
+                return null;
+            }
+        }, () -> lastKnown.getIfPresent(id));
+        if (dept != null) lastKnown.put(id, dept);
+        return dept;
+    }
+
+    @Override
+    public Map<Long, DepartmentDTO> getDepartments(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return Map.of();
+        Map<Long, DepartmentDTO> found = call(() -> delegate.getDepartments(ids), () -> Map.copyOf(lastKnown.getAllPresent(ids)));
+        if (found == null) return Map.of();
+        lastKnown.putAll(found);
+        return found;
+    }
+
+    // an expired open period is reported as half-open even before the next call flips it
+    synchronized State state() {
+        if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(settings.openDuration()))) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private <T> T call(Supplier<T> remote, Supplier<T> fallback) {
+        if (!tryAcquirePermission()) {
+            rejectedOpen.increment();
+            return fallback.get();
+        }
+        if (!enterBulkhead()) {
+            release();
+            rejectedFull.increment();
+            return fallback.get();
+        }
+        try {
+            T result = remote.get();
+            onResult(false);
+            return result;
+        } catch (RuntimeException ex) {
+            boolean failure = !isClientError(ex);
+            onResult(failure);
+            log.debug("Department lookup {}; answering from fallback err={}", failure ? "failed" : "was refused", ex.toString());
+            return fallback.get();
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    // a 4xx means department-service is up and answered; it must not open the breaker for everyone
+    private static boolean isClientError(RuntimeException ex) {
+        int status = ex instanceof FeignException f ? f.status()
+                : ex instanceof RestClientResponseException r ? r.getStatusCode().value()
+                : -1;
+        return status >= 400 && status < 500;
+    }
+
+    private boolean enterBulkhead() {
+        try {
+            return bulkhead.tryAcquire(settings.maxWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.instant().isBefore(openedAt.plus(settings.openDuration()))) return false;
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= settings.halfOpenCalls()) return false;
+            trialsStarted++;
+        }
+        return true;
+    }
+
+    // hands back a half-open trial slot that the bulkhead turned away before it ran
+    private synchronized void release() {
+        if (state == State.HALF_OPEN && trialsStarted > 0) trialsStarted--;
+    }
+
+    private synchronized void onResult(boolean failure) {
+        (failure ? failed : succeeded).increment();
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failure) transition(State.OPEN);
+                else if (++trialsSucceeded >= settings.halfOpenCalls()) transition(State.CLOSED);
+            }
+            case CLOSED -> {
+                if (recorded == outcomes.length) {
+                    if (outcomes[next]) failures--;
+                } else {
+                    recorded++;
+                }
+                outcomes[next] = failure;
+                if (failure) failures++;
+                next = (next + 1) % outcomes.length;
+                if (recorded >= settings.minimumCalls() && failures * 100 >= settings.failureRatePercent() * recorded) {
+                    transition(State.OPEN);
+                }
+            }
+            case OPEN -> { } // a call that started before the breaker opened
+        }
+    }
+
+    private void transition(State to) {
+        if (state == to) return;
+        log.warn("Department client circuit {} -> {}", state, to);
+        state = to;
+        trialsStarted = 0;
+        trialsSucceeded = 0;
+        if (to == State.OPEN) openedAt = clock.instant();
+        if (to == State.CLOSED) {
+            recorded = 0;
+            next = 0;
+            failures = 0;
+        }
+    }
+
+    private static Counter calls(MeterRegistry registry, String outcome) {
+        return Counter.builder("department.client.calls")
+                .description("Remote department lookups by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Counter rejections(MeterRegistry registry, String reason) {
+        return Counter.builder("department.client.rejections")
+                .description("Department lookups answered from the fallback without a remote call")
+                .tag("reason", reason)
+                .register(registry);
+    }
 }
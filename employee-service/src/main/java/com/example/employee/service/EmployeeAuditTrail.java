@@ -0,0 +1,344 @@
+package com.example.employee.service;
+
+import com.example.employee.dto.CursorPage;
+import com.example.employee.dto.EmployeeAuditDTO;
+import com.example.employee.dto.EmployeeDTO;
+import com.example.employee.error.BadRequestException;
+import com.example.employee.repo.EmployeeAuditRepository.EmployeeAudit;
+import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.EmployeeRow;
+import com.example.employee.web.TraceIdFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Write-behind audit trail of {@link EmployeeService} writes (V15), on by default with {@code audit.enabled}.
+ * <ul>
+ *   <li>an entry is queued when the audited transaction commits, so rolled-back writes leave none and no
+ *       write waits for its audit insert; one thread appends the queue in multi-row inserts of up to
+ *       {@code audit.batch-size}, waiting {@code audit.linger} for a batch to fill</li>
+ *   <li>the queue is bounded ({@code audit.queue-capacity}). A full queue is backpressure: the writer waits
+ *       up to {@code audit.offer-timeout} for room, then appends its entry itself rather than drop it</li>
+ *   <li>a failing batch is retried with backoff, then row by row; only rows that still fail are logged and
+ *       counted as lost</li>
+ *   <li>on shutdown, writes stop queueing and the thread gets {@code audit.shutdown-timeout} to drain the
+ *       queue; whatever is left is appended by the closing thread</li>
+ * </ul>
+ * Entries that were queued but not yet appended are lost if the process dies; history reads trail writes by
+ * about {@code audit.linger}. Metrics: {@code employee.audit.queue}, {@code .backpressure} (time writers waited
+ * for room), {@code .overflow}, {@code .lag} (commit to appended), {@code .written} and {@code .lost}.
+ */
+@Component
+public class EmployeeAuditTrail implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(EmployeeAuditTrail.class);
+
+    static final int MAX_LIMIT = 500;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int MAX_TRACE_ID = 100;
+
+    public enum Action { CREATE, UPDATE, PATCH, BULK_UPDATE, DELETE }
+
+    private final EmployeeRepository repository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration linger;
+    private final Duration offerTimeout;
+    private final Duration shutdownTimeout;
+    private final int monthsAhead;
+    private final BlockingQueue<EmployeeAudit> queue;
+    private final TransactionTemplate tx;
+    private final Timer backpressure;
+    private final Timer lag;
+    private final Counter overflow;
+    private final Counter written;
+    private final Counter lost;
+    private volatile boolean running;
+    private Thread thread;
+
+    public EmployeeAuditTrail(EmployeeRepository repository,
+                              ObjectProvider<PlatformTransactionManager> transactionManager,
+                              MeterRegistry registry,
+                              @Value("${audit.enabled:true}") boolean enabled,
+                              @Value("${audit.queue-capacity:10000}") int queueCapacity,
+                              @Value("${audit.batch-size:500}") int batchSize,
+                              @Value("${audit.linger:200ms}") Duration linger,
+                              @Value("${audit.offer-timeout:50ms}") Duration offerTimeout,
+                              @Value("${audit.shutdown-timeout:10s}") Duration shutdownTimeout,
+                              @Value("${audit.months-ahead:2}") int monthsAhead) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.linger = linger;
+        this.offerTimeout = offerTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+        this.monthsAhead = monthsAhead;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        // only looked up when enabled, so contexts without a database can still create the bean. Appends never
+        // join the caller's transaction: they also run from afterCommit callbacks of already committed ones
+        this.tx = enabled ? new TransactionTemplate(transactionManager.getObject()) : null;
+        if (tx != null) tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Gauge.builder("employee.audit.queue", queue, BlockingQueue::size)
+                .description("Audit entries waiting to be appended")
+                .register(registry);
+        this.backpressure = Timer.builder("employee.audit.backpressure")
+                .description("Time writes waited for room in the full audit queue")
+                .register(registry);
+        this.lag = Timer.builder("employee.audit.lag")
+                .description("Time from the audited commit until its entry was appended")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        this.overflow = Counter.builder("employee.audit.overflow")
+                .description("Audit entries appended by the writing thread because the queue stayed full")
+                .register(registry);
+        this.written = Counter.builder("employee.audit.written")
+                .description("Audit entries appended")
+                .register(registry);
+        this.lost = Counter.builder("employee.audit.lost")
+                .description("Audit entries that could not be appended")
+                .register(registry);
+        if (enabled) start();
+    }
+
+    /** Audits {@code row} once the surrounding transaction commits, or right away without one. */
+    public void record(Action action, EmployeeRow row) {
+        recordAll(action, List.of(row));
+    }
+
+    public void recordAll(Action action, List<EmployeeRow> rows) {
+        if (!enabled || rows.isEmpty()) return;
+        List<EmployeeRow> batch = List.copyOf(rows);
+        String traceId = traceId();
+        afterCommit(() -> {
+            // the column keeps microseconds; truncating here keeps cursors exact
+            Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+            for (EmployeeRow r : batch) enqueue(new EmployeeAudit(null, now, r.id(), action.name(), r, traceId));
+        });
+    }
+
+    /**
+     * One employee's history, newest first; {@code before} is the cursor of the previous page. Entries
+     * still queued are not included yet.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<EmployeeAuditDTO> history(long employeeId, String before, int limit, Function<String, String> nextLink) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        EmployeeAudit cursor = before == null || before.isBlank() ? null : decode(before);
+        List<EmployeeAudit> rows = repository.findAudit(employeeId, cursor == null ? null : cursor.ts(),
+                cursor == null ? null : cursor.id(), limit + 1);
+        boolean hasNext = rows.size() > limit;
+        List<EmployeeAudit> page = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? encode(page.get(limit - 1)) : null;
+        return new CursorPage<>(page.stream().map(EmployeeAuditTrail::toDTO).toList(), limit, nextCursor,
+                nextCursor == null ? null : nextLink.apply(nextCursor));
+    }
+
+    /** Keeps the monthly partitions created {@code audit.months-ahead} ahead. */
+    @Scheduled(fixedDelayString = "${audit.maintenance-interval:PT6H}")
+    @Transactional
+    public int maintain() {
+        if (!enabled) return 0;
+        int created = repository.ensureAuditPartitions(monthsAhead);
+        if (created > 0) log.info("Created {} employee audit partition(s)", created);
+        return created;
+    }
+
+    private void enqueue(EmployeeAudit entry) {
+        try {
+            if (running && (queue.offer(entry) || waitForRoom(entry))) return;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // the queue stayed full, or the trail is shutting down: append it here rather than lose it
+        overflow.increment();
+        appendRowByRow(List.of(entry));
+    }
+
+    private boolean waitForRoom(EmployeeAudit entry) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            return queue.offer(entry, offerTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } finally {
+            backpressure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "employee-audit-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        List<EmployeeAudit> batch = new ArrayList<>(batchSize);
+        // after shutdown starts, the queue is still drained before the thread ends
+        while (running || !queue.isEmpty()) {
+            try {
+                EmployeeAudit first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + linger.toNanos();
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long left = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || left <= 0 || !running) break;
+                    EmployeeAudit next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                append(batch);
+            } catch (InterruptedException ex) {
+                // shutdown gave up waiting; the flag is cleared, so the batch in hand can still be appended
+                break;
+            } finally {
+                // only left over when interrupted
+                if (!batch.isEmpty()) appendRowByRow(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // retries the batch with backoff while the trail is running, then falls back to single rows
+    private void append(List<EmployeeAudit> batch) throws InterruptedException {
+        long backoff = 100;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                write(batch);
+                batch.clear();
+                return;
+            } catch (RuntimeException ex) {
+                if (attempt >= MAX_ATTEMPTS || !running) {
+                    log.warn("Appending {} audit entries failed, retrying them one by one: {}", batch.size(), ex.toString());
+                    break;
+                }
+                log.debug("Appending {} audit entries failed (attempt {}): {}", batch.size(), attempt, ex.toString());
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, 5000);
+            }
+        }
+        appendRowByRow(batch);
+        batch.clear();
+    }
+
+    private void appendRowByRow(List<EmployeeAudit> entries) {
+        for (EmployeeAudit e : entries) {
+            try {
+                write(List.of(e));
+            } catch (RuntimeException ex) {
+                lost.increment();
+                log.error("Audit entry lost: {} {} at {} (trace {}): {}", e.action(), e.employee(), e.ts(), e.traceId(),
+                        ex.toString());
+            }
+        }
+    }
+
+    private void write(List<EmployeeAudit> entries) {
+        tx.executeWithoutResult(status -> repository.appendAudit(entries));
+        long now = System.currentTimeMillis();
+        for (EmployeeAudit e : entries) lag.record(Math.max(0, now - e.ts().toEpochMilli()), TimeUnit.MILLISECONDS);
+        written.increment(entries.size());
+    }
+
+    private static String traceId() {
+        String traceId = MDC.get(TraceIdFilter.MDC_KEY);
+        return traceId == null || traceId.length() <= MAX_TRACE_ID ? traceId : traceId.substring(0, MAX_TRACE_ID);
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    private static EmployeeAuditDTO toDTO(EmployeeAudit a) {
+        EmployeeRow e = a.employee();
+        EmployeeDTO employee = EmployeeDTO.builder()
+                .id(a.employeeId())
+                .firstName(e.firstName())
+                .lastName(e.lastName())
+                .email(e.email())
+                .departmentId(e.departmentId())
+                .build();
+        return new EmployeeAuditDTO(a.id(), a.ts(), a.action(), a.traceId(), employee);
+    }
+
+    // cursor: the last entry's ts (epoch micros, the column's precision) and id, base64url
+    static String encode(EmployeeAudit last) {
+        long micros = TimeUnit.SECONDS.toMicros(last.ts().getEpochSecond()) + last.ts().getNano() / 1000;
+        String raw = micros + ":" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static EmployeeAudit decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            long micros = Long.parseLong(raw.substring(0, colon));
+            Instant ts = Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1000);
+            return new EmployeeAudit(Long.parseLong(raw.substring(colon + 1)), ts, 0, null, null, null);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException ex) {
+            throw new BadRequestException("invalid cursor");
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        Thread writer;
+        synchronized (this) {
+            running = false;
+            writer = thread;
+        }
+        if (writer != null) {
+            writer.join(shutdownTimeout.toMillis());
+            if (writer.isAlive()) {
+                writer.interrupt();
+                writer.join(shutdownTimeout.toMillis());
+            }
+        }
+        // whatever the thread did not get to
+        List<EmployeeAudit> left = new ArrayList<>();
+        queue.drainTo(left);
+        if (!left.isEmpty()) {
+            log.info("Appending {} queued audit entries on shutdown", left.size());
+            appendRowByRow(left);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.employee.service;
+
+import com.example.employee.dto.EmployeeChangeDTO;
+import com.example.employee.dto.EmployeeChangesDTO;
+import com.example.employee.dto.EmployeeDTO;
+import com.example.employee.error.BadRequestException;
+import com.example.employee.error.ResourceGoneException;
+import com.example.employee.repo.EmployeeChangeRepository.ChangeLag;
+import com.example.employee.repo.EmployeeChangeRepository.ChangePosition;
+import com.example.employee.repo.EmployeeChangeRepository.EmployeeChange;
+import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.EmployeeRow;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Incremental employee change feed over the trigger-written change log (V13).
+ * <ul>
+ *   <li>a consumer starts with a token for the current head, loads a snapshot, then follows the feed from
+ *       that token; changes during the snapshot show up again in the feed, which is harmless because
+ *       entries carry the current row. Sync cost is O(changes), not O(table)</li>
+ *   <li>tokens are opaque (xid, id) positions; a token older than what {@code changes.retention} purged
+ *       answers 410 and the consumer resyncs from a snapshot</li>
+ *   <li>long-poll requests and SSE streams park here instead of holding a request thread; one thread re-checks
+ *       them every {@code changes.poll-interval} and on every outbox NOTIFY, with a single head query
+ *       deciding which of them have anything to read</li>
+ *   <li>a change is served once every transaction older than it has ended. One long-running writer anywhere
+ *       on the Postgres cluster holds back everything committed after it began, for as long as it runs;
+ *       {@code employee.changes.held} and {@code employee.changes.held.age} show when that happens</li>
+ * </ul>
+ */
+@Component
+public class EmployeeChangeFeed implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(EmployeeChangeFeed.class);
+
+    static final int MAX_LIMIT = 1000;
+    private static final int STREAM_BATCH = 500;
+    private static final int PURGE_BATCH = 5000;
+
+    private final EmployeeRepository repository;
+    private final Duration maxWait;
+    private final Duration streamTimeout;
+    private final Duration heartbeat;
+    private final Duration retention;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean checkPending = new AtomicBoolean();
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private volatile double held = Double.NaN;
+    private volatile double heldSeconds = Double.NaN;
+
+    private record Waiter(ChangePosition after, int limit, DeferredResult<EmployeeChangesDTO> result) {}
+
+    // only touched by the feed thread once registered
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        ChangePosition after;
+        long lastSentNanos = System.nanoTime();
+
+        Subscriber(SseEmitter emitter, ChangePosition after) {
+            this.emitter = emitter;
+            this.after = after;
+        }
+    }
+
+    public EmployeeChangeFeed(EmployeeRepository repository,
+                              MeterRegistry registry,
+                              @Value("${changes.poll-interval:500ms}") Duration pollInterval,
+                              @Value("${changes.max-wait:60s}") Duration maxWait,
+                              @Value("${changes.stream-timeout:30m}") Duration streamTimeout,
+                              @Value("${changes.heartbeat:15s}") Duration heartbeat,
+                              @Value("${changes.retention:7d}") Duration retention) {
+        this.repository = repository;
+        this.maxWait = maxWait;
+        this.streamTimeout = streamTimeout;
+        this.heartbeat = heartbeat;
+        this.retention = retention;
+        var threads = new CustomizableThreadFactory("employee-changes-");
+        threads.setDaemon(true);
+        this.executor = Executors.newSingleThreadScheduledExecutor(threads);
+        // idle passes return before touching the database
+        executor.scheduleWithFixedDelay(this::check, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        Gauge.builder("employee.changes.waiters", waiters, Set::size)
+                .description("Long-poll change feed requests waiting for changes")
+                .register(registry);
+        Gauge.builder("employee.changes.streams", subscribers, Set::size)
+                .description("Open change feed SSE streams")
+                .register(registry);
+        Gauge.builder("employee.changes.held", this, f -> f.held)
+                .description("Committed changes not served yet because an older transaction is still open; NaN while unknown")
+                .register(registry);
+        Gauge.builder("employee.changes.held.age", this, f -> f.heldSeconds)
+                .description("How long the oldest open writing transaction, which holds the feed back, has run; NaN while unknown")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /** Changes after {@code since}; without a token, none and a token for the current head. */
+    public EmployeeChangesDTO read(String since, int limit) {
+        checkLimit(limit);
+        if (since == null) return new EmployeeChangesDTO(List.of(), encode(head()));
+        return page(retained(decode(since)), limit);
+    }
+
+    /**
+     * Like {@link #read}, but if nothing changed after {@code since} the answer is held back until
+     * something does or {@code wait} elapses; the latter answers an empty page with the same token.
+     */
+    public DeferredResult<EmployeeChangesDTO> poll(String since, int limit, Duration wait) {
+        if (wait.isNegative() || wait.compareTo(maxWait) > 0) {
+            throw new BadRequestException("wait must be between 0 and " + maxWait.toSeconds() + " seconds");
+        }
+        EmployeeChangesDTO now = read(since, limit);
+        if (since == null || !now.changes().isEmpty() || wait.isZero()) {
+            DeferredResult<EmployeeChangesDTO> done = new DeferredResult<>();
+            done.setResult(now);
+            return done;
+        }
+        var result = new DeferredResult<EmployeeChangesDTO>(wait.toMillis(), now);
+        var waiter = new Waiter(decode(now.next()), limit, result);
+        result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+        return result;
+    }
+
+    /**
+     * Server-sent events from {@code since} (or the reconnecting client's Last-Event-ID), or from the current
+     * head without either. The first event, {@code ready}, carries the start token; every {@code change}
+     * event's id is the token to resume after it.
+     */
+    public SseEmitter stream(String since) {
+        ChangePosition after = since == null ? head() : retained(decode(since));
+        var emitter = new SseEmitter(streamTimeout.toMillis());
+        try {
+            emitter.send(SseEmitter.event().name("ready").id(encode(after)).data(encode(after)));
+        } catch (IOException ex) {
+            emitter.completeWithError(ex);
+            return emitter;
+        }
+        var subscriber = new Subscriber(emitter, after);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(ex -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        wake();
+        return emitter;
+    }
+
+    /** Re-checks parked requests now instead of at the next poll; called when outbox rows commit. */
+    public void wake() {
+        if (!checkPending.compareAndSet(false, true)) return;
+        try {
+            executor.execute(this::check);
+        } catch (RejectedExecutionException shuttingDown) {
+            checkPending.set(false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${changes.purge-interval:PT1M}")
+    @Transactional
+    public void purge() {
+        int removed = repository.purgeChanges(Instant.now().minus(retention), PURGE_BATCH);
+        if (removed > 0) log.debug("Purged {} employee changes older than {}", removed, retention);
+    }
+
+    @Scheduled(fixedDelayString = "${changes.lag-check-interval:PT15S}")
+    public void measureLag() {
+        ChangeLag lag;
+        try {
+            lag = repository.findChangeLag();
+        } catch (RuntimeException ex) {
+            held = Double.NaN;
+            heldSeconds = Double.NaN;
+            log.debug("Change feed lag check failed: {}", ex.toString());
+            return;
+        }
+        held = lag.held();
+        heldSeconds = lag.oldestWriter().toNanos() / 1e9;
+        // long-polls then run out with nothing although changes have committed
+        if (lag.held() > 0 && lag.oldestWriter().compareTo(maxWait) > 0) {
+            log.warn("{} committed changes are held back from the change feed by a transaction open for {}",
+                    lag.held(), lag.oldestWriter());
+        }
+    }
+
+    void check() {
+        checkPending.set(false);
+        if (waiters.isEmpty() && subscribers.isEmpty()) return;
+        ChangePosition head;
+        try {
+            head = head();
+        } catch (RuntimeException ex) {
+            log.warn("Change feed check failed: {}", ex.toString());
+            return;
+        }
+        for (Waiter w : waiters) {
+            if (w.result().isSetOrExpired()) {
+                waiters.remove(w);
+                continue;
+            }
+            if (w.after().compareTo(head) >= 0) continue;
+            try {
+                EmployeeChangesDTO page = page(w.after(), w.limit());
+                if (page.changes().isEmpty()) continue;
+                w.result().setResult(page);
+            } catch (RuntimeException ex) {
+                w.result().setErrorResult(ex);
+            }
+            waiters.remove(w);
+        }
+        long now = System.nanoTime();
+        for (Subscriber s : subscribers) push(s, head, now);
+    }
+
+    private void push(Subscriber s, ChangePosition head, long now) {
+        try {
+            while (s.after.compareTo(head) < 0) {
+                List<EmployeeChange> changes = repository.findChangesAfter(s.after, STREAM_BATCH);
+                if (changes.isEmpty()) break;
+                for (EmployeeChange c : changes) {
+                    s.emitter.send(SseEmitter.event().name("change").id(encode(c.position()))
+                            .data(toDTO(c), MediaType.APPLICATION_JSON));
+                    s.after = c.position();
+                }
+                s.lastSentNanos = now;
+            }
+            if (now - s.lastSentNanos >= heartbeat.toNanos()) {
+                s.emitter.send(SseEmitter.event().comment("keepalive"));
+                s.lastSentNanos = now;
+            }
+        } catch (IOException | IllegalStateException ex) {
+            // client went away or the emitter already completed
+            subscribers.remove(s);
+            s.emitter.completeWithError(ex);
+        } catch (RuntimeException ex) {
+            log.warn("Change feed stream failed: {}", ex.toString());
+            subscribers.remove(s);
+            s.emitter.completeWithError(ex);
+        }
+    }
+
+    private EmployeeChangesDTO page(ChangePosition after, int limit) {
+        List<EmployeeChange> changes = repository.findChangesAfter(after, limit);
+        ChangePosition next = changes.isEmpty() ? after : changes.get(changes.size() - 1).position();
+        return new EmployeeChangesDTO(changes.stream().map(EmployeeChangeFeed::toDTO).toList(), encode(next));
+    }
+
+    private ChangePosition head() {
+        return repository.findChangeHead().orElse(ChangePosition.START);
+    }
+
+    private ChangePosition retained(ChangePosition after) {
+        repository.findChangesPurgedThrough().ifPresent(purged -> {
+            if (after.compareTo(purged) < 0) {
+                throw new ResourceGoneException("changes after this token were purged; reload and start from a new token");
+            }
+        });
+        return after;
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    private static EmployeeChangeDTO toDTO(EmployeeChange c) {
+        EmployeeRow e = c.employee();
+        EmployeeDTO employee = e == null ? null : EmployeeDTO.builder()
+                .id(e.id())
+                .firstName(e.firstName())
+                .lastName(e.lastName())
+                .email(e.email())
+                .departmentId(e.departmentId())
+                .build();
+        return new EmployeeChangeDTO(c.op(), c.employeeId(), c.changedAt(), employee);
+    }
+
+    static String encode(ChangePosition p) {
+        String raw = p.xid() + ":" + p.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ChangePosition decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            var p = new ChangePosition(Long.parseLong(raw.substring(0, colon)), Long.parseLong(raw.substring(colon + 1)));
+            if (p.xid() < 0 || p.id() < 0) throw new IllegalArgumentException();
+            return p;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new BadRequestException("invalid change token");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        subscribers.forEach(s -> s.emitter.complete());
+    }
+}
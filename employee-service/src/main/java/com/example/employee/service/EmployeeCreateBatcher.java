@@ -0,0 +1,225 @@
+package com.example.employee.service;
+
+import com.example.employee.dto.EmployeeDTO;
+import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.EmployeeRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for employee creates without an Idempotency-Key, opt-in with {@code create-batching.enabled}.
+ * <ul>
+ *   <li>callers queue their row and wait; one thread takes the first waiting row, collects whatever else
+ *       arrives within {@code create-batching.window} (at most {@code max-batch} rows) and inserts them with
+ *       one multi-row {@code INSERT ... ON CONFLICT} and one commit</li>
+ *   <li>every caller gets its own row back, or "Email already exists" if its email was taken, also by an
+ *       earlier caller of the same batch. If the batch statement fails, its rows are retried one by one, so a
+ *       bad row only fails its own caller</li>
+ *   <li>a full queue ({@code queue-capacity}) is not waited on: the caller inserts its row itself</li>
+ *   <li>{@code employee.create.batch.size} (rows per commit), {@code .wait} (enqueue to answer),
+ *       {@code .queue} (rows waiting), {@code .window} and {@code .overflow} are exported</li>
+ * </ul>
+ * Callers must not hold a transaction while they wait, or every waiting request pins a pooled connection.
+ */
+@Component
+public class EmployeeCreateBatcher implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(EmployeeCreateBatcher.class);
+
+    private final EmployeeRepository repository;
+    private final EmployeeSearchIndex searchIndex;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxBatch;
+    private final BlockingQueue<Pending> queue;
+    private final TransactionTemplate tx;
+    private final DistributionSummary batchSize;
+    private final Timer wait;
+    private final Counter overflow;
+    private volatile boolean running;
+    private Thread thread;
+
+    private record Pending(EmployeeRow row, long enqueuedNanos, CompletableFuture<EmployeeRow> result) {}
+
+    public EmployeeCreateBatcher(EmployeeRepository repository,
+                                 EmployeeSearchIndex searchIndex,
+                                 ObjectProvider<PlatformTransactionManager> transactionManager,
+                                 MeterRegistry registry,
+                                 @Value("${create-batching.enabled:false}") boolean enabled,
+                                 @Value("${create-batching.window:1ms}") Duration window,
+                                 @Value("${create-batching.max-batch:64}") int maxBatch,
+                                 @Value("${create-batching.queue-capacity:1024}") int queueCapacity) {
+        this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatch = maxBatch;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        // only looked up when enabled, so contexts without a database can still create the bean
+        this.tx = enabled ? new TransactionTemplate(transactionManager.getObject()) : null;
+        this.batchSize = DistributionSummary.builder("employee.create.batch.size")
+                .description("Employee creates committed together")
+                .publishPercentiles(0.5, 0.95)
+                .register(registry);
+        this.wait = Timer.builder("employee.create.batch.wait")
+                .description("Time a batched create waited for its commit")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        this.overflow = Counter.builder("employee.create.batch.overflow")
+                .description("Creates inserted by the caller because the batch queue was full")
+                .register(registry);
+        Gauge.builder("employee.create.batch.queue", queue, BlockingQueue::size)
+                .description("Creates waiting for the next batch")
+                .register(registry);
+        Gauge.builder("employee.create.batch.window", window, w -> w.toNanos() / 1e9)
+                .description("How long a batch waits for more creates")
+                .baseUnit("seconds")
+                .register(registry);
+        if (enabled) start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Inserts {@code dto} together with concurrent creates; throws like a single create would. */
+    public EmployeeRow insert(EmployeeDTO dto) {
+        if (!enabled) throw new IllegalStateException("create-batching is disabled");
+        var pending = new Pending(new EmployeeRow(null, dto.getFirstName(), dto.getLastName(), dto.getEmail(),
+                dto.getDepartmentId()), System.nanoTime(), new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            overflow.increment();
+            return tx.execute(status -> insertOne(pending.row()));
+        }
+        try {
+            return pending.result().get();
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException re ? re : new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            // the row may still be committed by the batch it is in
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the create to commit", ex);
+        } finally {
+            wait.record(System.nanoTime() - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "employee-create-batcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + window.toNanos();
+                while (batch.size() < maxBatch) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) break;
+                    Pending next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException ex) {
+                log.error("Employee create batch failed", ex);
+            } finally {
+                // nothing in hand may be left unanswered
+                for (Pending p : batch) p.result().completeExceptionally(new IllegalStateException("Create was not committed"));
+                batch.clear();
+            }
+        }
+        failQueued();
+    }
+
+    private void flush(List<Pending> batch) {
+        // duplicates within the batch: the first caller competes for the email, later ones lose right away
+        List<Pending> candidates = new ArrayList<>(batch.size());
+        Set<String> emails = new HashSet<>();
+        for (Pending p : batch) {
+            if (emails.add(p.row().email().toLowerCase(Locale.ROOT))) candidates.add(p);
+            else p.result().completeExceptionally(new IllegalArgumentException("Email already exists"));
+        }
+        batchSize.record(candidates.size());
+        try {
+            List<EmployeeRow> inserted = tx.execute(status -> {
+                List<EmployeeRow> rows = repository.insertAllIfEmailFree(candidates.stream().map(Pending::row).toList());
+                searchIndex.putAllAfterCommit(rows);
+                return rows;
+            });
+            Map<String, EmployeeRow> byEmail = new HashMap<>();
+            for (EmployeeRow r : inserted) byEmail.put(r.email(), r);
+            for (Pending p : candidates) {
+                EmployeeRow row = byEmail.get(p.row().email());
+                if (row != null) p.result().complete(row);
+                else p.result().completeExceptionally(new IllegalArgumentException("Email already exists"));
+            }
+        } catch (RuntimeException ex) {
+            if (candidates.size() == 1) {
+                candidates.get(0).result().completeExceptionally(ex);
+                return;
+            }
+            log.warn("Batch of {} employee creates failed, retrying them one by one: {}", candidates.size(), ex.toString());
+            for (Pending p : candidates) {
+                try {
+                    p.result().complete(tx.execute(status -> insertOne(p.row())));
+                } catch (RuntimeException single) {
+                    p.result().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private EmployeeRow insertOne(EmployeeRow row) {
+        EmployeeRow inserted = repository.insertIfEmailFree(row.firstName(), row.lastName(), row.email(), row.departmentId())
+                .orElseThrow(() -> new IllegalArgumentException("Email already exists"));
+        searchIndex.putAfterCommit(inserted);
+        return inserted;
+    }
+
+    private void failQueued() {
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (Pending p : left) p.result().completeExceptionally(new IllegalStateException("Shutting down"));
+    }
+
+    @Override
+    public synchronized void destroy() {
+        running = false;
+        if (thread != null) thread.interrupt();
+        failQueued();
+    }
+}
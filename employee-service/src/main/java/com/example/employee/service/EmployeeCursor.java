@@ -0,0 +1,48 @@
+package com.example.employee.service;
+
+import com.example.employee.domain.Employee;
+import com.example.employee.error.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the sort order, the last row's sort key and its id (tie-breaker),
+ * base64url-encoded so clients treat it as a token rather than something to build by hand.
+ */
+record EmployeeCursor(Sort sort, String key, long id) {
+
+    /** Sort orders backed by an index: id -> primary key, lastName -> ix_employees_last_name_id. */
+    enum Sort {
+        ID, LAST_NAME;
+
+        static Sort parse(String value) {
+            if (value == null || value.isBlank() || value.equalsIgnoreCase("id")) return ID;
+            if (value.equalsIgnoreCase("lastName")) return LAST_NAME;
+            throw new BadRequestException("sort must be 'id' or 'lastName'");
+        }
+    }
+
+    static EmployeeCursor after(Sort sort, Employee last) {
+        return new EmployeeCursor(sort, sort == Sort.LAST_NAME ? last.getLastName() : "", last.getId());
+    }
+
+    String encode() {
+        String raw = sort.name() + "\n" + id + "\n" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static EmployeeCursor decode(String token, Sort expected) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", 3);
+            var cursor = new EmployeeCursor(Sort.valueOf(parts[0]), parts[2], Long.parseLong(parts[1]));
+            if (cursor.sort() != expected) {
+                throw new BadRequestException("cursor was issued for a different sort order");
+            }
+            return cursor;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            throw new BadRequestException("invalid cursor");
+        }
+    }
+}
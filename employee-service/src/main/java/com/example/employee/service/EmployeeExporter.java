@@ -0,0 +1,153 @@
+package com.example.employee.service;
+
+import com.example.employee.client.DepartmentClient;
+import com.example.employee.dto.DepartmentDTO;
+import com.example.employee.dto.EmployeeDTO;
+import com.example.employee.error.BadRequestException;
+import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.EmployeeRow;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Streams the whole employee table to an output stream. Rows come from a forward-only
+ * cursor and are written in chunks; memory use stays flat whatever the row count.
+ * With department enrichment on, each chunk costs one batch department lookup.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmployeeExporter {
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType mediaType() { return mediaType; }
+        public String extension() { return extension; }
+
+        public static Format parse(String value) {
+            for (Format f : values()) {
+                if (f.extension.equalsIgnoreCase(value)) return f;
+            }
+            throw new BadRequestException("format must be 'ndjson' or 'csv'");
+        }
+    }
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final EmployeeRepository repository;
+    private final DepartmentClient departmentClient;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    /** Writes every employee to {@code out}; the transaction keeps the server-side cursor open while streaming. */
+    @Transactional(readOnly = true)
+    public long export(Format format, boolean expandDepartment, OutputStream out) throws IOException {
+        long written = 0;
+        try (Stream<EmployeeRow> rows = repository.streamAll();
+             SequenceWriter writer = open(format, expandDepartment, out)) {
+            Iterator<EmployeeRow> it = rows.iterator();
+            List<EmployeeRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == CHUNK_SIZE || !it.hasNext()) {
+                    writeChunk(format, expandDepartment, chunk, writer);
+                    written += chunk.size();
+                    chunk.clear();
+                    writer.flush(); // push each chunk to the client as soon as it is ready
+                }
+            }
+        }
+        return written;
+    }
+
+    private SequenceWriter open(Format format, boolean expandDepartment, OutputStream out) throws IOException {
+        if (format == Format.CSV) {
+            CsvSchema.Builder schema = CsvSchema.builder()
+                    .addColumn("id")
+                    .addColumn("firstName")
+                    .addColumn("lastName")
+                    .addColumn("email")
+                    .addColumn("departmentId");
+            if (expandDepartment) schema.addColumn("departmentName");
+            CsvSchema columns = schema.build();
+            // header goes out before the first row is fetched; Jackson would only write it along with that row
+            out.write((String.join(",", columns.getColumnNames()) + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            return csvMapper.writerFor(CsvRow.class)
+                    .with(columns)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .writeValues(out);
+        }
+        return objectMapper.writerFor(EmployeeDTO.class)
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .writeValues(out);
+    }
+
+    private void writeChunk(Format format, boolean expandDepartment, List<EmployeeRow> chunk,
+                            SequenceWriter writer) throws IOException {
+        Map<Long, DepartmentDTO> departments = expandDepartment ? lookupDepartments(chunk) : Map.of();
+        for (EmployeeRow r : chunk) {
+            DepartmentDTO dept = r.departmentId() == null ? null : departments.get(r.departmentId());
+            if (format == Format.CSV) {
+                writer.write(new CsvRow(r.id(), r.firstName(), r.lastName(), r.email(), r.departmentId(),
+                        dept == null ? null : dept.getName()));
+            } else {
+                writer.write(EmployeeDTO.builder()
+                        .id(r.id())
+                        .firstName(r.firstName())
+                        .lastName(r.lastName())
+                        .email(r.email())
+                        .departmentId(r.departmentId())
+                        .department(dept)
+                        .build());
+            }
+        }
+    }
+
+    private Map<Long, DepartmentDTO> lookupDepartments(List<EmployeeRow> chunk) {
+        List<Long> ids = chunk.stream().map(EmployeeRow::departmentId).filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) return Map.of();
+        try {
+            Map<Long, DepartmentDTO> found = departmentClient.getDepartments(ids);
+            return found == null ? Map.of() : found;
+        } catch (Exception ignored) {
+            return Map.of();
+        }
+    }
+
+    // flat shape for CSV; null columns (no department / not expanded) are written empty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonPropertyOrder({"id", "firstName", "lastName", "email", "departmentId", "departmentName"})
+    record CsvRow(Long id, String firstName, String lastName, String email, Long departmentId, String departmentName) {}
+}
@@ -0,0 +1,349 @@
+package com.example.employee.service;
+
+import com.example.employee.dto.EmployeeDTO;
+import com.example.employee.dto.ImportJobDTO;
+import com.example.employee.dto.events.EmployeeCreatedEvent;
+import com.example.employee.repo.EmployeeRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Bulk employee import. In one transaction:
+ * <ol>
+ *   <li>parse and validate the NDJSON/CSV body, streaming every row into a temp table with {@code COPY}</li>
+ *   <li>mark duplicate emails within the file and emails already in {@code employee.employees}, set-based</li>
+ *   <li>insert the remaining rows, and their outbox events, with a single {@code INSERT ... SELECT}</li>
+ *   <li>stream the rejected rows back from the temp table</li>
+ * </ol>
+ * Once it commits, the inserted rows are indexed for search and audited as creates, like single creates.
+ * Progress of each job is kept in memory on the instance that runs it.
+ */
+@Component
+public class EmployeeImporter {
+    private static final Logger log = LoggerFactory.getLogger(EmployeeImporter.class);
+
+    private static final int COPY_BUFFER = 1 << 16;
+    private static final int FAILURE_FLUSH_EVERY = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = new CsvMapper();
+    private final Validator validator;
+    private final EmployeeSearchIndex searchIndex;
+    private final EmployeeAuditTrail audit;
+    private final Cache<String, Job> jobs = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofHours(24))
+            .build();
+
+    public EmployeeImporter(JdbcTemplate jdbc,
+                            PlatformTransactionManager transactionManager,
+                            ObjectMapper objectMapper,
+                            Validator validator,
+                            EmployeeSearchIndex searchIndex,
+                            EmployeeAuditTrail audit) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.searchIndex = searchIndex;
+        this.audit = audit;
+        csvMapper.enable(CsvParser.Feature.EMPTY_STRING_AS_NULL);
+        csvMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /** Registers a new job so its id can be handed out before the body is read. */
+    public ImportJobDTO start() {
+        Job job = new Job(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        return job.toDTO();
+    }
+
+    public Optional<ImportJobDTO> job(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(Job::toDTO);
+    }
+
+    /**
+     * Imports {@code in} and writes NDJSON to {@code out}: one line per rejected row, then the job
+     * summary once the transaction has committed (or failed). No summary line means nothing was imported.
+     */
+    public void run(String jobId, EmployeeExporter.Format format, InputStream in, OutputStream out) throws IOException {
+        Job job = jobs.getIfPresent(jobId);
+        if (job == null) throw new IllegalStateException("Unknown import job " + jobId);
+
+        try (SequenceWriter writer = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .writeValues(out)) {
+            try {
+                tx.executeWithoutResult(status ->
+                        jdbc.execute((ConnectionCallback<Void>) con -> {
+                            importInTransaction(job, format, in, writer, con);
+                            return null;
+                        }));
+                job.finish("COMPLETED", null);
+                long millis = Math.max(1, Duration.between(job.startedAt, job.finishedAt).toMillis());
+                log.info("Import {} done: {} rows, {} inserted, {} rejected, {} rows/s",
+                        job.id, job.received.get(), job.inserted.get(), job.failed.get(), job.received.get() * 1000 / millis);
+            } catch (RuntimeException ex) {
+                Throwable cause = ex instanceof UncheckedIOException u ? u.getCause() : ex;
+                job.inserted.set(0); // rolled back
+                job.finish("FAILED", cause.getMessage());
+                log.warn("Import {} failed after {} rows", job.id, job.received.get(), cause);
+            }
+            writer.write(job.toDTO());
+        }
+    }
+
+    private void importInTransaction(Job job, EmployeeExporter.Format format, InputStream in,
+                                     SequenceWriter failures, Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("""
+                    create temp table employee_import (
+                        row_no        bigint not null,
+                        first_name    text,
+                        last_name     text,
+                        email         text,
+                        department_id bigint,
+                        error         text
+                    ) on commit drop
+                    """);
+        }
+
+        // 1. stage: every row goes in, invalid ones already carry their error
+        PGConnection pg = con.unwrap(PGConnection.class);
+        try (Writer copy = new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(pg, "copy employee_import from stdin (format csv)", COPY_BUFFER), UTF_8), COPY_BUFFER)) {
+            if (format == EmployeeExporter.Format.CSV) stageCsv(job, in, copy);
+            else stageNdjson(job, in, copy);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        job.status = "RESOLVING";
+
+        // 2. set-based conflict resolution, then 3. one insert for everything left
+        List<EmployeeRow> inserted = new ArrayList<>();
+        try (Statement st = con.createStatement()) {
+            st.execute("analyze employee_import");
+            st.executeUpdate("""
+                    update employee_import i set error = 'Duplicate email in import'
+                    from (select row_no, row_number() over (partition by lower(email) order by row_no) as rn
+                          from employee_import where error is null) d
+                    where d.row_no = i.row_no and d.rn > 1
+                    """);
+            st.executeUpdate("""
+                    update employee_import i set error = 'Email already exists'
+                    from employee.employees e
+                    where i.error is null and lower(e.email) = lower(i.email)
+                    """);
+            // rows beaten by a concurrent insert of the same email are marked by "lost";
+            // "events" writes one outbox row per inserted employee, same envelope as Outbox.append
+            try (ResultSet rs = st.executeQuery("""
+                    with ins as (
+                        insert into employee.employees (first_name, last_name, email, department_id)
+                        select first_name, last_name, email, department_id
+                        from employee_import where error is null order by row_no
+                        on conflict do nothing
+                        returning id, first_name, last_name, email, department_id
+                    ), lost as (
+                        update employee_import i set error = 'Email already exists'
+                        where i.error is null and not exists (select 1 from ins where ins.email = i.email)
+                    ), events as (
+                        insert into employee.outbox_event (event_id, aggregate_type, aggregate_id, type, payload_json)
+                        select u.event_id, '%2$s', u.id, '%1$s',
+                               json_build_object('eventId', u.event_id, 'type', '%1$s', 'occurredAt', now(),
+                                                 'aggregateType', '%2$s', 'aggregateId', u.id,
+                                                 'data', json_build_object('id', u.id, 'firstName', u.first_name,
+                                                                           'lastName', u.last_name, 'email', u.email,
+                                                                           'departmentId', u.department_id))::text
+                        from (select ins.*, gen_random_uuid() as event_id from ins) u
+                        order by u.id
+                    )
+                    select id, first_name, last_name, email, department_id from ins
+                    """.formatted(EmployeeCreatedEvent.TYPE, Outbox.EMPLOYEE))) {
+                while (rs.next()) {
+                    long dept = rs.getLong(5);
+                    inserted.add(new EmployeeRow(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                            rs.wasNull() ? null : dept));
+                }
+            }
+        }
+        job.inserted.set(inserted.size());
+        searchIndex.putAllAfterCommit(inserted);
+        audit.recordAll(EmployeeAuditTrail.Action.CREATE, inserted);
+
+        // 4. stream the rejects
+        try (PreparedStatement ps = con.prepareStatement(
+                "select row_no, email, error from employee_import where error is not null order by row_no")) {
+            ps.setFetchSize(FAILURE_FLUSH_EVERY);
+            try (ResultSet rs = ps.executeQuery()) {
+                long n = 0;
+                while (rs.next()) {
+                    failures.write(new ImportFailure(rs.getLong(1), rs.getString(2), rs.getString(3)));
+                    if (++n % FAILURE_FLUSH_EVERY == 0) failures.flush();
+                }
+                job.failed.set(n);
+                failures.flush();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void stageNdjson(Job job, InputStream in, Writer copy) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(EmployeeDTO.class);
+        BufferedReader lines = new BufferedReader(new InputStreamReader(in, UTF_8), COPY_BUFFER);
+        long row = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) continue;
+            row++;
+            EmployeeDTO dto = null;
+            String error;
+            try {
+                dto = reader.readValue(line);
+                error = validate(dto);
+            } catch (JsonProcessingException ex) {
+                error = "Malformed JSON";
+            }
+            copyRow(copy, row, dto, error);
+            job.received.set(row);
+        }
+    }
+
+    private void stageCsv(Job job, InputStream in, Writer copy) throws IOException {
+        try (MappingIterator<EmployeeDTO> it = csvMapper.readerFor(EmployeeDTO.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .readValues(in)) {
+            long row = 0;
+            while (it.hasNextValue()) {
+                row++;
+                EmployeeDTO dto = null;
+                String error;
+                try {
+                    dto = it.nextValue();
+                    error = validate(dto);
+                } catch (RuntimeJsonMappingException ex) {
+                    error = "Malformed row";
+                }
+                copyRow(copy, row, dto, error);
+                job.received.set(row);
+            }
+        }
+    }
+
+    // same rules as POST /api/v1/employees
+    private String validate(EmployeeDTO dto) {
+        var violations = validator.validate(dto);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    // one line of COPY ... (FORMAT csv); an absent (unquoted, empty) field is NULL
+    private static void copyRow(Writer w, long row, EmployeeDTO dto, String error) throws IOException {
+        w.write(Long.toString(row));
+        w.write(',');
+        if (dto != null) {
+            quoted(w, dto.getFirstName());
+            w.write(',');
+            quoted(w, dto.getLastName());
+            w.write(',');
+            quoted(w, dto.getEmail());
+            w.write(',');
+            if (dto.getDepartmentId() != null) w.write(Long.toString(dto.getDepartmentId()));
+        } else {
+            w.write(",,,");
+        }
+        w.write(',');
+        quoted(w, error);
+        w.write('\n');
+    }
+
+    private static void quoted(Writer w, String value) throws IOException {
+        if (value == null) return;
+        String v = value.indexOf('\0') >= 0 ? value.replace("\0", "") : value; // text cannot hold NUL
+        w.write('"');
+        w.write(v.indexOf('"') >= 0 ? v.replace("\"", "\"\"") : v);
+        w.write('"');
+    }
+
+    record ImportFailure(long row, String email, String error) {}
+
+    private static final class Job {
+        final String id;
+        final Instant startedAt = Instant.now();
+        final AtomicLong received = new AtomicLong();
+        final AtomicLong inserted = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        volatile String status = "STAGING";
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Job(String id) {
+            this.id = id;
+        }
+
+        void finish(String status, String error) {
+            this.error = error;
+            this.finishedAt = Instant.now();
+            this.status = status;
+        }
+
+        ImportJobDTO toDTO() {
+            return new ImportJobDTO(id, status, received.get(), inserted.get(), failed.get(), startedAt, finishedAt, error);
+        }
+    }
+}
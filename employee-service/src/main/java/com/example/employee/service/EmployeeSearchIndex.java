@@ -0,0 +1,425 @@
+package com.example.employee.service;
+
+import com.example.employee.domain.Employee;
+import com.example.employee.dto.EmployeeSuggestionDTO;
+import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.EmployeeRow;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-process typeahead index over first name, last name and email.
+ * <ul>
+ *   <li>every term (name tokens, email local-part tokens, the whole email) sits in a prefix trie</li>
+ *   <li>3-grams of each field map to sorted {@code long[]} id postings for infix matches</li>
+ *   <li>rebuilt from the table when the application is ready; {@link EmployeeService} applies
+ *       each committed create/update/delete incrementally</li>
+ *   <li>size is published as {@code employee.search.index.*} meters</li>
+ * </ul>
+ * Until the first rebuild finishes {@link #isReady()} is false and callers should go to the database.
+ */
+@Component
+public class EmployeeSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(EmployeeSearchIndex.class);
+
+    private static final Pattern TERM_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int GRAM = 3;
+    // candidates gathered before ranking; bounds the work for one-letter queries on large tables
+    private static final int CANDIDATES_PER_RESULT = 32;
+
+    private final EmployeeRepository repository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();                 // guarded by lock
+    private List<Consumer<Index>> pendingDuringRebuild; // guarded by lock; non-null while a rebuild runs
+    private volatile boolean ready;
+
+    public EmployeeSearchIndex(EmployeeRepository repository, MeterRegistry registry) {
+        this.repository = repository;
+        Gauge.builder("employee.search.index.documents", this, s -> s.stat(i -> i.docs.size()))
+                .description("Employees held by the autocomplete index")
+                .register(registry);
+        Gauge.builder("employee.search.index.terms", this, s -> s.stat(i -> i.terms))
+                .description("Distinct terms in the autocomplete prefix trie")
+                .register(registry);
+        Gauge.builder("employee.search.index.grams", this, s -> s.stat(i -> i.grams.size()))
+                .description("Distinct 3-grams in the autocomplete infix postings")
+                .register(registry);
+        Gauge.builder("employee.search.index.memory", this, s -> s.stat(Index::estimatedBytes))
+                .description("Estimated heap held by the autocomplete index")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Reloads everything from the table; writes that commit meanwhile are replayed onto the new index. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        write(i -> pendingDuringRebuild = new ArrayList<>());
+        Index fresh = new Index();
+        try (Stream<EmployeeRow> rows = repository.streamAll()) {
+            rows.forEach(r -> fresh.put(r.id(), r.firstName(), r.lastName(), r.email()));
+        } catch (RuntimeException ex) {
+            write(i -> pendingDuringRebuild = null);
+            log.warn("Autocomplete index rebuild failed; autocomplete falls back to the database", ex);
+            return;
+        }
+        write(i -> {
+            pendingDuringRebuild.forEach(m -> m.accept(fresh));
+            pendingDuringRebuild = null;
+            index = fresh;
+        });
+        ready = true;
+        log.info("Autocomplete index built: {} employees, ~{} KiB", fresh.docs.size(), fresh.estimatedBytes() / 1024);
+    }
+
+    /** Indexes the employee's current values once the surrounding transaction commits. */
+    public void putAfterCommit(Employee e) {
+        long id = e.getId();
+        String first = e.getFirstName(), last = e.getLastName(), email = e.getEmail();
+        afterCommit(() -> mutate(i -> i.put(id, first, last, email)));
+    }
+
+    /** Same for a row written by a single-statement write. */
+    public void putAfterCommit(EmployeeRow r) {
+        long id = r.id();
+        String first = r.firstName(), last = r.lastName(), email = r.email();
+        afterCommit(() -> mutate(i -> i.put(id, first, last, email)));
+    }
+
+    /** Bulk variant for set-based inserts: one commit callback for the whole batch. */
+    public void putAllAfterCommit(List<EmployeeRow> rows) {
+        List<EmployeeRow> batch = List.copyOf(rows);
+        afterCommit(() -> mutate(i -> batch.forEach(r -> i.put(r.id(), r.firstName(), r.lastName(), r.email()))));
+    }
+
+    /** Drops the employee once the surrounding transaction commits. */
+    public void removeAfterCommit(Long id) {
+        afterCommit(() -> mutate(i -> i.remove(id)));
+    }
+
+    /** Top {@code k} employees matching every whitespace-separated token of {@code q}. */
+    public List<EmployeeSuggestionDTO> suggest(String q, int k) {
+        List<String> tokens = Arrays.stream(q.toLowerCase(Locale.ROOT).trim().split("\\s+"))
+                .filter(t -> !t.isEmpty())
+                .toList();
+        if (tokens.isEmpty()) return List.of();
+        return read(i -> i.suggest(tokens, k));
+    }
+
+    private void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    private void mutate(Consumer<Index> m) {
+        write(i -> {
+            m.accept(i);
+            if (pendingDuringRebuild != null) pendingDuringRebuild.add(m);
+        });
+    }
+
+    private void write(Consumer<Index> body) {
+        lock.writeLock().lock();
+        try {
+            body.accept(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private double stat(ToDoubleFunction<Index> f) {
+        return read(f::applyAsDouble);
+    }
+
+    private <T> T read(Function<Index, T> body) {
+        lock.readLock().lock();
+        try {
+            return body.apply(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ----- index structures; not thread-safe, always accessed under the lock -----
+
+    private record Doc(long id, String firstName, String lastName, String email, String haystack, String[] terms) {}
+
+    /** Sorted, duplicate-free ids in a growable primitive array. */
+    static final class Postings {
+        long[] ids = new long[4];
+        int size;
+
+        boolean add(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) return false;
+            at = -at - 1;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+            return true;
+        }
+
+        boolean remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) return false;
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+
+    /** Trie node with children in parallel arrays sorted by char. */
+    static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        Postings ids; // documents having a term that ends exactly here
+
+        Node child(char c) {
+            int at = Arrays.binarySearch(keys, c);
+            return at >= 0 ? children[at] : null;
+        }
+
+        Node childOrCreate(char c, Index owner) {
+            int at = Arrays.binarySearch(keys, c);
+            if (at >= 0) return children[at];
+            at = -at - 1;
+            char[] k = new char[keys.length + 1];
+            Node[] n = new Node[children.length + 1];
+            System.arraycopy(keys, 0, k, 0, at);
+            System.arraycopy(children, 0, n, 0, at);
+            System.arraycopy(keys, at, k, at + 1, keys.length - at);
+            System.arraycopy(children, at, n, at + 1, children.length - at);
+            k[at] = c;
+            n[at] = new Node();
+            keys = k;
+            children = n;
+            owner.nodes++;
+            return n[at];
+        }
+    }
+
+    static final class Index {
+        final Map<Long, Doc> docs = new HashMap<>();
+        final Map<String, Postings> grams = new HashMap<>();
+        final Node root = new Node();
+        int nodes;
+        int terms;
+        long postingSlots;
+        long docChars;
+
+        void put(long id, String firstName, String lastName, String email) {
+            remove(id);
+            String first = lower(firstName), last = lower(lastName), mail = lower(email);
+            Set<String> termSet = new LinkedHashSet<>();
+            addTerms(termSet, first);
+            addTerms(termSet, last);
+            int at = mail.indexOf('@');
+            addTerms(termSet, at < 0 ? mail : mail.substring(0, at));
+            if (!mail.isEmpty()) termSet.add(mail);
+
+            Doc doc = new Doc(id, firstName, lastName, email, first + ' ' + last + ' ' + mail, termSet.toArray(String[]::new));
+            docs.put(id, doc);
+            docChars += doc.haystack().length() * 2L;
+            for (String term : doc.terms()) {
+                Node n = root;
+                for (int i = 0; i < term.length(); i++) n = n.childOrCreate(term.charAt(i), this);
+                if (n.ids == null) {
+                    n.ids = newPostings();
+                    terms++;
+                }
+                addPosting(n.ids, id);
+            }
+            for (String field : new String[]{first, last, mail}) {
+                for (int i = 0; i + GRAM <= field.length(); i++) {
+                    Postings p = grams.computeIfAbsent(field.substring(i, i + GRAM), g -> newPostings());
+                    addPosting(p, id);
+                }
+            }
+        }
+
+        // empty trie nodes are left in place and disappear on the next rebuild
+        void remove(long id) {
+            Doc doc = docs.remove(id);
+            if (doc == null) return;
+            docChars -= doc.haystack().length() * 2L;
+            for (String term : doc.terms()) {
+                Node n = find(term);
+                if (n != null && n.ids != null) {
+                    n.ids.remove(id);
+                    if (n.ids.size == 0) {
+                        postingSlots -= n.ids.ids.length;
+                        n.ids = null;
+                        terms--;
+                    }
+                }
+            }
+            String h = doc.haystack();
+            for (int i = 0; i + GRAM <= h.length(); i++) {
+                String g = h.substring(i, i + GRAM);
+                Postings p = grams.get(g);
+                if (p != null && p.remove(id) && p.size == 0) {
+                    grams.remove(g);
+                    postingSlots -= p.ids.length;
+                }
+            }
+        }
+
+        List<EmployeeSuggestionDTO> suggest(List<String> tokens, int k) {
+            String lead = tokens.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+            int cap = Math.max(k * CANDIDATES_PER_RESULT, k);
+
+            Set<Long> candidates = new LinkedHashSet<>();
+            collectPrefix(lead, candidates, cap);
+            if (candidates.size() < cap && lead.length() >= GRAM) collectInfix(lead, candidates, cap);
+
+            record Hit(Doc doc, int score) {}
+            List<Hit> hits = new ArrayList<>();
+            for (Long id : candidates) {
+                Doc doc = docs.get(id);
+                int score = 0;
+                for (String t : tokens) {
+                    int s = score(doc, t);
+                    if (s == 0) { score = 0; break; }
+                    score += s;
+                }
+                if (score > 0) hits.add(new Hit(doc, score));
+            }
+            return hits.stream()
+                    .sorted(Comparator.comparingInt(Hit::score).reversed()
+                            .thenComparing(h -> h.doc().lastName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                            .thenComparing(h -> h.doc().firstName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                            .thenComparingLong(h -> h.doc().id()))
+                    .limit(k)
+                    .map(h -> new EmployeeSuggestionDTO(h.doc().id(), h.doc().firstName(), h.doc().lastName(), h.doc().email()))
+                    .toList();
+        }
+
+        long estimatedBytes() {
+            // rough object sizes for a 64-bit JVM with compressed oops
+            return docs.size() * 160L + docChars
+                    + nodes * 48L
+                    + grams.size() * 96L
+                    + postingSlots * Long.BYTES;
+        }
+
+        // exact term 3, term prefix 2, infix anywhere 1, no match 0
+        private static int score(Doc doc, String token) {
+            int best = 0;
+            for (String term : doc.terms()) {
+                if (term.equals(token)) return 3;
+                if (term.startsWith(token)) best = 2;
+            }
+            if (best == 0 && doc.haystack().contains(token)) best = 1;
+            return best;
+        }
+
+        // breadth-first, so shorter (closer) terms contribute their ids first
+        private void collectPrefix(String prefix, Set<Long> out, int cap) {
+            Node start = find(prefix);
+            if (start == null) return;
+            ArrayDeque<Node> queue = new ArrayDeque<>();
+            queue.add(start);
+            while (!queue.isEmpty() && out.size() < cap) {
+                Node n = queue.poll();
+                if (n.ids != null) {
+                    for (int i = 0; i < n.ids.size && out.size() < cap; i++) out.add(n.ids.ids[i]);
+                }
+                queue.addAll(Arrays.asList(n.children));
+            }
+        }
+
+        // intersect the postings of every 3-gram, smallest list first, then verify the substring
+        private void collectInfix(String token, Set<Long> out, int cap) {
+            List<Postings> lists = new ArrayList<>();
+            for (int i = 0; i + GRAM <= token.length(); i++) {
+                Postings p = grams.get(token.substring(i, i + GRAM));
+                if (p == null) return;
+                lists.add(p);
+            }
+            lists.sort(Comparator.comparingInt(p -> p.size));
+            Postings smallest = lists.get(0);
+            outer:
+            for (int i = 0; i < smallest.size && out.size() < cap; i++) {
+                long id = smallest.ids[i];
+                for (int j = 1; j < lists.size(); j++) {
+                    if (!lists.get(j).contains(id)) continue outer;
+                }
+                if (docs.get(id).haystack().contains(token)) out.add(id);
+            }
+        }
+
+        private Node find(String term) {
+            Node n = root;
+            for (int i = 0; i < term.length() && n != null; i++) n = n.child(term.charAt(i));
+            return n;
+        }
+
+        private Postings newPostings() {
+            Postings p = new Postings();
+            postingSlots += p.ids.length;
+            return p;
+        }
+
+        private void addPosting(Postings p, long id) {
+            int before = p.ids.length;
+            p.add(id);
+            postingSlots += p.ids.length - before;
+        }
+
+        private static void addTerms(Set<String> out, String field) {
+            for (String t : TERM_SPLIT.split(field)) {
+                if (!t.isEmpty()) out.add(t);
+            }
+        }
+
+        private static String lower(String s) {
+            return s == null ? "" : s.toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -1,81 +1,204 @@
 package com.example.employee.service;
 
 import com.example.employee.client.DepartmentClient;
+import com.example.employee.config.ReadYourWrites;
 import com.example.employee.domain.Employee;
 import com.example.employee.dto.DepartmentDTO;
+import com.example.employee.dto.CursorPage;
 import com.example.employee.dto.DepartmentStatsDTO;
+import com.example.employee.dto.EmployeeBulkUpdateDTO;
+import com.example.employee.dto.EmployeeBulkUpdateResultDTO;
 import com.example.employee.dto.EmployeeDTO;
 import com.example.employee.dto.EmployeePatchDTO;
+import com.example.employee.dto.EmployeeSuggestionDTO;
+import com.example.employee.error.BadRequestException;
 import com.example.employee.error.ResourceNotFoundException;
 import com.example.employee.repo.EmployeeRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.employee.repo.EmployeeRow;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Reads that expand departments run in two phases: rows are loaded in a short read-only transaction
+ * ({@link #load}), and department-service is only called once that transaction has returned its connection
+ * to the pool. A slow department-service then holds request threads, not database connections.
+ */
 @Service
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class EmployeeService {
 
     private final EmployeeRepository repository;
     private final DepartmentClient departmentClient;
     private final IdempotencyStore idempotencyStore;
+    private final EmployeeSearchIndex searchIndex;
+    private final EmployeeCreateBatcher createBatcher;
+    private final EmployeeAuditTrail audit;
+    private final TransactionOperations reads;
 
+    private static final int MAX_CURSOR_LIMIT = 1000;
+    private static final int MAX_SEARCH_SIZE = 100;
+    private static final int MAX_AUTOCOMPLETE_LIMIT = 50;
+    private static final int MAX_BULK_ROWS = 10_000;
+
+    public EmployeeService(EmployeeRepository repository,
+                           DepartmentClient departmentClient,
+                           IdempotencyStore idempotencyStore,
+                           EmployeeSearchIndex searchIndex,
+                           EmployeeCreateBatcher createBatcher,
+                           EmployeeAuditTrail audit,
+                           ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.repository = repository;
+        this.departmentClient = departmentClient;
+        this.idempotencyStore = idempotencyStore;
+        this.searchIndex = searchIndex;
+        this.createBatcher = createBatcher;
+        this.audit = audit;
+        // contexts without a database have no transaction manager; loads then simply run
+        PlatformTransactionManager tm = transactionManager.getIfAvailable();
+        if (tm == null) {
+            this.reads = TransactionOperations.withoutTransaction();
+        } else {
+            TransactionTemplate tx = new TransactionTemplate(tm);
+            tx.setReadOnly(true);
+            this.reads = tx;
+        }
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<EmployeeDTO> getAll() {
-        return repository.findAll().stream().map(this::toDTO).toList();
+        return toDTOs(load(() -> repository.findAll()));
+    }
+
+    /** All employees in {@code view}'s shape: {@link EmployeeDTO}s, or field maps when the view is sparse. */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<?> getAll(EmployeeView view) {
+        if (view.sparse()) {
+            return sparse(load(() -> repository.findFields(selected(view), null, null, null, Pageable.unpaged()).getContent()), view);
+        }
+        return toDTOs(load(() -> repository.findAll()), view.department());
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public EmployeeDTO getById(Long id) {
-        Employee e = repository.findById(id)
+        Employee e = load(() -> repository.findById(id))
                 .orElseThrow(() -> new ResourceNotFoundException("Employee not found"));
         return toDTO(e);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Object getById(Long id, EmployeeView view) {
+        if (view.sparse()) {
+            Map<String, Object> row = load(() -> repository.findFieldsById(id, selected(view)))
+                    .orElseThrow(() -> new ResourceNotFoundException("Employee not found"));
+            return sparse(List.of(row), view).get(0);
+        }
+        Employee e = load(() -> repository.findById(id))
+                .orElseThrow(() -> new ResourceNotFoundException("Employee not found"));
+        return view.department() ? toDTO(e) : toDTO(e, null);
+    }
+
     @Transactional
     public EmployeeDTO create(EmployeeDTO dto) {
         return create(dto, null);
     }
 
-    /** Create with optional Idempotency-Key. Duplicate keys return the originally created resource. */
+    /**
+     * Create with optional Idempotency-Key. A repeated key replays the stored response of the first
+     * create; concurrent duplicates wait for it instead of inserting twice.
+     */
     @Transactional
     public EmployeeDTO create(EmployeeDTO dto, String idempotencyKey) {
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            var existing = idempotencyStore.lookup(idempotencyKey)
-                    .flatMap(repository::findById)
-                    .map(this::toDTO);
-            if (existing.isPresent()) return existing.get();
-        }
-
-        if (repository.existsByEmailIgnoreCase(dto.getEmail())) {
-            throw new IllegalArgumentException("Email already exists");
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return insert(dto);
         }
+        return idempotencyStore.execute(idempotencyKey, dto, EmployeeDTO.class, () -> insert(dto));
+    }
 
-        Employee e = Employee.builder()
-                .firstName(dto.getFirstName())
-                .lastName(dto.getLastName())
-                .email(dto.getEmail())
-                .departmentId(dto.getDepartmentId())
-                .build();
+    /** Whether creates without an Idempotency-Key should go through {@link #createBatched}. */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean batchesCreates() {
+        return createBatcher.isEnabled();
+    }
 
-        e = repository.save(e);
+    /**
+     * Create committed together with concurrent ones (group commit). Runs outside any transaction: the
+     * caller waits for its batch without holding a connection.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EmployeeDTO createBatched(EmployeeDTO dto) {
+        EmployeeRow row = createBatcher.insert(dto);
+        // committed on the batcher's thread, so no transaction of this request took a primary connection
+        ReadYourWrites.markWritten();
+        audit.record(EmployeeAuditTrail.Action.CREATE, row);
+        return toDTO(row);
+    }
 
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            idempotencyStore.remember(idempotencyKey, e.getId());
-        }
-        return toDTO(e);
+    // one INSERT ... ON CONFLICT that also writes the created event; a taken email inserts nothing
+    private EmployeeDTO insert(EmployeeDTO dto) {
+        EmployeeRow row = repository.insertIfEmailFree(dto.getFirstName(), dto.getLastName(), dto.getEmail(),
+                        dto.getDepartmentId())
+                .orElseThrow(() -> new IllegalArgumentException("Email already exists"));
+        searchIndex.putAfterCommit(row);
+        audit.record(EmployeeAuditTrail.Action.CREATE, row);
+        return toDTO(row);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Page<EmployeeDTO> list(Optional<String> email,
                                   Optional<String> lastNameContains,
                                   Optional<Long> departmentId,
                                   Pageable pageable) {
+        return list(email, lastNameContains, departmentId, pageable, true);
+    }
+
+    /** {@link #list} in {@code view}'s shape; a sparse view only selects the requested columns. */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<?> list(Optional<String> email,
+                        Optional<String> lastNameContains,
+                        Optional<Long> departmentId,
+                        Pageable pageable,
+                        EmployeeView view) {
+        if (!view.sparse()) return list(email, lastNameContains, departmentId, pageable, view.department());
+
+        for (Sort.Order o : pageable.getSort()) {
+            if (!EmployeeView.ALL_FIELDS.contains(o.getProperty())) {
+                throw new BadRequestException("cannot sort by '" + o.getProperty() + "'");
+            }
+        }
+        Page<Map<String, Object>> page = load(() -> repository.findFields(selected(view), email.orElse(null),
+                lastNameContains.orElse(null), departmentId.orElse(null), pageable));
+        return new PageImpl<>(sparse(page.getContent(), view), page.getPageable(), page.getTotalElements());
+    }
+
+    private Page<EmployeeDTO> list(Optional<String> email,
+                                   Optional<String> lastNameContains,
+                                   Optional<Long> departmentId,
+                                   Pageable pageable,
+                                   boolean expandDepartment) {
 
         Employee probe = new Employee();
         email.ifPresent(probe::setEmail);
@@ -87,78 +210,300 @@ public class EmployeeService {
                 .withMatcher("email", m -> m.exact().ignoreCase())
                 .withMatcher("lastName", m -> m.contains().ignoreCase());
 
-        return repository.findAll(Example.of(probe, matcher), pageable)
-                .map(this::toDTO);
+        Page<Employee> page = load(() -> repository.findAll(Example.of(probe, matcher), pageable));
+        return new PageImpl<>(toDTOs(page.getContent(), expandDepartment), page.getPageable(), page.getTotalElements());
     }
 
-    /** Full update (PUT). */
-    @Transactional
-    public EmployeeDTO update(Long id, EmployeeDTO dto) {
-        Employee e = repository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found"));
-
-        repository.findByEmailIgnoreCase(dto.getEmail())
-                .filter(other -> !other.getId().equals(id))
-                .ifPresent(other -> { throw new IllegalArgumentException("Email already exists"); });
+    /**
+     * Keyset page: rows strictly after the cursor in (sortKey, id) order, so the cost does not
+     * depend on how deep into the table the caller is. {@code nextLink} turns the next cursor into a URL.
+     * Items are in {@code view}'s shape; whole rows are still read, the cursor needs their sort key.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPage<?> listAfter(String sort, String after, int limit, EmployeeView view,
+                                   Function<String, String> nextLink) {
+        if (limit < 1 || limit > MAX_CURSOR_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_CURSOR_LIMIT);
+        }
+        EmployeeCursor.Sort order = EmployeeCursor.Sort.parse(sort);
+        EmployeeCursor cursor = (after == null || after.isBlank()) ? null : EmployeeCursor.decode(after, order);
 
+        // fetch one extra row to learn whether there is a next page without counting
+        int fetch = limit + 1;
+        List<Employee> rows = load(() -> switch (order) {
+            case ID -> cursor == null
+                    ? repository.findFirstById(fetch)
+                    : repository.findAfterId(cursor.id(), fetch);
+            case LAST_NAME -> cursor == null
+                    ? repository.findFirstByLastName(fetch)
+                    : repository.findAfterLastName(cursor.key(), cursor.id(), fetch);
+        });
 
-        e.setFirstName(dto.getFirstName());
-        e.setLastName(dto.getLastName());
-        e.setEmail(dto.getEmail());
-        e.setDepartmentId(dto.getDepartmentId());
+        boolean hasNext = rows.size() > limit;
+        List<Employee> pageRows = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? EmployeeCursor.after(order, pageRows.get(limit - 1)).encode() : null;
+        List<?> items = view.sparse()
+                ? sparse(pageRows.stream().map(e -> fieldsOf(e, selected(view))).toList(), view)
+                : toDTOs(pageRows, view.department());
+        return new CursorPage<>(items, limit, nextCursor, nextCursor == null ? null : nextLink.apply(nextCursor));
+    }
 
-        return toDTO(repository.save(e));
+    /**
+     * Full update (PUT), one statement that also writes the updated event. An email taken by another
+     * employee fails on the unique index and answers 409.
+     */
+    @Transactional
+    public EmployeeDTO update(Long id, EmployeeDTO dto) {
+        EmployeeRow row = repository.updateById(id, dto.getFirstName(), dto.getLastName(), dto.getEmail(),
+                        dto.getDepartmentId(), false)
+                .orElseThrow(() -> new ResourceNotFoundException("Employee not found"))
+                .row();
+        searchIndex.putAfterCommit(row);
+        audit.record(EmployeeAuditTrail.Action.UPDATE, row);
+        return toDTO(row);
     }
 
-    /** Partial update (PATCH). Only non-null fields are applied. */
+    /** Partial update (PATCH). Only non-null fields are applied; otherwise like {@link #update}. */
     @Transactional
     public EmployeeDTO patch(Long id, EmployeePatchDTO patch) {
-        Employee e = repository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found"));
+        EmployeeRow row = repository.updateById(id, patch.getFirstName(), patch.getLastName(), patch.getEmail(),
+                        patch.getDepartmentId(), true)
+                .orElseThrow(() -> new ResourceNotFoundException("Employee not found"))
+                .row();
+        searchIndex.putAfterCommit(row);
+        audit.record(EmployeeAuditTrail.Action.PATCH, row);
+        return toDTO(row);
+    }
 
-        if (patch.getEmail() != null && !patch.getEmail().equalsIgnoreCase(e.getEmail())) {
-            repository.findByEmailIgnoreCase(patch.getEmail())
-                    .filter(other -> !other.getId().equals(id))
-                    .ifPresent(other -> { throw new IllegalArgumentException("Email already exists"); });
-            e.setEmail(patch.getEmail());
+    /**
+     * Set-based PATCH of every employee matching the filter: one {@code UPDATE ... RETURNING} that writes the
+     * outbox events in the same statement, instead of a find + check + save per employee. Email is unique,
+     * so it cannot be bulk-updated; more than {@value #MAX_BULK_ROWS} matches roll the whole update back.
+     */
+    @Transactional
+    public EmployeeBulkUpdateResultDTO bulkUpdate(EmployeeBulkUpdateDTO request) {
+        EmployeeBulkUpdateDTO.Filter filter = request.filter();
+        EmployeePatchDTO patch = request.patch();
+        if (filter.departmentId() == null && filter.ids() == null
+                && (filter.emailDomain() == null || filter.emailDomain().isBlank())) {
+            throw new BadRequestException("filter needs at least one of departmentId, ids, emailDomain");
+        }
+        if (patch.getEmail() != null) {
+            throw new BadRequestException("email is unique per employee and cannot be bulk-updated");
         }
-        if (patch.getFirstName() != null)    e.setFirstName(patch.getFirstName());
-        if (patch.getLastName() != null)     e.setLastName(patch.getLastName());
-        if (patch.getDepartmentId() != null) e.setDepartmentId(patch.getDepartmentId());
+        if (patch.getFirstName() == null && patch.getLastName() == null && patch.getDepartmentId() == null) {
+            throw new BadRequestException("patch sets no field");
+        }
+        if (filter.ids() != null && filter.ids().isEmpty()) return new EmployeeBulkUpdateResultDTO(0, 0);
 
-        return toDTO(repository.save(e));
+        String domain = filter.emailDomain() == null || filter.emailDomain().isBlank() ? null : filter.emailDomain().trim();
+        EmployeeRepository.BulkUpdate result = repository.bulkUpdate(filter.departmentId(), filter.ids(), domain,
+                patch.getFirstName(), patch.getLastName(), patch.getDepartmentId(), MAX_BULK_ROWS + 1);
+        if (result.matched() > MAX_BULK_ROWS) {
+            // thrown inside the transaction, so nothing of the update is committed
+            throw new BadRequestException("filter matches more than " + MAX_BULK_ROWS + " employees; narrow it down");
+        }
+        searchIndex.putAllAfterCommit(result.updated());
+        audit.recordAll(EmployeeAuditTrail.Action.BULK_UPDATE, result.updated());
+        return new EmployeeBulkUpdateResultDTO(result.matched(), result.updated().size());
     }
 
     @Transactional
     public void delete(Long id) {
-        if (!repository.existsById(id)) {
-            throw new ResourceNotFoundException("Employee not found");
+        EmployeeRow row = repository.deleteReturning(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Employee not found"));
+        searchIndex.removeAfterCommit(id);
+        audit.record(EmployeeAuditTrail.Action.DELETE, row);
+    }
+
+    /**
+     * Case-insensitive search across firstName/lastName/email: the best {@value #MAX_SEARCH_SIZE} matches
+     * only, and nothing is counted. {@link Slice#hasNext()} tells whether more matched; the paged
+     * {@link #search(String, Pageable, EmployeeView)} reaches them.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Slice<?> search(String q, EmployeeView view) {
+        if (q == null || q.isBlank()) return new SliceImpl<>(List.of());
+
+        String needle = q.trim().toLowerCase(Locale.ROOT);
+        String pattern = "%" + escapeLike(needle) + "%";
+        if (view.sparse()) {
+            Slice<Map<String, Object>> top = load(() -> repository.searchRankedFieldsTop(selected(view), needle,
+                    pattern, MAX_SEARCH_SIZE));
+            return new SliceImpl<>(sparse(top.getContent(), view), top.getPageable(), top.hasNext());
+        }
+        Slice<Employee> top = load(() -> repository.searchRankedTop(needle, pattern, PageRequest.of(0, MAX_SEARCH_SIZE)));
+        return new SliceImpl<>(toDTOs(top.getContent(), view.department()), top.getPageable(), top.hasNext());
+    }
+
+    /** Case-insensitive substring search across firstName/lastName/email, most similar first. */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<EmployeeDTO> search(String q, Pageable pageable) {
+        return search(q, pageable, true);
+    }
+
+    /** {@link #search(String, Pageable)} in {@code view}'s shape. */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<?> search(String q, Pageable pageable, EmployeeView view) {
+        if (!view.sparse()) return search(q, pageable, view.department());
+
+        PageRequest request = searchRequest(pageable);
+        if (q == null || q.isBlank()) return Page.empty(pageable);
+        String needle = q.trim().toLowerCase(Locale.ROOT);
+        Page<Map<String, Object>> page = load(() -> repository.searchRankedFields(selected(view), needle,
+                "%" + escapeLike(needle) + "%", request));
+        return new PageImpl<>(sparse(page.getContent(), view), page.getPageable(), page.getTotalElements());
+    }
+
+    private Page<EmployeeDTO> search(String q, Pageable pageable, boolean expandDepartment) {
+        PageRequest request = searchRequest(pageable);
+        if (q == null || q.isBlank()) return Page.empty(pageable);
+
+        String needle = q.trim().toLowerCase(Locale.ROOT);
+        Page<Employee> page = load(() -> repository.searchRanked(needle, "%" + escapeLike(needle) + "%", request));
+        return new PageImpl<>(toDTOs(page.getContent(), expandDepartment), page.getPageable(), page.getTotalElements());
+    }
+
+    // ranking is fixed by the query, so any client-supplied sort is dropped
+    private static PageRequest searchRequest(Pageable pageable) {
+        if (pageable.getPageSize() > MAX_SEARCH_SIZE) {
+            throw new BadRequestException("size must be at most " + MAX_SEARCH_SIZE);
         }
-        repository.deleteById(id);
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
     }
 
-    /** Convenience case-insensitive search across firstName/lastName/email. */
-    public List<EmployeeDTO> search(String q) {
+    /**
+     * Typeahead: top {@code limit} matches from the in-memory index, no database round trip and no
+     * department enrichment. While the index is still loading, answers come from the trigram search.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<EmployeeSuggestionDTO> autocomplete(String q, int limit) {
+        if (limit < 1 || limit > MAX_AUTOCOMPLETE_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_AUTOCOMPLETE_LIMIT);
+        }
         if (q == null || q.isBlank()) return List.of();
-        var results = repository
-                .findByFirstNameIgnoreCaseContainingOrLastNameIgnoreCaseContainingOrEmailIgnoreCaseContaining(q, q, q);
-        return results.stream().map(this::toDTO).toList();
+        if (searchIndex.isReady()) return searchIndex.suggest(q, limit);
+
+        String needle = q.trim().toLowerCase(Locale.ROOT);
+        return repository.searchRankedTop(needle, "%" + escapeLike(needle) + "%", PageRequest.of(0, limit))
+                .map(e -> new EmployeeSuggestionDTO(e.getId(), e.getFirstName(), e.getLastName(), e.getEmail()))
+                .getContent();
     }
 
-    /** Counts by departmentId. */
+    // user input must match literally; '\' is Postgres' default LIKE escape
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /** Counts by departmentId, read from the maintained headcount counters (no table scan). */
     public List<DepartmentStatsDTO> stats() {
-        return repository.countByDepartment().stream()
+        return repository.headcountByDepartment().stream()
                 .map(d -> new DepartmentStatsDTO(d.getDepartmentId(), d.getCount()))
                 .toList();
     }
 
+    /** Headcount of one department; {@code null} counts employees without a department. */
+    public DepartmentStatsDTO stats(Long departmentId) {
+        return new DepartmentStatsDTO(departmentId, repository.headcountOf(departmentId));
+    }
+
     // ----- mapping & enrichment -----
+
+    // load phase of a read; the callers above are NOT_SUPPORTED so nothing holds a connection while they enrich
+    private <T> T load(Supplier<T> query) {
+        return reads.execute(status -> query.get());
+    }
+
     private EmployeeDTO toDTO(Employee e) {
         DepartmentDTO dept = null;
         if (e.getDepartmentId() != null) {
             try { dept = departmentClient.getDepartment(e.getDepartmentId()); }
             catch (Exception ignored) {}
         }
+        return toDTO(e, dept);
+    }
+
+    /** List variant of toDTO: resolves all distinct departmentIds in a single batch call. */
+    private List<EmployeeDTO> toDTOs(List<Employee> employees) {
+        return toDTOs(employees, true);
+    }
+
+    private List<EmployeeDTO> toDTOs(List<Employee> employees, boolean expandDepartment) {
+        Map<Long, DepartmentDTO> departments = expandDepartment
+                ? lookupDepartments(employees.stream().map(Employee::getDepartmentId).toList())
+                : Map.of();
+        return employees.stream()
+                .map(e -> toDTO(e, e.getDepartmentId() == null ? null : departments.get(e.getDepartmentId())))
+                .toList();
+    }
+
+    // columns a sparse view reads: its fields, plus departmentId when the department is expanded
+    private static List<String> selected(EmployeeView view) {
+        if (!view.department() || view.fields().contains("departmentId")) return view.fields();
+        List<String> columns = new ArrayList<>(view.fields());
+        columns.add("departmentId");
+        return columns;
+    }
+
+    // an entity read in full, cut down to a sparse row like the projection's
+    private static Map<String, Object> fieldsOf(Employee e, List<String> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String f : fields) {
+            row.put(f, switch (f) {
+                case "id" -> e.getId();
+                case "firstName" -> e.getFirstName();
+                case "lastName" -> e.getLastName();
+                case "email" -> e.getEmail();
+                case "departmentId" -> e.getDepartmentId();
+                default -> throw new IllegalArgumentException("Unknown employee field: " + f);
+            });
+        }
+        return row;
+    }
+
+    // sparse rows are mutable maps straight from the projection; adds "department" in place when expanded
+    private List<Map<String, Object>> sparse(List<Map<String, Object>> rows, EmployeeView view) {
+        if (!view.department()) return rows;
+        Map<Long, DepartmentDTO> departments = lookupDepartments(rows.stream().map(r -> (Long) r.get("departmentId")).toList());
+        boolean keepId = view.fields().contains("departmentId");
+        for (Map<String, Object> row : rows) {
+            Long departmentId = (Long) (keepId ? row.get("departmentId") : row.remove("departmentId"));
+            row.put("department", departmentId == null ? null : departments.get(departmentId));
+        }
+        return rows;
+    }
+
+    private Map<Long, DepartmentDTO> lookupDepartments(List<Long> departmentIds) {
+        List<Long> ids = departmentIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (ids.isEmpty()) return Map.of();
+        try {
+            Map<Long, DepartmentDTO> found = departmentClient.getDepartments(ids);
+            return found == null ? Map.of() : found;
+        } catch (Exception ignored) {
+            return Map.of();
+        }
+    }
+
+    private EmployeeDTO toDTO(EmployeeRow r) {
+        DepartmentDTO dept = null;
+        if (r.departmentId() != null) {
+            try { dept = departmentClient.getDepartment(r.departmentId()); }
+            catch (Exception ignored) {}
+        }
+        return EmployeeDTO.builder()
+                .id(r.id())
+                .firstName(r.firstName())
+                .lastName(r.lastName())
+                .email(r.email())
+                .departmentId(r.departmentId())
+                .department(dept)
+                .build();
+    }
+
+    private static EmployeeDTO toDTO(Employee e, DepartmentDTO dept) {
         return EmployeeDTO.builder()
                 .id(e.getId())
                 .firstName(e.getFirstName())
@@ -0,0 +1,53 @@
+package com.example.employee.service;
+
+import com.example.employee.error.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shape of an employee read: which fields ({@code ?fields=id,email}) and whether the department is
+ * looked up and embedded ({@code ?expand=department}). A view with fewer than all fields is sparse:
+ * only its columns are selected and only they are serialized.
+ */
+public record EmployeeView(List<String> fields, boolean department) {
+
+    public static final List<String> ALL_FIELDS = List.of("id", "firstName", "lastName", "email", "departmentId");
+
+    /** Every field, department embedded: what reads returned before views existed. */
+    public static final EmployeeView FULL = new EmployeeView(ALL_FIELDS, true);
+
+    public static EmployeeView parse(String fields, String expand) {
+        return new EmployeeView(parseFields(fields), parseExpand(expand));
+    }
+
+    public boolean sparse() {
+        return !fields.containsAll(ALL_FIELDS);
+    }
+
+    // requested order is kept, so it is also the order of the keys in the response
+    private static List<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) return ALL_FIELDS;
+        List<String> out = new ArrayList<>();
+        for (String f : fields.split(",")) {
+            String name = f.trim();
+            if (name.isEmpty() || out.contains(name)) continue;
+            if (!ALL_FIELDS.contains(name)) {
+                throw new BadRequestException("unknown field '" + name + "'; fields must be among " + ALL_FIELDS);
+            }
+            out.add(name);
+        }
+        return out.isEmpty() ? ALL_FIELDS : List.copyOf(out);
+    }
+
+    private static boolean parseExpand(String expand) {
+        if (expand == null || expand.isBlank()) return false;
+        boolean department = false;
+        for (String e : Arrays.stream(expand.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList()) {
+            if (!e.equals("department")) throw new BadRequestException("expand supports only 'department'");
+            department = true;
+        }
+        return department;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.employee.service;
+
+import com.example.employee.repo.EmployeeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repairs drift between {@code department_headcount} and the employees table (manual SQL,
+ * triggers disabled during a restore, ...). One set-based statement; only one instance works at a time.
+ */
+@Component
+public class HeadcountReconciler {
+    private static final Logger log = LoggerFactory.getLogger(HeadcountReconciler.class);
+
+    private final EmployeeRepository repository;
+    private final Counter repairs;
+
+    public HeadcountReconciler(EmployeeRepository repository, MeterRegistry registry) {
+        this.repository = repository;
+        this.repairs = Counter.builder("employee.headcount.repairs")
+                .description("Departments whose headcount counter had drifted and was repaired")
+                .register(registry);
+    }
+
+    /** @return number of departments repaired, or -1 if another instance holds the lock */
+    @Scheduled(fixedDelayString = "${headcount.reconcile.interval:PT10M}",
+               initialDelayString = "${headcount.reconcile.initial-delay:PT1M}")
+    @Transactional
+    public int reconcile() {
+        if (!repository.tryLockHeadcounts()) return -1;
+        int repaired = repository.reconcileHeadcounts();
+        if (repaired > 0) {
+            repairs.increment(repaired);
+            log.warn("Headcount drift repaired for {} department(s)", repaired);
+        }
+        return repaired;
+    }
+}
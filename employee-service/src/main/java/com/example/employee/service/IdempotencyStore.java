@@ -1,28 +1,191 @@
 package com.example.employee.service;
 
+import com.example.employee.domain.IdempotencyKey;
+import com.example.employee.error.BadRequestException;
+import com.example.employee.error.BusinessConflictException;
+import com.example.employee.repo.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
+/**
+ * Idempotency-Key handling for writes.
+ * <ul>
+ *   <li>keys live in {@code employee.idempotency_keys} for {@code idempotency.ttl}, shared by all instances</li>
+ *   <li>the serialized response is stored with the key, so a replay needs no entity load or enrichment</li>
+ *   <li>a bounded local LRU answers repeated replays without a DB round trip</li>
+ *   <li>concurrent duplicates on this instance queue on a lock of their own key; across instances they
+ *       queue on the key's row, and either way they replay the first request's response once it commits.
+ *       Requests with other keys never wait for them</li>
+ * </ul>
+ * Must run inside the caller's transaction: the claim, the write and the stored response commit or roll back together.
+ */
 @Component
 public class IdempotencyStore {
-    private final ConcurrentMap<String, Long> keyToEmployeeId = new ConcurrentHashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
 
-    public Optional<Long> lookup(String key) {
-        if (key == null || key.isBlank()) return Optional.empty();
-        return Optional.ofNullable(keyToEmployeeId.get(key));
+    private static final int PURGE_BATCH = 5000;
+    private static final int MAX_KEY_LENGTH = 200; // idem_key VARCHAR(200), V7
+
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration lockTimeout;
+    private final Cache<String, Stored> recent;
+    // one lock per key in flight; weak values drop it once no request holds or waits for it
+    private final LoadingCache<String, ReentrantLock> locks = Caffeine.newBuilder()
+            .weakValues()
+            .build(key -> new ReentrantLock());
+
+    private record Stored(String requestHash, String responseJson, Instant expiresAt) {}
+
+    public IdempotencyStore(IdempotencyKeyRepository repository,
+                            ObjectMapper objectMapper,
+                            MeterRegistry registry,
+                            @Value("${idempotency.ttl:24h}") Duration ttl,
+                            @Value("${idempotency.lock-timeout:10s}") Duration lockTimeout,
+                            @Value("${idempotency.local.maximum-size:10000}") long maximumSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.lockTimeout = lockTimeout;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, recent, "idempotency");
+    }
+
+    /**
+     * Runs {@code action} once per key. Later calls with the same key and request get the first
+     * response back; the same key with a different request is a conflict.
+     */
+    public <T> T execute(String key, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = fingerprint(request);
+
+        Stored local = recent.getIfPresent(key);
+        if (local != null && local.expiresAt().isAfter(Instant.now())) {
+            return replay(local, requestHash, responseType);
+        }
+
+        ReentrantLock lock = locks.get(key);
+        acquire(lock);
+        boolean releaseOnCompletion = releaseOnCompletion(lock);
+        try {
+            Instant now = Instant.now();
+            if (repository.claim(key, requestHash, now, now.plus(ttl)) == 0) {
+                IdempotencyKey row = repository.findById(key)
+                        .filter(r -> r.getResponseJson() != null)
+                        .orElseThrow(() -> new BusinessConflictException(
+                                "A request with this Idempotency-Key is still in progress"));
+                Stored stored = new Stored(row.getRequestHash(), row.getResponseJson(), row.getExpiresAt());
+                recent.put(key, stored);
+                return replay(stored, requestHash, responseType);
+            }
+
+            T response = action.get();
+            String json = write(response);
+            repository.complete(key, json);
+            rememberAfterCommit(key, new Stored(requestHash, json, now.plus(ttl)));
+            return response;
+        } finally {
+            if (!releaseOnCompletion) lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:PT5M}")
+    @Transactional
+    public void purgeExpired() {
+        int removed = repository.purgeExpired(Instant.now(), PURGE_BATCH);
+        if (removed > 0) log.debug("Purged {} expired idempotency keys", removed);
+    }
+
+    private <T> T replay(Stored stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new BusinessConflictException("Idempotency-Key was already used with a different request");
+        }
+        try {
+            return objectMapper.readValue(stored.responseJson(), responseType);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Stored idempotent response is unreadable", ex);
+        }
+    }
+
+    private void acquire(ReentrantLock lock) {
+        try {
+            if (!lock.tryLock(lockTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new BusinessConflictException("A request with this Idempotency-Key is still in progress");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BusinessConflictException("Interrupted while waiting for a request with the same Idempotency-Key");
+        }
+    }
+
+    // hold the key's lock until commit/rollback so a waiting duplicate sees the committed row
+    private static boolean releaseOnCompletion(ReentrantLock lock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return false;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+        return true;
+    }
+
+    private void rememberAfterCommit(String key, Stored stored) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recent.put(key, stored);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recent.put(key, stored);
+            }
+        });
     }
 
-    public void remember(String key, Long employeeId) {
-        if (key == null || key.isBlank() || employeeId == null) return;
-        keyToEmployeeId.putIfAbsent(key, employeeId);
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Cannot fingerprint request", ex);
+        }
     }
 
-    /** Returns existing id if present; otherwise stores the provided id and returns it. */
-    public Long rememberOrGet(String key, Long employeeId) {
-        if (key == null || key.isBlank() || employeeId == null) return employeeId;
-        return keyToEmployeeId.computeIfAbsent(key, k -> employeeId);
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize idempotent response", ex);
+        }
     }
 }
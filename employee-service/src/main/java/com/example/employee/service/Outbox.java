@@ -0,0 +1,202 @@
+package com.example.employee.service;
+
+import com.example.employee.domain.outbox.OutboxDeadLetter;
+import com.example.employee.domain.outbox.OutboxDeadLetterRepository;
+import com.example.employee.domain.outbox.OutboxDelivery;
+import com.example.employee.domain.outbox.OutboxDeliveryRepository;
+import com.example.employee.domain.outbox.OutboxEvent;
+import com.example.employee.domain.outbox.OutboxEventRepository;
+import com.example.employee.dto.DeadLetterDTO;
+import com.example.employee.dto.events.IntegrationEvent;
+import com.example.employee.error.ResourceNotFoundException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The employee outbox: writers append events in their own transaction; relays fan each event out
+ * into one delivery per subscriber, claim due deliveries under a lease and settle them afterwards.
+ * Every relay step is its own short transaction; nothing is locked while events are on the wire.
+ * A delivery that fails {@code outbox.max-attempts} times moves to the dead letters, where it waits
+ * for an operator to requeue it.
+ */
+@Component
+public class Outbox {
+    private static final Logger log = LoggerFactory.getLogger(Outbox.class);
+
+    public static final String EMPLOYEE = "employee";
+
+    static final Duration BACKOFF_BASE = Duration.ofSeconds(2);
+    static final Duration BACKOFF_CAP = Duration.ofSeconds(60);
+
+    private final OutboxEventRepository repository;
+    private final OutboxDeliveryRepository deliveries;
+    private final OutboxDeadLetterRepository deadLetters;
+    private final ObjectMapper objectMapper;
+    private final int maxAttempts;
+
+    public Outbox(OutboxEventRepository repository,
+                  OutboxDeliveryRepository deliveries,
+                  OutboxDeadLetterRepository deadLetters,
+                  ObjectMapper objectMapper,
+                  @Value("${outbox.max-attempts:20}") int maxAttempts) {
+        this.repository = repository;
+        this.deliveries = deliveries;
+        this.deadLetters = deadLetters;
+        this.objectMapper = objectMapper;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /** A claimed delivery of one event to one subscriber. */
+    public record Pending(Long eventId, UUID eventUuid, Long aggregateId, String type, String payloadJson, int attemptCount) {}
+
+    /** A delivery attempt that did not succeed. */
+    public record Failure(Long eventId, int attemptCount, String error) {}
+
+    /** Records an event; joins (and requires) the transaction that makes the change. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> void append(String aggregateType, Long aggregateId, String type, T data) {
+        Instant now = Instant.now();
+        var event = new IntegrationEvent<>(UUID.randomUUID(), type, now, aggregateType, aggregateId, data);
+        repository.save(OutboxEvent.builder()
+                .eventId(event.eventId())
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .type(type)
+                .payloadJson(write(event))
+                .status(OutboxEvent.PENDING)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+    }
+
+    /** Creates a delivery per subscriber for up to {@code batch} new events; returns how many events were dispatched. */
+    @Transactional
+    public int fanOut(Collection<String> subscribers, int batch) {
+        if (subscribers.isEmpty() || !repository.tryLockFanOut()) return 0;
+        return repository.fanOut(String.join(",", subscribers), batch);
+    }
+
+    /**
+     * Claims up to {@code batch} due deliveries of {@code subscriber} for {@code owner} until
+     * now + {@code lease}, in event order, restricted to {@code freeLanes} out of {@code lanes}
+     * (lane = aggregate id mod lanes). Subscribers are claimed independently, so a backlog for one
+     * never crowds another out; a delivery whose aggregate has an earlier delivery still leased or
+     * backing off is left for later, so each aggregate's events go out in order.
+     */
+    @Transactional
+    public List<Pending> claim(String subscriber, String owner, Duration lease, int batch,
+                               int lanes, Collection<Integer> freeLanes) {
+        if (freeLanes.isEmpty() || !deliveries.tryLockClaims(subscriber)) return List.of();
+        Instant now = Instant.now();
+        List<Long> ids = deliveries.lockDue(subscriber, now, lanes, freeLanes, batch);
+        if (ids.isEmpty()) return List.of();
+        deliveries.lease(subscriber, ids, owner, now.plus(lease));
+        Map<Long, OutboxEvent> events = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(OutboxEvent::getId, Function.identity()));
+        return deliveries.findBySubscriberAndEventIdIn(subscriber, ids).stream()
+                .sorted(Comparator.comparing(OutboxDelivery::getEventId))
+                .map(d -> {
+                    OutboxEvent e = events.get(d.getEventId());
+                    return new Pending(e.getId(), e.getEventId(), e.getAggregateId(), e.getType(), e.getPayloadJson(),
+                            d.getAttemptCount());
+                })
+                .toList();
+    }
+
+    /**
+     * Records the outcome of one lane's batch: acked deliveries become SENT, failed ones are
+     * rescheduled with jittered backoff, deferred ones (never attempted) are released without using
+     * an attempt, and events delivered to every subscriber become SENT.
+     */
+    @Transactional
+    public void settle(String subscriber, String owner, Collection<Long> sent, Collection<Failure> failed,
+                       Collection<Long> deferred) {
+        Instant now = Instant.now();
+        if (!deferred.isEmpty()) deliveries.release(subscriber, deferred, owner);
+        if (!sent.isEmpty()) {
+            deliveries.markSent(subscriber, sent, owner, now);
+            repository.completeDelivered(sent);
+        }
+        List<Long> dead = new ArrayList<>();
+        for (Failure f : failed) {
+            int attempts = f.attemptCount() + 1;
+            if (attempts >= maxAttempts) {
+                if (deliveries.deadLetter(subscriber, f.eventId(), owner, now, f.error()) > 0) dead.add(f.eventId());
+            } else {
+                deliveries.markFailed(subscriber, f.eventId(), owner, now, now.plus(backoff(attempts)), f.error());
+            }
+        }
+        if (!dead.isEmpty()) {
+            log.warn("Dead-lettered {} deliveries to {} after {} attempts", dead.size(), subscriber, maxAttempts);
+            repository.completeDelivered(dead);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Page<DeadLetterDTO> deadLetters(String subscriber, Pageable pageable) {
+        Page<OutboxDeadLetter> page = subscriber == null || subscriber.isBlank()
+                ? deadLetters.findAll(pageable)
+                : deadLetters.findBySubscriber(subscriber, pageable);
+        return page.map(Outbox::toDTO);
+    }
+
+    @Transactional(readOnly = true)
+    public DeadLetterDTO deadLetter(Long id) {
+        return deadLetters.findById(id).map(Outbox::toDTO)
+                .orElseThrow(() -> new ResourceNotFoundException("Dead letter not found"));
+    }
+
+    /** Sends the dead letter to its subscriber again, with a fresh attempt budget. */
+    @Transactional
+    public void requeue(Long id) {
+        if (deadLetters.requeue(id) == 0) throw new ResourceNotFoundException("Dead letter not found");
+    }
+
+    /** Requeues every dead letter of {@code subscriber}; returns how many. */
+    @Transactional
+    public int requeueAll(String subscriber) {
+        int requeued = deadLetters.requeueAll(subscriber);
+        if (requeued > 0) log.info("Requeued {} dead letters for {}", requeued, subscriber);
+        return requeued;
+    }
+
+    /**
+     * Capped exponential backoff with equal jitter: half of min(cap, base * 2^(attempts-1)) plus a
+     * random share of the other half, so subscribers that failed together do not retry in lockstep.
+     */
+    static Duration backoff(int attempts) {
+        long ceiling = BACKOFF_BASE.toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(BACKOFF_CAP.toMillis(), ceiling);
+        long half = capped / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    private static DeadLetterDTO toDTO(OutboxDeadLetter d) {
+        return new DeadLetterDTO(d.getId(), d.getEventId(), d.getSubscriber(), d.getType(), d.getAggregateType(),
+                d.getAggregateId(), d.getAttemptCount(), d.getLastError(), d.getEventCreatedAt(), d.getDeadAt(),
+                d.getPayloadJson());
+    }
+
+    private String write(Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize integration event", ex);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.employee.service;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Wakes {@link OutboxRelay} (and parked {@link EmployeeChangeFeed} requests) when outbox rows commit: a daemon thread LISTENs on {@value #CHANNEL},
+ * which the outbox_event insert trigger notifies. It holds one dedicated connection outside the pool
+ * and reconnects with backoff; after every (re)connect it wakes the relay once to catch up on what
+ * committed while nobody was listening. The relay's scheduled poll stays as a slow safety net.
+ */
+@Component
+@ConditionalOnProperty(name = {"scheduling.enabled", "outbox.listen.enabled"}, havingValue = "true", matchIfMissing = true)
+public class OutboxListener implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(OutboxListener.class);
+
+    static final String CHANNEL = "employee_outbox";
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final OutboxRelay relay;
+    private final EmployeeChangeFeed changes;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final Duration keepalive;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread thread;
+
+    public OutboxListener(OutboxRelay relay,
+                          EmployeeChangeFeed changes,
+                          @Value("${spring.datasource.url}") String url,
+                          @Value("${spring.datasource.username:}") String username,
+                          @Value("${spring.datasource.password:}") String password,
+                          @Value("${outbox.listen.keepalive:30s}") Duration keepalive) {
+        this.relay = relay;
+        this.changes = changes;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.keepalive = keepalive;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::listen, "outbox-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void listen() {
+        long backoff = 1000;
+        while (running) {
+            try (Connection c = DriverManager.getConnection(url, username, password)) {
+                connection = c;
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pg = c.unwrap(PGConnection.class);
+                backoff = 1000;
+                log.info("Listening for outbox notifications on {}", CHANNEL);
+                wake("outbox relay", () -> relay.wake(null));
+
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) keepalive.toMillis());
+                    if (notifications == null || notifications.length == 0) {
+                        // nothing for a while; make sure the connection is still alive
+                        try (Statement st = c.createStatement()) {
+                            st.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+                    Instant notifiedAt = earliest(notifications);
+                    wake("outbox relay", () -> relay.wake(notifiedAt));
+                    wake("change feed", changes::wake);
+                }
+            } catch (SQLException ex) {
+                if (!running) return;
+                log.warn("Outbox listener connection lost; retrying in {} ms: {}", backoff, ex.toString());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    // a failed wake-up must not end the thread; the relay's poll and the next notification catch up
+    private static void wake(String what, Runnable wake) {
+        try {
+            wake.run();
+        } catch (RuntimeException ex) {
+            log.warn("Waking the {} failed; still listening", what, ex);
+        }
+    }
+
+    // payload is the epoch millis the trigger fired at; anything unparsable counts as "now"
+    private static Instant earliest(PGNotification[] notifications) {
+        Instant earliest = null;
+        for (PGNotification n : notifications) {
+            Instant at;
+            try {
+                at = Instant.ofEpochMilli(Long.parseLong(n.getParameter()));
+            } catch (NumberFormatException ex) {
+                at = Instant.now();
+            }
+            if (earliest == null || at.isBefore(earliest)) earliest = at;
+        }
+        return earliest;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        running = false;
+        Connection c = connection;
+        if (c != null) {
+            try {
+                c.close();   // unblocks getNotifications
+            } catch (SQLException ignored) {
+                // shutting down anyway
+            }
+        }
+        if (thread != null) thread.interrupt();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.employee.service;
+
+import com.example.employee.domain.outbox.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Keeps the outbox's daily partitions created {@code outbox.partitions-ahead} days ahead and drops
+ * days older than {@code outbox.retention} once nothing in them is left to deliver. Dropping a
+ * partition is cheap and leaves no dead tuples behind, unlike deleting SENT rows.
+ */
+@Component
+public class OutboxMaintenance {
+    private static final Logger log = LoggerFactory.getLogger(OutboxMaintenance.class);
+
+    private final OutboxEventRepository repository;
+    private final Duration retention;
+    private final int daysAhead;
+    private final Counter dropped;
+
+    public OutboxMaintenance(OutboxEventRepository repository,
+                             MeterRegistry registry,
+                             @Value("${outbox.retention:14d}") Duration retention,
+                             @Value("${outbox.partitions-ahead:3}") int daysAhead) {
+        this.repository = repository;
+        this.retention = retention;
+        this.daysAhead = daysAhead;
+        this.dropped = Counter.builder("outbox.partitions.dropped")
+                .description("Daily outbox partitions dropped by retention")
+                .register(registry);
+    }
+
+    /** @return partitions dropped, or -1 if another instance holds the lock */
+    @Scheduled(fixedDelayString = "${outbox.maintenance-interval:PT1H}")
+    @Transactional
+    public int maintain() {
+        if (!repository.tryLockMaintenance()) return -1;
+        int created = repository.ensurePartitions(daysAhead);
+        int removed = repository.dropPartitions(Instant.now().minus(retention));
+        if (created > 0) log.info("Created {} outbox partition(s)", created);
+        if (removed > 0) {
+            dropped.increment(removed);
+            log.info("Dropped {} outbox partition(s) older than {}", removed, retention);
+        }
+        return removed;
+    }
+}
@@ -1,66 +1,404 @@
 package com.example.employee.service;
 
-import com.example.employee.domain.outbox.OutboxEvent;
-import com.example.employee.domain.outbox.OutboxEventRepository;
+import com.example.employee.dto.events.EventAck;
+import com.example.employee.dto.events.EventBatchResult;
+import com.example.employee.dto.events.EventCapabilities;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Delivers outbox events to every subscriber over HTTP. Any number of instances can run this.
+ * <ul>
+ *   <li>each pass fans new events out into per-subscriber deliveries, then every subscriber claims
+ *       its own due batch (SKIP LOCKED + lease), so its retries and backoff never hold back the others</li>
+ *   <li>a subscriber's deliveries are split into {@code outbox.lanes} ordered lanes by aggregate id
+ *       (employee id mod lanes). A lane sends its events one request at a time, in event order, and
+ *       stops an aggregate at its first failure; lanes run in parallel on the subscriber's own pool,
+ *       so each employee's events arrive in order while different employees go out concurrently</li>
+ *   <li>a lane settles on its own and is claimed for again as soon as it is free; a stuck lane holds
+ *       only its own aggregates back, never other lanes or other subscribers</li>
+ *   <li>passes are triggered by {@link #wake} from {@link OutboxListener} as soon as outbox rows commit;
+ *       the {@code outbox.poll-interval} schedule is only a safety net for lost notifications. A full
+ *       claim, or a wake-up that found lanes busy, runs the subscriber again once a lane frees up</li>
+ *   <li>with {@code outbox.batch.max-events > 1}, subscribers that advertise batch support at
+ *       {@code GET <url>/capabilities} get up to that many events of a lane per {@code POST <url>/batch}
+ *       and ack each one; a short claim waits {@code outbox.batch.linger} to fill up. Other subscribers,
+ *       or a batch endpoint that disappears, get one POST per event. Receivers are expected to apply a
+ *       batch in order and stop an aggregate at its first failure.</li>
+ * </ul>
+ * Subscribers are configured as {@code name=url}; the name keys the delivery rows, so it must stay
+ * stable when the URL changes. Per-lane traffic is exported as {@code outbox.lane.deliveries} and
+ * {@code outbox.lane.busy}, tagged with subscriber and lane.
+ */
 @Component
-public class OutboxRelay {
+public class OutboxRelay implements DisposableBean {
     private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
 
-    private final OutboxEventRepository repo;
-    private final RestTemplate http = new RestTemplate();
+    private final Outbox outbox;
+    private final RestTemplate http;
+    private final MeterRegistry registry;
+    private final Duration lease;
+    private final int batchSize;
+    private final int laneCount;
+    private final int maxBatchEvents;
+    private final Duration linger;
+    private final Duration probeInterval;
+    private final List<Subscriber> subscribers;
+    private final List<String> names;
+    private final String owner = "relay-" + UUID.randomUUID();
+    private final Timer notifyLatency;
+    private final ExecutorService waker;
+    private final AtomicReference<Instant> wokenAt = new AtomicReference<>();
 
-    // You can move these to config-server later; hardcode for now to keep it simple
-    private final List<String> subscribers = List.of(
-            "http://department-service/events/employee",
-            "http://project-service/events/employee"
-    );
+    private static final class Subscriber {
+        final String name;
+        final String url;
+        final ExecutorService pool;               // one thread per lane: at most one request in flight per lane
+        final Lane[] lanes;
+        final AtomicBoolean again = new AtomicBoolean();
+        volatile int batchLimit;                  // events per request the subscriber accepts; <= 1 means one POST per event
+        volatile Instant probedAt = Instant.EPOCH;
 
-    public OutboxRelay(OutboxEventRepository repo) { this.repo = repo; }
+        Subscriber(String name, String url, ExecutorService pool, Lane[] lanes) {
+            this.name = name;
+            this.url = url;
+            this.pool = pool;
+            this.lanes = lanes;
+        }
+    }
+
+    // one ordered slice of a subscriber's deliveries
+    private static final class Lane {
+        final int index;
+        final AtomicBoolean busy = new AtomicBoolean();
+        final Counter sent;
+        final Counter failed;
+        final Counter deferred;
+
+        Lane(int index, Counter sent, Counter failed, Counter deferred) {
+            this.index = index;
+            this.sent = sent;
+            this.failed = failed;
+            this.deferred = deferred;
+        }
+    }
 
-    @Scheduled(fixedDelay = 2000) // run every 2s
-    @Transactional
+    private record Outcome(Outbox.Pending delivery, String error, boolean attempted) {}
+
+    public OutboxRelay(Outbox outbox,
+                       RestTemplate http,
+                       MeterRegistry registry,
+                       @Value("${outbox.subscribers:department=http://department-service/events/employee,project=http://project-service/events/employee}")
+                       List<String> subscribers,
+                       @Value("${outbox.lease:60s}") Duration lease,
+                       @Value("${outbox.batch-size:100}") int batchSize,
+                       @Value("${outbox.lanes:8}") int laneCount,
+                       @Value("${outbox.batch.max-events:0}") int maxBatchEvents,
+                       @Value("${outbox.batch.linger:0ms}") Duration linger,
+                       @Value("${outbox.batch.probe-interval:5m}") Duration probeInterval) {
+        this.outbox = outbox;
+        this.http = http;
+        this.registry = registry;
+        this.lease = lease;
+        this.batchSize = batchSize;
+        this.laneCount = laneCount;
+        this.maxBatchEvents = maxBatchEvents;
+        this.linger = linger;
+        this.probeInterval = probeInterval;
+        this.subscribers = subscribers.stream().map(s -> subscriber(s.trim())).toList();
+        this.names = this.subscribers.stream().map(s -> s.name).toList();
+        this.notifyLatency = Timer.builder("outbox.notify.latency")
+                .description("From the outbox insert notification to the end of the relay pass it triggered")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        var threads = new CustomizableThreadFactory("outbox-wake-");
+        threads.setDaemon(true);
+        this.waker = Executors.newSingleThreadExecutor(threads);
+    }
+
+    /** URL of the configured subscriber {@code name}, if there is one. */
+    public Optional<String> subscriberUrl(String name) {
+        return subscribers.stream().filter(s -> s.name.equals(name)).map(s -> s.url).findFirst();
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval:PT30S}")
     public void deliver() {
-        var due = repo.findDue(Instant.now());
-        for (OutboxEvent e : due) {
-            boolean allOk = true;
-            for (String url : subscribers) {
-                try {
-                    HttpHeaders h = new HttpHeaders();
-                    h.setContentType(MediaType.APPLICATION_JSON);
-                    h.set("X-Event-Type", e.getType());
-                    var req = new HttpEntity<>(e.getPayloadJson(), h);
-                    var resp = http.postForEntity(url, req, String.class);
-                    if (!resp.getStatusCode().is2xxSuccessful()) throw new RuntimeException("Non-2xx");
-                } catch (Exception ex) {
-                    allOk = false;
-                    int attempts = e.getAttemptCount() + 1;
-                    e.setAttemptCount(attempts);
-                    e.setLastAttemptAt(Instant.now());
-                    e.setStatus("FAILED");
-                    long backoffSec = (long) Math.min(60, Math.pow(2, attempts)); // capped exponential
-                    e.setNextAttemptAt(Instant.now().plus(Duration.ofSeconds(backoffSec)));
-                    log.warn("Delivery failed; id={}, attempt={}, will retry in {}s; to={} err={}",
-                            e.getId(), attempts, backoffSec, url, ex.toString());
+        deliverOnce();
+    }
+
+    /**
+     * Requests a pass as soon as possible. Wake-ups arriving while one is queued are coalesced into it;
+     * {@code notifiedAt} (the earliest one wins) starts the {@code outbox.notify.latency} clock.
+     */
+    public void wake(Instant notifiedAt) {
+        Instant at = notifiedAt == null ? Instant.now() : notifiedAt;
+        Instant queued = wokenAt.getAndAccumulate(at, (cur, next) -> cur == null || next.isBefore(cur) ? next : cur);
+        if (queued != null) return;
+        waker.execute(() -> {
+            Instant since = wokenAt.getAndSet(null);
+            deliverOnce().whenComplete((v, ex) -> notifyLatency.record(Duration.between(since, Instant.now())));
+        });
+    }
+
+    /** One relay pass; the future completes when every lane that started a batch has settled it. */
+    CompletableFuture<Void> deliverOnce() {
+        try {
+            outbox.fanOut(names, batchSize);
+        } catch (RuntimeException ex) {
+            log.warn("Outbox fan-out failed: {}", ex.toString());
+        }
+        return CompletableFuture.allOf(subscribers.stream().map(this::pass).toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> pass(Subscriber s) {
+        // lanes still in flight run the subscriber again when they settle
+        s.again.set(true);
+        List<Lane> free = new ArrayList<>();
+        for (Lane lane : s.lanes) {
+            if (lane.busy.compareAndSet(false, true)) free.add(lane);
+        }
+        if (free.isEmpty()) return CompletableFuture.completedFuture(null);
+        boolean allFree = free.size() == s.lanes.length;
+        if (allFree) s.again.set(false);
+
+        int limit = negotiate(s);
+        int claimSize = limit > 1 ? Math.max(batchSize, limit * free.size()) : batchSize;
+        List<Integer> freeIndexes = free.stream().map(l -> l.index).toList();
+        List<Outbox.Pending> due;
+        try {
+            due = outbox.claim(s.name, owner, lease, claimSize, laneCount, freeIndexes);
+        } catch (RuntimeException ex) {
+            free.forEach(l -> l.busy.set(false));
+            log.warn("Outbox claim failed; subscriber={} err={}", s.name, ex.toString());
+            return CompletableFuture.completedFuture(null);
+        }
+        if (due.isEmpty()) {
+            free.forEach(l -> l.busy.set(false));
+            // a wake-up that raced the claim may have committed rows the claim did not see; with lanes
+            // still in flight, the first of them to settle picks it up instead
+            return allFree && s.again.getAndSet(false) ? pass(s) : CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<List<Outbox.Pending>> batch = limit > 1 && due.size() < limit && !linger.isZero()
+                ? CompletableFuture.supplyAsync(() -> topUp(s, due, limit, freeIndexes),
+                        CompletableFuture.delayedExecutor(linger.toMillis(), TimeUnit.MILLISECONDS, s.pool))
+                : CompletableFuture.completedFuture(due);
+        boolean full = due.size() >= claimSize;
+        return batch.thenCompose(claimed -> dispatch(s, free, claimed, limit, full));
+    }
+
+    // hands each free lane its share of the claim, in event order; lanes with nothing to do are freed at once
+    private CompletableFuture<Void> dispatch(Subscriber s, List<Lane> free, List<Outbox.Pending> claimed,
+                                             int limit, boolean full) {
+        Map<Integer, List<Outbox.Pending>> byLane = claimed.stream()
+                .collect(Collectors.groupingBy(d -> laneOf(d.aggregateId()), LinkedHashMap::new, Collectors.toList()));
+        // stop sending near the lease end; unsent deliveries are released and re-claimed
+        Instant cutoff = Instant.now().plus(lease).minus(lease.dividedBy(10));
+        List<CompletableFuture<Void>> runs = new ArrayList<>();
+        for (Lane lane : free) {
+            List<Outbox.Pending> mine = byLane.getOrDefault(lane.index, List.of());
+            if (mine.isEmpty()) {
+                lane.busy.set(false);
+                continue;
+            }
+            runs.add(CompletableFuture.supplyAsync(() -> deliverLane(s, mine, limit, cutoff), s.pool)
+                    .thenAccept(outcomes -> settle(s, lane, outcomes))
+                    .whenComplete((v, ex) -> {
+                        lane.busy.set(false);
+                        if (ex != null) log.warn("Outbox lane failed; subscriber={} lane={} err={}", s.name, lane.index, ex.toString());
+                        boolean woken = s.again.getAndSet(false);
+                        if (woken || (ex == null && full)) pass(s);
+                    }));
+        }
+        return CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new));
+    }
+
+    // claims what became due during the linger; the first claim is still leased, so nothing is claimed twice
+    private List<Outbox.Pending> topUp(Subscriber s, List<Outbox.Pending> due, int limit, List<Integer> lanes) {
+        try {
+            List<Outbox.Pending> more = outbox.claim(s.name, owner, lease, limit - due.size(), laneCount, lanes);
+            if (more.isEmpty()) return due;
+            List<Outbox.Pending> all = new ArrayList<>(due);
+            all.addAll(more);
+            return all;
+        } catch (RuntimeException ex) {
+            log.warn("Outbox top-up claim failed; subscriber={} err={}", s.name, ex.toString());
+            return due;
+        }
+    }
+
+    // sequential: once an aggregate fails, its later events in this run are deferred, not sent
+    private List<Outcome> deliverLane(Subscriber s, List<Outbox.Pending> due, int limit, Instant cutoff) {
+        Set<Long> blocked = new HashSet<>();
+        List<Outcome> outcomes = new ArrayList<>(due.size());
+        int step = Math.max(1, limit);
+        for (int from = 0; from < due.size(); from += step) {
+            List<Outbox.Pending> chunk = due.subList(from, Math.min(due.size(), from + step));
+            List<Outbox.Pending> sendable = new ArrayList<>(chunk.size());
+            for (Outbox.Pending d : chunk) {
+                if (blocked.contains(d.aggregateId()) || Instant.now().isAfter(cutoff)) {
+                    outcomes.add(new Outcome(d, null, false));
+                } else {
+                    sendable.add(d);
                 }
             }
-            if (allOk) {
-                e.setStatus("SENT");
-                e.setLastAttemptAt(Instant.now());
-                e.setNextAttemptAt(null);
+            if (sendable.isEmpty()) continue;
+            List<Outcome> results = limit > 1 ? sendBatch(s, sendable) : List.of(sendOne(s, sendable.get(0)));
+            for (Outcome o : results) {
+                if (o.error() != null) blocked.add(o.delivery().aggregateId());
+                outcomes.add(o);
             }
-            repo.save(e);
         }
+        return outcomes;
+    }
+
+    private Outcome sendOne(Subscriber s, Outbox.Pending d) {
+        try {
+            HttpHeaders h = new HttpHeaders();
+            h.setContentType(MediaType.APPLICATION_JSON);
+            h.set("X-Event-Type", d.type());
+            h.set("X-Event-Id", d.eventUuid().toString());
+            var resp = http.postForEntity(s.url, new HttpEntity<>(d.payloadJson(), h), String.class);
+            if (!resp.getStatusCode().is2xxSuccessful()) throw new RuntimeException("Non-2xx");
+            return new Outcome(d, null, true);
+        } catch (Exception ex) {
+            log.warn("Delivery failed; id={}, attempt={}; to={} err={}",
+                    d.eventId(), d.attemptCount() + 1, s.name, ex.toString());
+            return new Outcome(d, ex.toString(), true);
+        }
+    }
+
+    private List<Outcome> sendBatch(Subscriber s, List<Outbox.Pending> chunk) {
+        try {
+            HttpHeaders h = new HttpHeaders();
+            h.setContentType(MediaType.APPLICATION_JSON);
+            // payloads are already serialized envelopes; splice them instead of re-encoding
+            String body = chunk.stream().map(Outbox.Pending::payloadJson)
+                    .collect(Collectors.joining(",", "{\"events\":[", "]}"));
+            var resp = http.postForEntity(s.url + "/batch", new HttpEntity<>(body, h), EventBatchResult.class);
+            EventBatchResult result = resp.getBody();
+            Map<UUID, EventAck> acks = result == null || result.acks() == null ? Map.of()
+                    : result.acks().stream().collect(Collectors.toMap(EventAck::eventId, Function.identity(), (a, b) -> b));
+            List<Outcome> outcomes = new ArrayList<>(chunk.size());
+            for (Outbox.Pending d : chunk) {
+                EventAck ack = acks.get(d.eventUuid());
+                if (ack != null && ack.acked()) {
+                    outcomes.add(new Outcome(d, null, true));
+                } else {
+                    String error = ack == null ? "no ack in batch response" : ack.status() + ": " + ack.error();
+                    outcomes.add(new Outcome(d, error, true));
+                }
+            }
+            return outcomes;
+        } catch (HttpClientErrorException ex) {
+            if (ex.getStatusCode().value() == 404 || ex.getStatusCode().value() == 405 || ex.getStatusCode().value() == 415) {
+                // the subscriber no longer speaks batch; defer the chunk and fall back until the next probe
+                log.info("Subscriber {} rejected batch delivery ({}); falling back to single events", s.name, ex.getStatusCode());
+                s.batchLimit = 0;
+                s.probedAt = Instant.now();
+                return chunk.stream().map(d -> new Outcome(d, null, false)).toList();
+            }
+            return failed(s, chunk, ex);
+        } catch (Exception ex) {
+            return failed(s, chunk, ex);
+        }
+    }
+
+    private List<Outcome> failed(Subscriber s, List<Outbox.Pending> chunk, Exception ex) {
+        log.warn("Batch delivery failed; events={} to={} err={}", chunk.size(), s.name, ex.toString());
+        return chunk.stream().map(d -> new Outcome(d, ex.toString(), true)).toList();
+    }
+
+    /** Events per request for this subscriber, re-probing its capabilities every {@code probeInterval}. */
+    private int negotiate(Subscriber s) {
+        if (maxBatchEvents <= 1) return 1;
+        Instant now = Instant.now();
+        if (s.probedAt.plus(probeInterval).isAfter(now)) return s.batchLimit;
+        s.probedAt = now;
+        try {
+            EventCapabilities caps = http.getForObject(s.url + "/capabilities", EventCapabilities.class);
+            s.batchLimit = caps != null && caps.batch()
+                    ? Math.min(maxBatchEvents, caps.maxEvents() > 0 ? caps.maxEvents() : maxBatchEvents)
+                    : 0;
+        } catch (Exception ex) {
+            log.debug("Subscriber {} has no batch capabilities: {}", s.name, ex.toString());
+            s.batchLimit = 0;
+        }
+        return s.batchLimit;
+    }
+
+    private void settle(Subscriber s, Lane lane, List<Outcome> outcomes) {
+        List<Long> sent = new ArrayList<>();
+        List<Outbox.Failure> failed = new ArrayList<>();
+        List<Long> deferred = new ArrayList<>();
+        for (Outcome o : outcomes) {
+            if (!o.attempted()) deferred.add(o.delivery().eventId());
+            else if (o.error() == null) sent.add(o.delivery().eventId());
+            else failed.add(new Outbox.Failure(o.delivery().eventId(), o.delivery().attemptCount(), o.error()));
+        }
+        outbox.settle(s.name, owner, sent, failed, deferred);
+        lane.sent.increment(sent.size());
+        lane.failed.increment(failed.size());
+        lane.deferred.increment(deferred.size());
+    }
+
+    int laneOf(Long aggregateId) {
+        return (int) Math.floorMod(aggregateId, (long) laneCount);
+    }
+
+    @Override
+    public void destroy() {
+        waker.shutdown();
+        subscribers.forEach(s -> s.pool.shutdown());
+    }
+
+    private Subscriber subscriber(String subscriber) {
+        int eq = subscriber.indexOf('=');
+        String name = eq < 0 ? subscriber : subscriber.substring(0, eq).trim();
+        String url = eq < 0 ? subscriber : subscriber.substring(eq + 1).trim();
+        var threads = new CustomizableThreadFactory("outbox-" + name + "-");
+        threads.setDaemon(true);
+        Lane[] lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String lane = Integer.toString(i);
+            Lane l = new Lane(i, deliveries(name, lane, "sent"), deliveries(name, lane, "failed"), deliveries(name, lane, "deferred"));
+            Gauge.builder("outbox.lane.busy", l, x -> x.busy.get() ? 1 : 0)
+                    .description("1 while the lane has a batch in flight")
+                    .tags("subscriber", name, "lane", lane)
+                    .register(registry);
+            lanes[i] = l;
+        }
+        return new Subscriber(name, url, Executors.newFixedThreadPool(laneCount, threads), lanes);
+    }
+
+    private Counter deliveries(String subscriber, String lane, String outcome) {
+        return Counter.builder("outbox.lane.deliveries")
+                .description("Outbox deliveries settled per subscriber lane")
+                .tags("subscriber", subscriber, "lane", lane, "outcome", outcome)
+                .register(registry);
     }
 }
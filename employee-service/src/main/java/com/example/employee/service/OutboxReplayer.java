@@ -0,0 +1,272 @@
+package com.example.employee.service;
+
+import com.example.employee.domain.outbox.OutboxEventRepository;
+import com.example.employee.domain.outbox.OutboxEventRow;
+import com.example.employee.dto.events.EventAck;
+import com.example.employee.dto.events.EventBatchResult;
+import com.example.employee.dto.events.EventCapabilities;
+import com.example.employee.error.BadRequestException;
+import com.example.employee.error.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Re-sends every outbox event created in [from, to) to one subscriber, e.g. so a new consumer can
+ * build its read model from history. Bypasses the relay entirely: no delivery rows, no leases, and
+ * its own threads, so the live relay is not slowed down.
+ * <ul>
+ *   <li>rows are read in keyset pages of {@code outbox.replay.page-size}, each its own short query,
+ *       so no snapshot is held open for the length of the replay</li>
+ *   <li>events are spread over {@code outbox.replay.parallelism} ordered lanes by aggregate id, so
+ *       each aggregate's events still arrive in order</li>
+ *   <li>batches are used if the subscriber advertises them; failed events are retried a few times
+ *       and then reported, never dead-lettered</li>
+ * </ul>
+ * Only days still within {@code outbox.retention} can be replayed.
+ */
+@Component
+public class OutboxReplayer {
+    private static final Logger log = LoggerFactory.getLogger(OutboxReplayer.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 500;
+
+    private final OutboxEventRepository repository;
+    private final OutboxRelay relay;
+    private final RestTemplate http;
+    private final ObjectMapper objectMapper;
+    private final int pageSize;
+    private final int parallelism;
+    private final int maxBatchEvents;
+
+    /** A validated replay request; {@code batch} is the events per request the subscriber accepts. */
+    public record Plan(String subscriber, String url, Instant from, Instant to, int batch) {}
+
+    public OutboxReplayer(OutboxEventRepository repository,
+                          OutboxRelay relay,
+                          RestTemplate http,
+                          ObjectMapper objectMapper,
+                          @Value("${outbox.replay.page-size:2000}") int pageSize,
+                          @Value("${outbox.replay.parallelism:4}") int parallelism,
+                          @Value("${outbox.replay.max-events:500}") int maxBatchEvents) {
+        this.repository = repository;
+        this.relay = relay;
+        this.http = http;
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+        this.parallelism = parallelism;
+        this.maxBatchEvents = maxBatchEvents;
+    }
+
+    /** Validates the request and negotiates batching before anything is streamed back. */
+    public Plan plan(String subscriber, Instant from, Instant to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new BadRequestException("from must be before to");
+        }
+        String url = relay.subscriberUrl(subscriber)
+                .orElseThrow(() -> new ResourceNotFoundException("Unknown subscriber: " + subscriber));
+        int batch = 1;
+        try {
+            EventCapabilities caps = http.getForObject(url + "/capabilities", EventCapabilities.class);
+            if (caps != null && caps.batch()) batch = Math.min(maxBatchEvents, caps.maxEvents() > 0 ? caps.maxEvents() : maxBatchEvents);
+        } catch (Exception ex) {
+            log.debug("Subscriber {} has no batch capabilities: {}", subscriber, ex.toString());
+        }
+        return new Plan(subscriber, url, from, to, batch);
+    }
+
+    /**
+     * Runs the replay, writing NDJSON to {@code out}: a progress line per page, a line per event that
+     * could not be delivered, and a summary line at the end.
+     */
+    public void run(Plan plan, OutputStream out) throws IOException {
+        Progress progress = new Progress(out);
+        long started = System.nanoTime();
+        ExecutorService[] lanes = new ExecutorService[parallelism];
+        Semaphore[] windows = new Semaphore[parallelism];
+        List<List<OutboxEventRow>> buffers = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            var threads = new CustomizableThreadFactory("outbox-replay-" + i + "-");
+            threads.setDaemon(true);
+            lanes[i] = Executors.newSingleThreadExecutor(threads);
+            windows[i] = new Semaphore(2);   // one request in flight, one queued behind it
+            buffers.add(new ArrayList<>(plan.batch()));
+        }
+
+        try {
+            Instant afterCreatedAt = plan.from();
+            long afterId = -1;
+            while (true) {
+                List<OutboxEventRow> page = repository.replayPage(plan.from(), plan.to(), afterCreatedAt, afterId,
+                        PageRequest.of(0, pageSize));
+                for (OutboxEventRow row : page) {
+                    int lane = Math.floorMod(Long.hashCode(row.aggregateId()), parallelism);
+                    List<OutboxEventRow> buffer = buffers.get(lane);
+                    buffer.add(row);
+                    if (buffer.size() >= plan.batch()) {
+                        submit(plan, lanes[lane], windows[lane], List.copyOf(buffer), progress);
+                        buffer.clear();
+                    }
+                }
+                progress.read.addAndGet(page.size());
+                if (page.isEmpty()) break;
+                OutboxEventRow last = page.get(page.size() - 1);
+                afterCreatedAt = last.createdAt();
+                afterId = last.id();
+                progress.line(progress.snapshot("progress", last.createdAt()));
+                if (page.size() < pageSize) break;
+            }
+            for (int i = 0; i < parallelism; i++) {
+                if (!buffers.get(i).isEmpty()) submit(plan, lanes[i], windows[i], List.copyOf(buffers.get(i)), progress);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Replay interrupted", ex);
+        } finally {
+            for (ExecutorService lane : lanes) lane.shutdown();
+            for (ExecutorService lane : lanes) awaitQuietly(lane);
+        }
+
+        Map<String, Object> summary = progress.snapshot("done", null);
+        summary.put("subscriber", plan.subscriber());
+        summary.put("from", plan.from());
+        summary.put("to", plan.to());
+        summary.put("batch", plan.batch());
+        summary.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        progress.line(summary);
+        log.info("Replayed {} events to {} ({} failed)", progress.sent.get(), plan.subscriber(), progress.failed.get());
+    }
+
+    // blocks the reader while the lane already has a request in flight and one queued
+    private void submit(Plan plan, ExecutorService lane, Semaphore window, List<OutboxEventRow> events,
+                        Progress progress) throws InterruptedException {
+        window.acquire();
+        lane.execute(() -> {
+            try {
+                deliver(plan, events, progress);
+            } finally {
+                window.release();
+            }
+        });
+    }
+
+    private void deliver(Plan plan, List<OutboxEventRow> events, Progress progress) {
+        Map<OutboxEventRow, String> failed = new LinkedHashMap<>();
+        List<OutboxEventRow> pending = events;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            if (attempt > 1 && !sleep(RETRY_DELAY_MS * (attempt - 1))) break;
+            failed = send(plan, pending);
+            pending = List.copyOf(failed.keySet());
+        }
+        progress.sent.addAndGet(events.size() - failed.size());
+        progress.failed.addAndGet(failed.size());
+        failed.forEach((row, error) -> progress.line(Map.of(
+                "eventId", row.eventId(), "type", row.type(), "createdAt", row.createdAt(), "error", error)));
+    }
+
+    // returns the events that were not acked, with the reason
+    private Map<OutboxEventRow, String> send(Plan plan, List<OutboxEventRow> events) {
+        Map<OutboxEventRow, String> failed = new LinkedHashMap<>();
+        HttpHeaders h = new HttpHeaders();
+        h.setContentType(MediaType.APPLICATION_JSON);
+        if (plan.batch() > 1) {
+            try {
+                String body = events.stream().map(OutboxEventRow::payloadJson)
+                        .collect(Collectors.joining(",", "{\"events\":[", "]}"));
+                EventBatchResult result = http.postForObject(plan.url() + "/batch", new HttpEntity<>(body, h), EventBatchResult.class);
+                Map<UUID, EventAck> acks = result == null || result.acks() == null ? Map.of()
+                        : result.acks().stream().collect(Collectors.toMap(EventAck::eventId, Function.identity(), (a, b) -> b));
+                for (OutboxEventRow row : events) {
+                    EventAck ack = acks.get(row.eventId());
+                    if (ack == null) failed.put(row, "no ack in batch response");
+                    else if (!ack.acked()) failed.put(row, ack.status() + ": " + ack.error());
+                }
+            } catch (Exception ex) {
+                events.forEach(row -> failed.put(row, ex.toString()));
+            }
+            return failed;
+        }
+        for (OutboxEventRow row : events) {
+            try {
+                h.set("X-Event-Type", row.type());
+                h.set("X-Event-Id", row.eventId().toString());
+                http.postForEntity(plan.url(), new HttpEntity<>(row.payloadJson(), h), String.class);
+            } catch (Exception ex) {
+                failed.put(row, ex.toString());
+            }
+        }
+        return failed;
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void awaitQuietly(ExecutorService lane) {
+        try {
+            lane.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // lanes report failures while the reader reports progress; lines must not interleave
+    private final class Progress {
+        final OutputStream out;
+        final AtomicLong read = new AtomicLong();
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+
+        Progress(OutputStream out) {
+            this.out = out;
+        }
+
+        Map<String, Object> snapshot(String status, Instant through) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("status", status);
+            line.put("read", read.get());
+            line.put("sent", sent.get());
+            line.put("failed", failed.get());
+            if (through != null) line.put("through", through);
+            return line;
+        }
+
+        synchronized void line(Object value) {
+            try {
+                out.write(objectMapper.writeValueAsBytes(value));
+                out.write('\n');
+                out.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
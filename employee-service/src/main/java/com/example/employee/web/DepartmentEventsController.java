@@ -0,0 +1,31 @@
+package com.example.employee.web;
+
+import com.example.employee.service.DepartmentCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Department-change notifications. Department-service (or an operator) posts here
+ * whenever a department is updated or deleted so the near-cache drops the stale copy.
+ */
+@RestController
+@RequestMapping("/events/department")
+@RequiredArgsConstructor
+public class DepartmentEventsController {
+
+    private final DepartmentCache departmentCache;
+
+    // body {"id": 7} invalidates one department; an empty body (or no id) flushes the whole cache
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void onDepartmentChanged(@RequestBody(required = false) JsonNode payload) {
+        JsonNode id = payload == null ? null : payload.path("id");
+        if (id == null || !id.canConvertToLong()) {
+            departmentCache.invalidateAll();
+        } else {
+            departmentCache.invalidate(id.asLong());
+        }
+    }
+}
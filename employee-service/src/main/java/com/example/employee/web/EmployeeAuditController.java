@@ -0,0 +1,36 @@
+package com.example.employee.web;
+
+import com.example.employee.dto.CursorPage;
+import com.example.employee.dto.EmployeeAuditDTO;
+import com.example.employee.service.EmployeeAuditTrail;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/v1/employees/{id}/audit")
+@RequiredArgsConstructor
+public class EmployeeAuditController {
+
+    private final EmployeeAuditTrail audit;
+
+    // GET /api/v1/employees/{id}/audit[?limit=50][&before=<token>] -> newest first; follow "next" until it is null.
+    // Deleted employees keep their history.
+    @GetMapping
+    public CursorPage<EmployeeAuditDTO> history(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam Optional<String> before
+    ) {
+        return audit.history(id, before.orElse(null), limit,
+                token -> ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("before", token)
+                        .toUriString());
+    }
+}
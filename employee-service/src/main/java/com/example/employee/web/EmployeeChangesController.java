@@ -0,0 +1,45 @@
+package com.example.employee.web;
+
+import com.example.employee.dto.EmployeeChangesDTO;
+import com.example.employee.service.EmployeeChangeFeed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/v1/employees/changes")
+@RequiredArgsConstructor
+public class EmployeeChangesController {
+
+    private final EmployeeChangeFeed feed;
+
+    // GET /api/v1/employees/changes -> {"changes": [], "next": "<token>"}: take the token, then load a snapshot
+    // GET /api/v1/employees/changes?since=<token>[&limit=500][&wait=30] -> changes after the token; with
+    // wait (seconds) and nothing new, the request is held until a change commits or the wait elapses
+    @GetMapping
+    public DeferredResult<EmployeeChangesDTO> changes(
+            @RequestParam Optional<String> since,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(defaultValue = "0") int wait
+    ) {
+        return feed.poll(since.orElse(null), limit, Duration.ofSeconds(wait));
+    }
+
+    // GET /api/v1/employees/changes/stream[?since=<token>] -> text/event-stream; reconnects resume from Last-Event-ID
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @RequestParam Optional<String> since,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        return feed.stream(lastEventId != null ? lastEventId : since.orElse(null));
+    }
+}
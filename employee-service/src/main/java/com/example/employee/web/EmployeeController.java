@@ -1,16 +1,24 @@
 package com.example.employee.web;
 
+import com.example.employee.dto.CursorPage;
 import com.example.employee.dto.DepartmentStatsDTO;
+import com.example.employee.dto.EmployeeBulkUpdateDTO;
+import com.example.employee.dto.EmployeeBulkUpdateResultDTO;
 import com.example.employee.dto.EmployeeDTO;
 import com.example.employee.dto.EmployeePatchDTO;
+import com.example.employee.dto.EmployeeSuggestionDTO;
 import com.example.employee.service.EmployeeService;
+import com.example.employee.service.EmployeeView;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
 import java.util.Optional;
@@ -22,36 +30,63 @@ public class EmployeeController {
 
     private final EmployeeService service;
 
+    // Reads below take ?expand=department (remote department lookup, off by default) and
+    // ?fields=id,email,... (only those columns are selected and returned).
+
     // Array when no paging requested
     @GetMapping(params = {"!page", "!size"})
-    public List<EmployeeDTO> all(
+    public List<?> all(
             @RequestParam Optional<String> email,
             @RequestParam Optional<String> lastNameContains,
-            @RequestParam Optional<Long> departmentId
+            @RequestParam Optional<Long> departmentId,
+            @RequestParam Optional<String> fields,
+            @RequestParam Optional<String> expand
     ) {
+        EmployeeView view = EmployeeView.parse(fields.orElse(null), expand.orElse(null));
         // when no paging, return full array (tests commonly expect this)
         // if any filter supplied, we can still honor them by delegating to list(...) unpaged
         if (email.isPresent() || lastNameContains.isPresent() || departmentId.isPresent()) {
-            Page<EmployeeDTO> page = service.list(email, lastNameContains, departmentId, Pageable.unpaged());
-            return page.getContent();
+            return service.list(email, lastNameContains, departmentId, Pageable.unpaged(), view).getContent();
         }
-        return service.getAll();
+        return service.getAll(view);
     }
 
     // Page when page/size present; sorting via ?sort=lastName,asc handled by Spring Data
     @GetMapping(params = {"page", "size"})
-    public Page<EmployeeDTO> list(
+    public Page<?> list(
             @RequestParam Optional<String> email,
             @RequestParam Optional<String> lastNameContains,
             @RequestParam Optional<Long> departmentId,
+            @RequestParam Optional<String> fields,
+            @RequestParam Optional<String> expand,
             Pageable pageable
     ) {
-        return service.list(email, lastNameContains, departmentId, pageable);
+        return service.list(email, lastNameContains, departmentId, pageable,
+                EmployeeView.parse(fields.orElse(null), expand.orElse(null)));
+    }
+
+    // Cursor (keyset) mode: ?limit=100[&after=<token>][&sort=id|lastName][&fields=..][&expand=department];
+    // follow "next" (which keeps fields/expand) until it is null
+    @GetMapping(params = {"limit", "!page", "!size"})
+    public CursorPage<?> cursor(
+            @RequestParam int limit,
+            @RequestParam Optional<String> after,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam Optional<String> fields,
+            @RequestParam Optional<String> expand
+    ) {
+        return service.listAfter(sort, after.orElse(null), limit,
+                EmployeeView.parse(fields.orElse(null), expand.orElse(null)),
+                token -> ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("after", token)
+                        .toUriString());
     }
 
     @GetMapping("/{id}")
-    public EmployeeDTO byId(@PathVariable Long id) {
-        return service.getById(id);
+    public Object byId(@PathVariable Long id,
+                       @RequestParam Optional<String> fields,
+                       @RequestParam Optional<String> expand) {
+        return service.getById(id, EmployeeView.parse(fields.orElse(null), expand.orElse(null)));
     }
 
     @PostMapping
@@ -60,6 +95,10 @@ public class EmployeeController {
             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody EmployeeDTO dto
     ) {
+        // without an Idempotency-Key, creates may be group-committed with concurrent ones (create-batching)
+        if ((idempotencyKey == null || idempotencyKey.isBlank()) && service.batchesCreates()) {
+            return service.createBatched(dto);
+        }
         return service.create(dto, idempotencyKey);
     }
 
@@ -73,19 +112,60 @@ public class EmployeeController {
         return service.patch(id, patch);
     }
 
+    // Set-based PATCH: {"filter": {"departmentId": 3}, "patch": {"departmentId": 5}} -> {"matched":..,"updated":..}
+    @PostMapping("/bulk-update")
+    public EmployeeBulkUpdateResultDTO bulkUpdate(@Valid @RequestBody EmployeeBulkUpdateDTO request) {
+        return service.bulkUpdate(request);
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void delete(@PathVariable Long id) {
         service.delete(id);
     }
 
-    @GetMapping("/search")
-    public List<EmployeeDTO> search(@RequestParam("q") String q) {
-        return service.search(q);
+    // Array of the best 100 matches when no paging requested. Nothing is counted; when more matched, a
+    // Link: <...?page=1&size=100>; rel="next" header points at the rest in the paged form below.
+    @GetMapping(value = "/search", params = {"!page", "!size"})
+    public ResponseEntity<List<?>> search(@RequestParam("q") String q,
+                                          @RequestParam Optional<String> fields,
+                                          @RequestParam Optional<String> expand) {
+        Slice<?> best = service.search(q, EmployeeView.parse(fields.orElse(null), expand.orElse(null)));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (best.hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("page", 1)
+                    .replaceQueryParam("size", best.getSize())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(best.getContent());
+    }
+
+    // Page of matches ranked by similarity: ?q=..&page=0&size=20
+    @GetMapping(value = "/search", params = {"page", "size"})
+    public Page<?> searchPage(@RequestParam("q") String q,
+                              @RequestParam Optional<String> fields,
+                              @RequestParam Optional<String> expand,
+                              Pageable pageable) {
+        return service.search(q, pageable, EmployeeView.parse(fields.orElse(null), expand.orElse(null)));
+    }
+
+    // Typeahead for people pickers: ?q=ali&limit=10, served from memory
+    @GetMapping("/autocomplete")
+    public List<EmployeeSuggestionDTO> autocomplete(@RequestParam("q") String q,
+                                                    @RequestParam(defaultValue = "10") int limit) {
+        return service.autocomplete(q, limit);
     }
 
     @GetMapping("/stats")
     public List<DepartmentStatsDTO> stats() {
         return service.stats();
     }
+
+    // single counter read, e.g. for department-service's protective delete
+    @GetMapping("/stats/{departmentId}")
+    public DepartmentStatsDTO stats(@PathVariable Long departmentId) {
+        return service.stats(departmentId);
+    }
 }
@@ -0,0 +1,48 @@
+package com.example.employee.web;
+
+import com.example.employee.service.EmployeeExporter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/v1/employees/export")
+public class EmployeeExportController {
+
+    private final EmployeeExporter exporter;
+    private final Duration timeout;
+
+    public EmployeeExportController(EmployeeExporter exporter,
+                                    @Value("${export.timeout:30m}") Duration timeout) {
+        this.exporter = exporter;
+        this.timeout = timeout;
+    }
+
+    // GET /api/v1/employees/export?format=ndjson|csv[&expand=department]
+    // rows are streamed from a DB cursor, nothing is collected in memory
+    @GetMapping
+    public WebAsyncTask<Void> export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam Optional<String> expand,
+            HttpServletResponse response
+    ) {
+        EmployeeExporter.Format fmt = EmployeeExporter.Format.parse(format);
+        boolean withDepartment = expand.filter("department"::equalsIgnoreCase).isPresent();
+
+        response.setContentType(fmt.mediaType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"employees." + fmt.extension() + "\"");
+        // the export's own async timeout; spring.mvc.async.request-timeout stays short for everything else
+        return new WebAsyncTask<>(timeout.toMillis(), () -> {
+            exporter.export(fmt, withDepartment, response.getOutputStream());
+            return null;
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.employee.web;
+
+import com.example.employee.dto.ImportJobDTO;
+import com.example.employee.error.ResourceNotFoundException;
+import com.example.employee.service.EmployeeExporter;
+import com.example.employee.service.EmployeeImporter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/v1/employees/imports")
+@RequiredArgsConstructor
+public class EmployeeImportController {
+
+    private final EmployeeImporter importer;
+
+    // POST /api/v1/employees/imports with an NDJSON or CSV (header row) body.
+    // Response: NDJSON, one line per rejected row, then the job summary; Location points at the job.
+    @PostMapping(consumes = {"application/x-ndjson", "text/csv"})
+    public void importEmployees(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        EmployeeExporter.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(EmployeeExporter.Format.CSV.mediaType())
+                ? EmployeeExporter.Format.CSV
+                : EmployeeExporter.Format.NDJSON;
+
+        ImportJobDTO job = importer.start();
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(EmployeeExporter.Format.NDJSON.mediaType().toString());
+        response.setHeader(HttpHeaders.LOCATION, ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{jobId}").buildAndExpand(job.jobId()).toUriString());
+        // commit the headers now: the body only starts once rejects are streamed, callers need the job id before
+        response.flushBuffer();
+        importer.run(job.jobId(), format, request.getInputStream(), response.getOutputStream());
+    }
+
+    // progress while the import runs (on the instance that runs it), final counts afterwards
+    @GetMapping("/{jobId}")
+    public ImportJobDTO job(@PathVariable String jobId) {
+        return importer.job(jobId).orElseThrow(() -> new ResourceNotFoundException("Import job not found"));
+    }
+}
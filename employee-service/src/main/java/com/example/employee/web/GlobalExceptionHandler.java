@@ -1,8 +1,11 @@
 package com.example.employee.web;
 
 import com.example.employee.ProblemTypes;
+import com.example.employee.error.BadRequestException;
 import com.example.employee.error.BusinessConflictException;
+import com.example.employee.error.ResourceGoneException;
 import com.example.employee.error.ResourceNotFoundException;
+import com.example.employee.repo.EmployeeWriteRepository;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
@@ -27,6 +30,10 @@ public class GlobalExceptionHandler {
     private static final org.slf4j.Logger log =
             org.slf4j.LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    // unique constraints the write path relies on, with the message a client can act on
+    private static final Map<String, String> CONSTRAINT_MESSAGES = Map.of(
+            EmployeeWriteRepository.EMAIL_CONSTRAINT, "Email already exists");
+
 
     @ExceptionHandler(EntityNotFoundException.class)
     public ProblemDetail handleEntityNotFound(EntityNotFoundException ex, HttpServletRequest req) {
@@ -50,6 +57,26 @@ public class GlobalExceptionHandler {
         return pd;
     }
 
+    // 400: malformed query parameters (bad cursor, out-of-range limit, ...)
+    @ExceptionHandler(BadRequestException.class)
+    public ProblemDetail handleBadRequest(BadRequestException ex, HttpServletRequest req) {
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+        pd.setTitle("Bad Request");
+        pd.setType(URI.create(ProblemTypes.VALIDATION));
+        enrich(pd, req);
+        return pd;
+    }
+
+    // 410: e.g. a change feed token older than the change log's retention; the client has to resync
+    @ExceptionHandler(ResourceGoneException.class)
+    public ProblemDetail handleGone(ResourceGoneException ex, HttpServletRequest req) {
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.GONE, ex.getMessage());
+        pd.setTitle("Gone");
+        pd.setType(URI.create(ProblemTypes.GONE));
+        enrich(pd, req);
+        return pd;
+    }
+
     //400 Validation errors
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ProblemDetail handleMethodArgumentNotValid(MethodArgumentNotValidException ex,
@@ -104,8 +131,7 @@ public class GlobalExceptionHandler {
             DataIntegrityViolationException.class     // in case a DB unique index fires
     })
     public ProblemDetail handleConflict(RuntimeException ex, HttpServletRequest req) {
-        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
-                ex.getMessage() == null ? "Conflict" : ex.getMessage());
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, conflictDetail(ex));
         pd.setTitle("Conflict");
         pd.setType(URI.create(ProblemTypes.CONFLICT));
         enrich(pd, req);
@@ -116,8 +142,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(org.hibernate.exception.ConstraintViolationException.class)
     public ProblemDetail handleHibernateConstraint(org.hibernate.exception.ConstraintViolationException ex,
                                                    HttpServletRequest req) {
-        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
-                ex.getMessage() == null ? "Conflict" : ex.getMessage());
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, conflictDetail(ex));
         pd.setTitle("Conflict");
         pd.setType(URI.create(ProblemTypes.CONFLICT));
         enrich(pd, req);
@@ -128,8 +153,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(org.springframework.dao.DuplicateKeyException.class)
     public ProblemDetail handleDuplicateKey(org.springframework.dao.DuplicateKeyException ex,
                                             HttpServletRequest req) {
-        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
-                ex.getMessage() == null ? "Conflict" : ex.getMessage());
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, conflictDetail(ex));
         pd.setTitle("Conflict");
         pd.setType(URI.create(ProblemTypes.CONFLICT));
         enrich(pd, req);
@@ -141,7 +165,9 @@ public class GlobalExceptionHandler {
     public ProblemDetail handleTxSystem(org.springframework.transaction.TransactionSystemException ex,
                                         HttpServletRequest req) {
         if (hasConstraintViolationCause(ex)) {
-            ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "Conflict");
+            String detail = conflictDetail(ex);
+            ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                    detail.equals(ex.getMessage()) ? "Conflict" : detail);
             pd.setTitle("Conflict");
             pd.setType(URI.create(ProblemTypes.CONFLICT));
             enrich(pd, req);
@@ -156,6 +182,17 @@ public class GlobalExceptionHandler {
         return pd;
     }
 
+    // a violated constraint we know answers with its message; anything else keeps the exception's own
+    private static String conflictDetail(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof org.hibernate.exception.ConstraintViolationException cve && cve.getConstraintName() != null) {
+                String message = CONSTRAINT_MESSAGES.get(cve.getConstraintName());
+                if (message != null) return message;
+            }
+        }
+        return ex.getMessage() == null ? "Conflict" : ex.getMessage();
+    }
+
     // helper to walk the cause chain
     private static boolean hasConstraintViolationCause(Throwable ex) {
         Throwable t = ex;
@@ -0,0 +1,74 @@
+package com.example.employee.web;
+
+import com.example.employee.dto.DeadLetterDTO;
+import com.example.employee.service.Outbox;
+import com.example.employee.service.OutboxReplayer;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/admin/outbox")
+public class OutboxAdminController {
+
+    private final Outbox outbox;
+    private final OutboxReplayer replayer;
+    private final Duration replayTimeout;
+
+    public OutboxAdminController(Outbox outbox,
+                                 OutboxReplayer replayer,
+                                 @Value("${outbox.replay.timeout:30m}") Duration replayTimeout) {
+        this.outbox = outbox;
+        this.replayer = replayer;
+        this.replayTimeout = replayTimeout;
+    }
+
+    // GET /api/v1/admin/outbox/dead-letters?subscriber=project&page=0&size=50
+    @GetMapping("/dead-letters")
+    public Page<DeadLetterDTO> deadLetters(@RequestParam(required = false) String subscriber, Pageable pageable) {
+        return outbox.deadLetters(subscriber, pageable);
+    }
+
+    @GetMapping("/dead-letters/{id}")
+    public DeadLetterDTO deadLetter(@PathVariable Long id) {
+        return outbox.deadLetter(id);
+    }
+
+    @PostMapping("/dead-letters/{id}/requeue")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void requeue(@PathVariable Long id) {
+        outbox.requeue(id);
+    }
+
+    // POST /api/v1/admin/outbox/dead-letters/requeue?subscriber=project
+    @PostMapping("/dead-letters/requeue")
+    public Map<String, Integer> requeueAll(@RequestParam String subscriber) {
+        return Map.of("requeued", outbox.requeueAll(subscriber));
+    }
+
+    // POST /api/v1/admin/outbox/replay?subscriber=project&from=2024-05-01T00:00:00Z&to=2024-05-02T00:00:00Z
+    // streams NDJSON progress while the events are re-sent; the live relay is not involved
+    @PostMapping("/replay")
+    public WebAsyncTask<Void> replay(
+            @RequestParam String subscriber,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            HttpServletResponse response
+    ) {
+        OutboxReplayer.Plan plan = replayer.plan(subscriber, from, to);
+        response.setContentType("application/x-ndjson");
+        return new WebAsyncTask<>(replayTimeout.toMillis(), () -> {
+            replayer.run(plan, response.getOutputStream());
+            return null;
+        });
+    }
+}
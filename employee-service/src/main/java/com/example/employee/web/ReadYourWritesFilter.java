@@ -0,0 +1,51 @@
+package com.example.employee.web;
+
+import com.example.employee.config.ReadYourWrites;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Read-your-writes across requests while reads go to replicas. A response whose request committed a write
+ * carries {@value ReadYourWrites#HEADER}: epoch millis until which the client's reads should see the primary.
+ * Requests echoing a value that has not passed yet read from the primary. Values further out than the sticky
+ * window are clamped, so a client cannot pin itself to the primary for longer. Registered by
+ * {@code ReadReplicaConfig}.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        long until = Math.min(parse(request.getHeader(ReadYourWrites.HEADER)), now + window.toMillis());
+        // the header is set on commit, before the controller writes the body
+        ReadYourWrites.begin(until > now, () -> response.setHeader(ReadYourWrites.HEADER,
+                Long.toString(System.currentTimeMillis() + window.toMillis())));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.end();
+        }
+    }
+
+    private static long parse(String value) {
+        if (value == null || value.isBlank()) return 0;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
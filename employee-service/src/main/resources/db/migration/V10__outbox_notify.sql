@@ -0,0 +1,15 @@
+-- Wakes OutboxRelay instances listening on 'employee_outbox' as soon as outbox rows commit.
+-- Statement-level, so a bulk import notifies once; NOTIFY is delivered at commit and dropped on
+-- rollback. The payload is the notification time in epoch millis, for the relay's latency metric.
+CREATE OR REPLACE FUNCTION employee.outbox_event_notify() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM pg_notify('employee_outbox', (extract(epoch FROM clock_timestamp()) * 1000)::bigint::text);
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_outbox_event_notify ON employee.outbox_event;
+CREATE TRIGGER trg_outbox_event_notify
+    AFTER INSERT ON employee.outbox_event
+    FOR EACH STATEMENT EXECUTE FUNCTION employee.outbox_event_notify();
@@ -0,0 +1,178 @@
+-- Outbox retention and dead-lettering.
+--
+-- outbox_event and outbox_delivery become range-partitioned by the event's created_at, one partition
+-- per UTC day, so retention is a DROP of a whole day instead of row deletes that bloat the table and
+-- its due-index. A delivery lives in the same day as its event. Default partitions catch rows when
+-- maintenance falls behind; outbox_ensure_partitions keeps a few days created ahead so they stay empty.
+--
+-- A delivery that used up outbox.max-attempts moves to outbox_dead_letter (with a copy of the
+-- payload), which is not partitioned and survives retention until it is requeued or discarded.
+
+-- 1) keep the current rows while the tables are rebuilt
+CREATE TEMP TABLE outbox_event_carry ON COMMIT DROP AS
+    SELECT * FROM employee.outbox_event;
+CREATE TEMP TABLE outbox_delivery_carry ON COMMIT DROP AS
+    SELECT d.*, e.created_at AS event_created_at
+    FROM employee.outbox_delivery d JOIN employee.outbox_event e ON e.id = d.event_id;
+
+ALTER SEQUENCE employee.outbox_event_id_seq OWNED BY NONE;
+DROP TABLE employee.outbox_delivery;
+DROP TABLE employee.outbox_event;
+
+-- 2) partitioned tables; the partition key has to be part of every unique constraint
+CREATE TABLE employee.outbox_event (
+    id              BIGINT       NOT NULL DEFAULT nextval('employee.outbox_event_id_seq'),
+    event_id        UUID         NOT NULL,
+    aggregate_type  VARCHAR(50)  NOT NULL,
+    aggregate_id    BIGINT       NOT NULL,
+    type            VARCHAR(100) NOT NULL,
+    payload_json    TEXT         NOT NULL,
+    status          VARCHAR(16)  NOT NULL DEFAULT 'PENDING',  -- PENDING | DISPATCHED | SENT
+    attempt_count   INT          NOT NULL DEFAULT 0,
+    created_at      TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    next_attempt_at TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    last_attempt_at TIMESTAMPTZ,
+    last_error      TEXT,
+    locked_by       VARCHAR(100),
+    locked_until    TIMESTAMPTZ,
+    PRIMARY KEY (id, created_at),
+    UNIQUE (event_id, created_at)
+) PARTITION BY RANGE (created_at);
+ALTER SEQUENCE employee.outbox_event_id_seq OWNED BY employee.outbox_event.id;
+
+CREATE TABLE employee.outbox_delivery (
+    event_id        BIGINT       NOT NULL,
+    subscriber      VARCHAR(200) NOT NULL,
+    created_at      TIMESTAMPTZ  NOT NULL,                    -- the event's created_at
+    status          VARCHAR(16)  NOT NULL DEFAULT 'PENDING',  -- PENDING | FAILED | SENT
+    attempt_count   INT          NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    last_attempt_at TIMESTAMPTZ,
+    last_error      TEXT,
+    locked_by       VARCHAR(100),
+    locked_until    TIMESTAMPTZ,
+    PRIMARY KEY (event_id, subscriber, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE employee.outbox_event_default PARTITION OF employee.outbox_event DEFAULT;
+CREATE TABLE employee.outbox_delivery_default PARTITION OF employee.outbox_delivery DEFAULT;
+
+CREATE INDEX ix_outbox_event_pending ON employee.outbox_event (id) WHERE status = 'PENDING';
+CREATE INDEX ix_outbox_event_aggregate ON employee.outbox_event (aggregate_type, aggregate_id, id);
+CREATE INDEX ix_outbox_event_created ON employee.outbox_event (created_at, id);   -- replay scans
+CREATE INDEX ix_outbox_delivery_due
+    ON employee.outbox_delivery (subscriber, next_attempt_at, event_id)
+    WHERE status <> 'SENT';
+
+-- 3) dead letters
+CREATE TABLE IF NOT EXISTS employee.outbox_dead_letter (
+    id               BIGSERIAL    PRIMARY KEY,
+    event_id         UUID         NOT NULL,       -- the envelope's eventId
+    subscriber       VARCHAR(200) NOT NULL,
+    aggregate_type   VARCHAR(50)  NOT NULL,
+    aggregate_id     BIGINT       NOT NULL,
+    type             VARCHAR(100) NOT NULL,
+    payload_json     TEXT         NOT NULL,
+    attempt_count    INT          NOT NULL,
+    last_error       TEXT,
+    event_created_at TIMESTAMPTZ  NOT NULL,
+    dead_at          TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+CREATE INDEX IF NOT EXISTS ix_outbox_dead_letter_subscriber
+    ON employee.outbox_dead_letter (subscriber, dead_at, id);
+
+-- 4) partition maintenance, called by OutboxMaintenance
+-- creates the daily partitions from yesterday to days_ahead; returns how many event partitions it created
+CREATE OR REPLACE FUNCTION employee.outbox_ensure_partitions(days_ahead INT) RETURNS INT
+LANGUAGE plpgsql AS $$
+DECLARE
+    d       DATE;
+    suffix  TEXT;
+    lo      TIMESTAMPTZ;
+    hi      TIMESTAMPTZ;
+    created INT := 0;
+BEGIN
+    FOR d IN SELECT generate_series(current_date - 1, current_date + days_ahead, INTERVAL '1 day')::date LOOP
+        suffix := to_char(d, 'YYYYMMDD');
+        lo := d::timestamp AT TIME ZONE 'UTC';
+        hi := (d + 1)::timestamp AT TIME ZONE 'UTC';
+        BEGIN
+            IF to_regclass('employee.outbox_event_p' || suffix) IS NULL THEN
+                EXECUTE format('CREATE TABLE employee.%I PARTITION OF employee.outbox_event FOR VALUES FROM (%L) TO (%L)',
+                               'outbox_event_p' || suffix, lo, hi);
+                created := created + 1;
+            END IF;
+            IF to_regclass('employee.outbox_delivery_p' || suffix) IS NULL THEN
+                EXECUTE format('CREATE TABLE employee.%I PARTITION OF employee.outbox_delivery FOR VALUES FROM (%L) TO (%L)',
+                               'outbox_delivery_p' || suffix, lo, hi);
+            END IF;
+        EXCEPTION WHEN check_violation THEN
+            -- rows for that day already landed in a default partition; they stay there
+            RAISE NOTICE 'outbox partition % skipped: default partition holds rows for it', suffix;
+        END;
+    END LOOP;
+    RETURN created;
+END;
+$$;
+
+-- drops whole days that end before cutoff and have nothing left to deliver; returns days dropped
+CREATE OR REPLACE FUNCTION employee.outbox_drop_partitions(cutoff TIMESTAMPTZ) RETURNS INT
+LANGUAGE plpgsql AS $$
+DECLARE
+    p       RECORD;
+    d       DATE;
+    lo      TIMESTAMPTZ;
+    hi      TIMESTAMPTZ;
+    dropped INT := 0;
+BEGIN
+    -- never queue behind long transactions on the outbox; the next run retries
+    PERFORM set_config('lock_timeout', '2s', true);
+    FOR p IN SELECT c.relname
+             FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+             WHERE i.inhparent = 'employee.outbox_event'::regclass
+               AND c.relname ~ '^outbox_event_p[0-9]{8}$'
+             ORDER BY c.relname LOOP
+        d := to_date(substring(p.relname FROM '[0-9]{8}$'), 'YYYYMMDD');
+        lo := d::timestamp AT TIME ZONE 'UTC';
+        hi := (d + 1)::timestamp AT TIME ZONE 'UTC';
+        EXIT WHEN hi > cutoff;
+        CONTINUE WHEN EXISTS (SELECT 1 FROM employee.outbox_delivery
+                              WHERE created_at >= lo AND created_at < hi AND status <> 'SENT')
+                   OR EXISTS (SELECT 1 FROM employee.outbox_event
+                              WHERE created_at >= lo AND created_at < hi AND status = 'PENDING');
+        EXECUTE format('DROP TABLE IF EXISTS employee.%I', 'outbox_delivery_p' || to_char(d, 'YYYYMMDD'));
+        EXECUTE format('DROP TABLE employee.%I', p.relname);
+        dropped := dropped + 1;
+    END LOOP;
+
+    -- whatever overflowed into the default partitions is trimmed row by row
+    DELETE FROM employee.outbox_delivery_default WHERE created_at < cutoff AND status = 'SENT';
+    DELETE FROM employee.outbox_event_default e
+    WHERE e.created_at < cutoff
+      AND e.status <> 'PENDING'
+      AND NOT EXISTS (SELECT 1 FROM employee.outbox_delivery d WHERE d.event_id = e.id AND d.status <> 'SENT');
+    RETURN dropped;
+END;
+$$;
+
+SELECT employee.outbox_ensure_partitions(3);
+
+-- 5) restore the rows; anything older than yesterday lands in the default partitions
+INSERT INTO employee.outbox_event
+    (id, event_id, aggregate_type, aggregate_id, type, payload_json, status, attempt_count,
+     created_at, next_attempt_at, last_attempt_at, last_error, locked_by, locked_until)
+SELECT id, event_id, aggregate_type, aggregate_id, type, payload_json, status, attempt_count,
+       created_at, next_attempt_at, last_attempt_at, last_error, locked_by, locked_until
+FROM outbox_event_carry;
+
+INSERT INTO employee.outbox_delivery
+    (event_id, subscriber, created_at, status, attempt_count, next_attempt_at,
+     last_attempt_at, last_error, locked_by, locked_until)
+SELECT event_id, subscriber, event_created_at, status, attempt_count, next_attempt_at,
+       last_attempt_at, last_error, locked_by, locked_until
+FROM outbox_delivery_carry;
+
+-- 6) the commit notification from V10 went away with the old table
+CREATE TRIGGER trg_outbox_event_notify
+    AFTER INSERT ON employee.outbox_event
+    FOR EACH STATEMENT EXECUTE FUNCTION employee.outbox_event_notify();
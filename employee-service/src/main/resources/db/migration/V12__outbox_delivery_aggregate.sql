@@ -0,0 +1,16 @@
+-- Per-aggregate ordering: deliveries carry the event's aggregate id, so the relay can keep each
+-- employee's events in order (a delivery is only claimed once no earlier delivery of the same
+-- aggregate to the same subscriber is leased or backing off) and spread aggregates over lanes.
+ALTER TABLE employee.outbox_delivery ADD COLUMN IF NOT EXISTS aggregate_id BIGINT;
+
+UPDATE employee.outbox_delivery d
+SET aggregate_id = e.aggregate_id
+FROM employee.outbox_event e
+WHERE e.id = d.event_id AND e.created_at = d.created_at AND d.aggregate_id IS NULL;
+
+ALTER TABLE employee.outbox_delivery ALTER COLUMN aggregate_id SET NOT NULL;
+
+-- the ordering guard: earlier unfinished deliveries of the same aggregate
+CREATE INDEX IF NOT EXISTS ix_outbox_delivery_aggregate
+    ON employee.outbox_delivery (subscriber, aggregate_id, event_id)
+    WHERE status <> 'SENT';
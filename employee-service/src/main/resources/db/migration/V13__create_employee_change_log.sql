@@ -0,0 +1,68 @@
+-- Change log behind GET /api/v1/employees/changes. Written by statement-level triggers, so every
+-- write path (JPA saves, set-based bulk updates, COPY imports) records its changes in the same
+-- transaction. A row only names the employee and the kind of change; readers join the current row.
+--
+-- Ids come from a sequence and are handed out before commit, so a reader following ids alone could
+-- skip a row whose transaction commits late. Readers therefore follow (xid, id) and only see rows of
+-- transactions older than their snapshot's xmin: every such transaction has finished, and anything
+-- committed later sorts after what they already returned.
+CREATE TABLE IF NOT EXISTS employee.employee_change (
+    id          BIGSERIAL   PRIMARY KEY,
+    xid         XID8        NOT NULL DEFAULT pg_current_xact_id(),
+    employee_id BIGINT      NOT NULL,
+    op          VARCHAR(10) NOT NULL,   -- UPSERT | DELETE
+    changed_at  TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- the feed's keyset
+CREATE INDEX IF NOT EXISTS ix_employee_change_xid_id ON employee.employee_change (xid, id);
+-- retention purge
+CREATE INDEX IF NOT EXISTS ix_employee_change_changed_at ON employee.employee_change (changed_at);
+
+-- Highest position the retention purge has removed; a consumer whose token is older may have
+-- missed changes and has to resync. Single row, id = 1.
+CREATE TABLE IF NOT EXISTS employee.employee_change_purged (
+    id        SMALLINT PRIMARY KEY,
+    xid       XID8     NOT NULL,
+    change_id BIGINT   NOT NULL
+);
+
+CREATE OR REPLACE FUNCTION employee.log_employee_changes() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO employee.employee_change (employee_id, op)
+        SELECT id, 'UPSERT' FROM new_rows ORDER BY id;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO employee.employee_change (employee_id, op)
+        SELECT id, 'DELETE' FROM old_rows ORDER BY id;
+    ELSE
+        -- updates that wrote identical values are not changes
+        INSERT INTO employee.employee_change (employee_id, op)
+        SELECT n.id, 'UPSERT'
+        FROM new_rows n JOIN old_rows o ON o.id = n.id
+        WHERE n IS DISTINCT FROM o
+        ORDER BY n.id;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+-- transition tables allow only one event per trigger
+DROP TRIGGER IF EXISTS trg_employees_change_ins ON employee.employees;
+CREATE TRIGGER trg_employees_change_ins
+    AFTER INSERT ON employee.employees
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION employee.log_employee_changes();
+
+DROP TRIGGER IF EXISTS trg_employees_change_upd ON employee.employees;
+CREATE TRIGGER trg_employees_change_upd
+    AFTER UPDATE ON employee.employees
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION employee.log_employee_changes();
+
+DROP TRIGGER IF EXISTS trg_employees_change_del ON employee.employees;
+CREATE TRIGGER trg_employees_change_del
+    AFTER DELETE ON employee.employees
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION employee.log_employee_changes();
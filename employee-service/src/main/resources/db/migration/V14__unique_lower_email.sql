@@ -0,0 +1,8 @@
+-- Email is unique case-insensitively. Writes insert with ON CONFLICT on this index (or let an update
+-- fail on it) instead of checking first, which was racy and cost an extra round trip. The index also
+-- serves the list endpoint's exact email filter (lower(email) = ?).
+-- Fails if case-only duplicates already exist; those have to be merged by hand first.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_employees_email_lower ON employee.employees (LOWER(email));
+
+-- subsumed by the index above
+ALTER TABLE employee.employees DROP CONSTRAINT IF EXISTS employees_email_key;
@@ -0,0 +1,70 @@
+-- Audit trail of EmployeeService writes, read by GET /api/v1/employees/{id}/audit.
+--
+-- Rows are appended in background batches by EmployeeAuditTrail after the audited transaction
+-- committed, so a write never waits for its audit insert. The table is append-only (a trigger rejects
+-- UPDATE and DELETE) and range-partitioned by month on ts: old history is detached or archived as a
+-- whole partition instead of being deleted row by row. Each row is the employee as written (as
+-- deleted, for DELETE).
+CREATE SEQUENCE IF NOT EXISTS employee.employee_audit_id_seq;
+
+CREATE TABLE employee.employee_audit (
+    id            BIGINT       NOT NULL DEFAULT nextval('employee.employee_audit_id_seq'),
+    ts            TIMESTAMPTZ  NOT NULL,          -- when the audited write committed
+    employee_id   BIGINT       NOT NULL,
+    action        VARCHAR(16)  NOT NULL,          -- CREATE | UPDATE | PATCH | BULK_UPDATE | DELETE
+    first_name    VARCHAR(120),
+    last_name     VARCHAR(120),
+    email         VARCHAR(200),
+    department_id BIGINT,
+    trace_id      VARCHAR(100),                   -- X-Trace-Id of the request that wrote it
+    PRIMARY KEY (id, ts)
+) PARTITION BY RANGE (ts);
+ALTER SEQUENCE employee.employee_audit_id_seq OWNED BY employee.employee_audit.id;
+
+CREATE TABLE employee.employee_audit_default PARTITION OF employee.employee_audit DEFAULT;
+
+-- an employee's history, newest first
+CREATE INDEX ix_employee_audit_employee_ts ON employee.employee_audit (employee_id, ts, id);
+
+CREATE OR REPLACE FUNCTION employee.employee_audit_append_only() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    RAISE EXCEPTION 'employee_audit is append-only (% rejected)', TG_OP;
+END;
+$$;
+
+CREATE TRIGGER trg_employee_audit_append_only
+    BEFORE UPDATE OR DELETE ON employee.employee_audit
+    FOR EACH ROW EXECUTE FUNCTION employee.employee_audit_append_only();
+
+-- creates the monthly partitions from the current month to months_ahead; returns how many it created.
+-- Called by EmployeeAuditTrail.maintain().
+CREATE OR REPLACE FUNCTION employee.employee_audit_ensure_partitions(months_ahead INT) RETURNS INT
+LANGUAGE plpgsql AS $$
+DECLARE
+    m       DATE;
+    name    TEXT;
+    created INT := 0;
+BEGIN
+    FOR m IN SELECT generate_series(date_trunc('month', current_date),
+                                    date_trunc('month', current_date) + make_interval(months => months_ahead),
+                                    INTERVAL '1 month')::date LOOP
+        name := 'employee_audit_p' || to_char(m, 'YYYYMM');
+        CONTINUE WHEN to_regclass('employee.' || name) IS NOT NULL;
+        BEGIN
+            EXECUTE format('CREATE TABLE employee.%I PARTITION OF employee.employee_audit FOR VALUES FROM (%L) TO (%L)',
+                           name, m::timestamp AT TIME ZONE 'UTC', (m + INTERVAL '1 month')::timestamp AT TIME ZONE 'UTC');
+            created := created + 1;
+        EXCEPTION
+            WHEN duplicate_table THEN
+                NULL;   -- another instance was first
+            WHEN check_violation THEN
+                -- rows for that month already landed in the default partition; they stay there
+                RAISE NOTICE 'employee_audit partition % skipped: default partition holds rows for it', name;
+        END;
+    END LOOP;
+    RETURN created;
+END;
+$$;
+
+SELECT employee.employee_audit_ensure_partitions(2);
@@ -0,0 +1,5 @@
+-- Keyset (cursor) pagination for GET /api/v1/employees?limit=..&after=..
+-- sort=id        -> served by the primary key
+-- sort=lastName  -> (last_name, id) row comparison, served by this composite index
+CREATE INDEX IF NOT EXISTS ix_employees_last_name_id
+    ON employee.employees (last_name, id);
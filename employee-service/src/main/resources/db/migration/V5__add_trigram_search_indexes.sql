@@ -0,0 +1,13 @@
+-- Substring search (GET /api/v1/employees/search, ?lastNameContains=) filters with
+-- lower(col) LIKE '%q%'. A btree cannot serve a leading wildcard; trigram GIN indexes can.
+-- Note: requires pg_trgm (same as project-service).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS ix_employees_first_name_trgm
+    ON employee.employees USING GIN (LOWER(first_name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS ix_employees_last_name_trgm
+    ON employee.employees USING GIN (LOWER(last_name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS ix_employees_email_trgm
+    ON employee.employees USING GIN (LOWER(email) gin_trgm_ops);
@@ -0,0 +1,14 @@
+-- Durable Idempotency-Key store shared by all employee-service instances.
+-- A key is claimed by inserting its row inside the business transaction; a concurrent
+-- duplicate blocks on that insert until the first transaction commits (then replays
+-- response_json) or rolls back (then claims the key itself).
+CREATE TABLE IF NOT EXISTS employee.idempotency_keys (
+    idem_key      VARCHAR(200) PRIMARY KEY,
+    request_hash  VARCHAR(64)  NOT NULL,   -- sha-256 of the request body; reuse with another body is a conflict
+    response_json TEXT,                    -- set before commit; replayed as-is
+    created_at    TIMESTAMPTZ  NOT NULL,
+    expires_at    TIMESTAMPTZ  NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS ix_idempotency_keys_expires_at
+    ON employee.idempotency_keys (expires_at);
@@ -0,0 +1,30 @@
+-- Transactional outbox. V3__create_outbox_event.sql shipped empty and is already recorded in
+-- flyway_schema_history on existing databases, so the table is created here instead.
+--
+-- Rows are inserted in the same transaction as the employee change. Relays claim due rows with
+-- FOR UPDATE SKIP LOCKED and stamp a lease (locked_by/locked_until), so several instances can
+-- relay in parallel: a claimed row is invisible to other relays until its lease runs out.
+CREATE TABLE IF NOT EXISTS employee.outbox_event (
+    id              BIGSERIAL    PRIMARY KEY,
+    event_id        UUID         NOT NULL UNIQUE,
+    aggregate_type  VARCHAR(50)  NOT NULL,
+    aggregate_id    BIGINT       NOT NULL,
+    type            VARCHAR(100) NOT NULL,           -- e.g. employee.created.v1
+    payload_json    TEXT         NOT NULL,           -- the full IntegrationEvent envelope
+    status          VARCHAR(16)  NOT NULL DEFAULT 'PENDING',  -- PENDING | FAILED | SENT
+    attempt_count   INT          NOT NULL DEFAULT 0,
+    created_at      TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    next_attempt_at TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    last_attempt_at TIMESTAMPTZ,
+    last_error      TEXT,
+    locked_by       VARCHAR(100),
+    locked_until    TIMESTAMPTZ
+);
+
+-- the relay's claim query: due, unsent rows in id order; SENT rows drop out of the index
+CREATE INDEX IF NOT EXISTS ix_outbox_event_due
+    ON employee.outbox_event (next_attempt_at, id)
+    WHERE status <> 'SENT';
+
+CREATE INDEX IF NOT EXISTS ix_outbox_event_aggregate
+    ON employee.outbox_event (aggregate_type, aggregate_id, id);
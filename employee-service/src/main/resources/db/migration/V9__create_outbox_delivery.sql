@@ -0,0 +1,32 @@
+-- Delivery state per (event, subscriber). The relay fans each new outbox_event out into one row
+-- per configured subscriber; status, attempts, backoff and the claim lease now live here, so a
+-- subscriber that already acked an event is never sent it again because another one failed.
+--
+-- outbox_event.status: PENDING (not fanned out yet) -> DISPATCHED -> SENT (every delivery SENT)
+CREATE TABLE IF NOT EXISTS employee.outbox_delivery (
+    event_id        BIGINT       NOT NULL REFERENCES employee.outbox_event (id) ON DELETE CASCADE,
+    subscriber      VARCHAR(200) NOT NULL,
+    status          VARCHAR(16)  NOT NULL DEFAULT 'PENDING',  -- PENDING | FAILED | SENT
+    attempt_count   INT          NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    last_attempt_at TIMESTAMPTZ,
+    last_error      TEXT,
+    locked_by       VARCHAR(100),
+    locked_until    TIMESTAMPTZ,
+    PRIMARY KEY (event_id, subscriber)
+);
+
+-- each subscriber claims from its own slice of this index
+CREATE INDEX IF NOT EXISTS ix_outbox_delivery_due
+    ON employee.outbox_delivery (subscriber, next_attempt_at, event_id)
+    WHERE status <> 'SENT';
+
+-- fan-out scans only events that have not been dispatched yet
+DROP INDEX IF EXISTS employee.ix_outbox_event_due;
+CREATE INDEX IF NOT EXISTS ix_outbox_event_pending
+    ON employee.outbox_event (id)
+    WHERE status = 'PENDING';
+
+-- events that failed under the per-event scheme are re-dispatched per subscriber
+UPDATE employee.outbox_event SET status = 'PENDING', locked_by = NULL, locked_until = NULL
+WHERE status = 'FAILED';
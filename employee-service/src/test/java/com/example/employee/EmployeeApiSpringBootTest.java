@@ -3,7 +3,12 @@ package com.example.employee;
 
 
 import com.example.employee.domain.Employee;
+import com.example.employee.domain.outbox.OutboxDeadLetterRepository;
+import com.example.employee.domain.outbox.OutboxDeliveryRepository;
+import com.example.employee.domain.outbox.OutboxEventRepository;
 import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.IdempotencyKeyRepository;
+import com.example.employee.service.EmployeeImporter;
 import com.example.employee.client.DepartmentClient; // <-- keep if this is your client package
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -23,6 +28,7 @@ import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -39,6 +45,16 @@ class EmployeeApiSpringBootTest {
     EmployeeRepository employeeRepository;
     @MockBean
     DepartmentClient departmentClient; // <-- keep; adjust type if your client interface has a different name
+    @MockBean
+    IdempotencyKeyRepository idempotencyKeyRepository;
+    @MockBean
+    EmployeeImporter employeeImporter;
+    @MockBean
+    OutboxEventRepository outboxEventRepository;
+    @MockBean
+    OutboxDeliveryRepository outboxDeliveryRepository;
+    @MockBean
+    OutboxDeadLetterRepository outboxDeadLetterRepository;
 
     @Test
     void health_is_up() throws Exception {
@@ -102,15 +118,9 @@ class EmployeeApiSpringBootTest {
 
     @Test
     void create_employee_conflict_409_on_duplicate_email() throws Exception {
-        // Arrange repo to simulate existing email so service throws your Conflict exception
-        var existing = new Employee();
-        existing.setId(99L);
-        existing.setEmail("alice@example.com");
-
-        // If your repo has findByEmail(String) use that:
-        Mockito.when(employeeRepository.existsByEmail("alice@example.com"))
-                .thenReturn(true);
-        // If it’s findByEmailIgnoreCase, change the method name accordingly.
+        // Arrange repo to simulate existing email: the INSERT ... ON CONFLICT inserts nothing
+        Mockito.when(employeeRepository.insertIfEmailFree("Alice", "Nguyen", "alice@example.com", 1L))
+                .thenReturn(Optional.empty());
 
         // Minimal valid payload
         var payload = """
@@ -128,4 +138,20 @@ class EmployeeApiSpringBootTest {
                 .andExpect(status().isConflict())
                 .andExpect(jsonPath("$.status").value(409));
     }
+
+    @Test
+    void update_to_a_taken_email_maps_the_unique_index_to_409() throws Exception {
+        Mockito.when(employeeRepository.updateById(eq(5L), any(), any(), eq("Alice@Example.com"), any(), eq(false)))
+                .thenThrow(new org.springframework.dao.DataIntegrityViolationException("could not execute statement",
+                        new org.hibernate.exception.ConstraintViolationException("duplicate key",
+                                new java.sql.SQLException("duplicate key"), "ux_employees_email_lower")));
+
+        mvc.perform(put("/api/v1/employees/5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                          {"firstName":"Alice","lastName":"Nguyen","email":"Alice@Example.com","departmentId":1}
+                        """))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("Email already exists"));
+    }
 }
@@ -1,6 +1,11 @@
 package com.example.employee;
 
+import com.example.employee.domain.outbox.OutboxDeadLetterRepository;
+import com.example.employee.domain.outbox.OutboxDeliveryRepository;
+import com.example.employee.domain.outbox.OutboxEventRepository;
 import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.IdempotencyKeyRepository;
+import com.example.employee.service.EmployeeImporter;
 import com.example.employee.client.DepartmentClient;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +35,11 @@ class EmployeeActuatorSpringBootTest {
 
     @MockBean EmployeeRepository repository;
     @MockBean DepartmentClient departmentClient;
+    @MockBean IdempotencyKeyRepository idempotencyKeyRepository;
+    @MockBean EmployeeImporter employeeImporter;
+    @MockBean OutboxEventRepository outboxEventRepository;
+    @MockBean OutboxDeliveryRepository outboxDeliveryRepository;
+    @MockBean OutboxDeadLetterRepository outboxDeadLetterRepository;
 
     @Test
     void health_is_UP() {
@@ -0,0 +1,129 @@
+package com.example.employee.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Two in-memory H2 databases stand in for the primary and a replica; each knows its own name. */
+class ReplicaRoutingDataSourceTest {
+
+    private final String suffix = UUID.randomUUID().toString();
+    private final DriverManagerDataSource primary = database("primary");
+    private final DriverManagerDataSource replica = database("replica");
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @AfterEach
+    void stop() throws Exception {
+        ReadYourWrites.end();
+        if (routing != null) routing.destroy();
+    }
+
+    @Test
+    void read_only_transactions_go_to_the_replica_and_everything_else_to_the_primary() {
+        route(replica);
+
+        assertThat((String) readOnly.execute(s -> whoAmI())).isEqualTo("replica");
+        assertThat((String) readWrite.execute(s -> whoAmI())).isEqualTo("primary");
+        assertThat(whoAmI()).isEqualTo("primary");
+        assertThat(registry.get("datasource.routing.connections").tag("route", "replica").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void a_lagging_replica_is_skipped_until_it_caught_up() {
+        route(replica);
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 60");
+        routing.check();
+
+        assertThat((String) readOnly.execute(s -> whoAmI())).isEqualTo("primary");
+        assertThat(registry.get("datasource.replica.usable").gauge().value()).isZero();
+
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 0");
+        routing.check();
+        assertThat((String) readOnly.execute(s -> whoAmI())).isEqualTo("replica");
+    }
+
+    @Test
+    void an_unreachable_replica_falls_back_to_the_primary() {
+        route(new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/nowhere"));
+
+        assertThat((String) readOnly.execute(s -> whoAmI())).isEqualTo("primary");
+        assertThat(registry.get("datasource.routing.connections").tag("route", "fallback").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void a_request_reads_its_own_writes_from_the_primary() {
+        route(replica);
+        var committed = new AtomicInteger();
+        ReadYourWrites.begin(false, committed::incrementAndGet);
+
+        assertThat((String) readOnly.execute(s -> whoAmI())).isEqualTo("replica");
+        readWrite.executeWithoutResult(s -> jdbc.update("update whoami set name = name"));
+        assertThat(committed).hasValue(1);
+        assertThat((String) readOnly.execute(s -> whoAmI())).isEqualTo("primary");
+    }
+
+    @Test
+    void a_pinned_request_reads_from_the_primary() {
+        route(replica);
+        ReadYourWrites.begin(true, () -> {});
+
+        assertThat((String) readOnly.execute(s -> whoAmI())).isEqualTo("primary");
+        assertThat(registry.get("datasource.routing.connections").tag("route", "pinned").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void explicit_credentials_go_to_the_primary() throws Exception {
+        route(replica);
+
+        try (var c = routing.getConnection("", "")) {
+            assertThat(c.createStatement().executeQuery("select name from whoami")).satisfies(rs -> {
+                rs.next();
+                assertThat(rs.getString(1)).isEqualTo("primary");
+            });
+        }
+    }
+
+    private void route(javax.sql.DataSource replica) {
+        // the periodic check is pushed out of the way; tests drive check() themselves
+        routing = new ReplicaRoutingDataSource(primary, Map.of("replica-1", replica),
+                new ReplicaRoutingDataSource.Settings(Duration.ofSeconds(5), Duration.ofHours(1), "select seconds from replica_lag"),
+                registry);
+        routing.check();
+        var lazy = new LazyConnectionDataSourceProxy(routing);
+        var tm = new DataSourceTransactionManager(lazy);
+        jdbc = new JdbcTemplate(lazy);
+        readWrite = new TransactionTemplate(tm);
+        readOnly = new TransactionTemplate(tm);
+        readOnly.setReadOnly(true);
+    }
+
+    private String whoAmI() {
+        return jdbc.queryForObject("select name from whoami", String.class);
+    }
+
+    private DriverManagerDataSource database(String name) {
+        var ds = new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + suffix + ";DB_CLOSE_DELAY=-1");
+        var jdbc = new JdbcTemplate(ds);
+        jdbc.execute("create table whoami (name varchar(20))");
+        jdbc.update("insert into whoami values (?)", name);
+        jdbc.execute("create table replica_lag (seconds double precision)");
+        jdbc.update("insert into replica_lag values (0)");
+        return ds;
+    }
+}
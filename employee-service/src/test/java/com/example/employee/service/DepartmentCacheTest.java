@@ -0,0 +1,97 @@
+package com.example.employee.service;
+
+import com.example.employee.dto.DepartmentDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DepartmentCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DepartmentCache cache =
+            new DepartmentCache(registry, Duration.ofMinutes(10), Duration.ofSeconds(30), 100);
+
+    @Test
+    void hit_after_first_load() {
+        var loads = new AtomicInteger();
+        cache.get(7L, id -> { loads.incrementAndGet(); return new DepartmentDTO(id, "Eng", "desc"); });
+        var second = cache.get(7L, id -> { loads.incrementAndGet(); return null; });
+
+        assertThat(second.getName()).isEqualTo("Eng");
+        assertThat(loads).hasValue(1);
+        assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void failed_load_is_negatively_cached() {
+        var loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            var dept = cache.get(9L, id -> { loads.incrementAndGet(); throw new IllegalStateException("404"); });
+            assertThat(dept).isNull();
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void batch_only_loads_ids_not_cached_yet_and_remembers_unknown_ids() {
+        cache.get(1L, id -> new DepartmentDTO(id, "Eng", null));
+        var requested = new java.util.ArrayList<Long>();
+
+        var found = cache.getAll(List.of(1L, 2L, 3L), ids -> {
+            requested.addAll(ids);
+            return Map.of(2L, new DepartmentDTO(2L, "HR", null));
+        });
+
+        assertThat(requested).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(found).containsOnlyKeys(1L, 2L);
+        var again = cache.getAll(List.of(2L, 3L), ids -> { throw new AssertionError("should be cached: " + ids); });
+        assertThat(again).containsOnlyKeys(2L);
+    }
+
+    @Test
+    void concurrent_misses_share_one_load() throws Exception {
+        var loads = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<DepartmentDTO>> results = new java.util.ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get(5L, id -> {
+                    loads.incrementAndGet();
+                    try { release.await(5, TimeUnit.SECONDS); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+                    return new DepartmentDTO(id, "Ops", null);
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (var f : results) {
+                assertThat(f.get(5, TimeUnit.SECONDS).getName()).isEqualTo("Ops");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void invalidate_forces_reload() {
+        var loads = new AtomicInteger();
+        cache.get(4L, id -> { loads.incrementAndGet(); return new DepartmentDTO(id, "Old", null); });
+        cache.invalidate(4L);
+        var fresh = cache.get(4L, id -> { loads.incrementAndGet(); return new DepartmentDTO(id, "New", null); });
+
+        assertThat(fresh.getName()).isEqualTo("New");
+        assertThat(loads).hasValue(2);
+    }
+}
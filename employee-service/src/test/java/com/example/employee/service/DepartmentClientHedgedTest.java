@@ -0,0 +1,176 @@
+package com.example.employee.service;
+
+import com.example.employee.client.DepartmentClient;
+import com.example.employee.dto.DepartmentDTO;
+import feign.Feign;
+import feign.Request;
+import feign.http2client.Http2Client;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class DepartmentClientHedgedTest {
+
+    private final DepartmentClient remote = mock(DepartmentClient.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void a_slow_call_is_hedged_and_the_losing_connection_is_closed() throws Exception {
+        try (var server = new ServerSocket(0)) {
+            var loserClosed = new CountDownLatch(1);
+            var stub = new Thread(() -> {
+                try (Socket silent = server.accept(); Socket answering = server.accept()) {
+                    readRequest(answering);
+                    byte[] body = "{\"id\":1,\"name\":\"fast\"}".getBytes(UTF_8);
+                    answering.getOutputStream().write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\n"
+                            + "Content-Length: " + body.length + "\r\nConnection: close\r\n\r\n").getBytes(UTF_8));
+                    answering.getOutputStream().write(body);
+                    answering.getOutputStream().flush();
+                    // the first request is never answered: it ends only when the client closes the connection
+                    silent.setSoTimeout(10_000);
+                    while (silent.getInputStream().read() != -1) {
+                        // drain the request
+                    }
+                    loserClosed.countDown();
+                } catch (IOException ignored) {
+                    // server closed
+                }
+            });
+            stub.setDaemon(true);
+            stub.start();
+            var client = new DepartmentClientHedged(feign(server.getLocalPort()), registry, settings(100, 4));
+
+            assertThat(client.getDepartment(1L).getName()).isEqualTo("fast");
+
+            assertThat(loserClosed.await(2, TimeUnit.SECONDS)).as("losing connection closed").isTrue();
+            await(() -> client.attemptsInFlight() == 0);
+            assertThat(count("fired")).isEqualTo(1.0);
+            assertThat(count("won")).isEqualTo(1.0);
+        }
+    }
+
+    @Test
+    void with_every_thread_busy_a_call_runs_unhedged_on_the_caller() throws Exception {
+        var client = new DepartmentClientHedged(remote, registry, settings(100, 1));
+        var release = new CountDownLatch(1);
+        when(remote.getDepartment(1L)).thenAnswer(inv -> {
+            if (!Thread.currentThread().getName().startsWith("department-hedge-")) {
+                return new DepartmentDTO(1L, "caller", null);
+            }
+            release.await(5, TimeUnit.SECONDS);
+            return new DepartmentDTO(1L, "pooled", null);
+        });
+        var busy = new Thread(() -> client.getDepartment(1L));
+        busy.start();
+        await(() -> client.attemptsInFlight() == 2);
+
+        assertThat(client.getDepartment(1L).getName()).isEqualTo("caller");
+
+        release.countDown();
+        busy.join(5_000);
+        assertThat(count("fired")).isEqualTo(1.0);
+    }
+
+    @Test
+    void without_budget_the_call_just_waits() {
+        var client = hedged(0);
+        when(remote.getDepartment(1L)).thenAnswer(inv -> {
+            Thread.sleep(100);
+            return new DepartmentDTO(1L, "Eng", null);
+        });
+
+        assertThat(client.getDepartment(1L).getName()).isEqualTo("Eng");
+
+        verify(remote, times(1)).getDepartment(1L);
+        assertThat(count("fired")).isZero();
+        assertThat(count("over_budget")).isEqualTo(1.0);
+    }
+
+    @Test
+    void budget_limits_hedges_to_a_share_of_calls() {
+        var client = hedged(50);
+        when(remote.getDepartment(1L)).thenAnswer(inv -> {
+            Thread.sleep(40);
+            return new DepartmentDTO(1L, "Eng", null);
+        });
+
+        for (int i = 0; i < 4; i++) client.getDepartment(1L);
+
+        assertThat(count("fired")).isEqualTo(2.0);
+        assertThat(count("over_budget")).isEqualTo(2.0);
+    }
+
+    @Test
+    void fast_answers_are_not_hedged() {
+        // a delay no cold first call can exceed by accident
+        var client = new DepartmentClientHedged(remote, registry, new DepartmentClientHedged.Settings(
+                100, Duration.ofSeconds(5), Duration.ofSeconds(5), Long.MAX_VALUE, 4));
+        when(remote.getDepartment(1L)).thenReturn(new DepartmentDTO(1L, "Eng", null));
+
+        client.getDepartment(1L);
+
+        verify(remote, times(1)).getDepartment(1L);
+        assertThat(count("fired")).isZero();
+    }
+
+    private DepartmentClientHedged hedged(int budgetPercent) {
+        return new DepartmentClientHedged(remote, registry, settings(budgetPercent, 4));
+    }
+
+    private static DepartmentClientHedged.Settings settings(int budgetPercent, int maxConcurrent) {
+        return new DepartmentClientHedged.Settings(
+                budgetPercent, Duration.ofMillis(20), Duration.ofMillis(10), Long.MAX_VALUE, maxConcurrent);
+    }
+
+    // the real Feign stack on the transport DepartmentClientConfig installs
+    private static DepartmentClient feign(int port) {
+        var options = new Request.Options();
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(options.connectTimeoutMillis()))
+                .build();
+        return Feign.builder()
+                .client(new Http2Client(http))
+                .contract(new SpringMvcContract())
+                .decoder(new SpringDecoder(() -> new HttpMessageConverters(new MappingJackson2HttpMessageConverter())))
+                .target(DepartmentClient.class, "http://localhost:" + port + "/api/v1/departments");
+    }
+
+    private static void readRequest(Socket socket) throws IOException {
+        var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            // headers only, GETs have no body
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition within 2s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private double count(String event) {
+        return registry.get("department.client.hedges").tag("event", event).counter().count();
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.employee.service;
+
+import com.example.employee.client.DepartmentClient;
+import com.example.employee.dto.DepartmentDTO;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DepartmentClientResilientTest {
+
+    private final DepartmentClient remote = mock(DepartmentClient.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock();
+    private final DepartmentClientResilient client = new DepartmentClientResilient(remote, registry,
+            new DepartmentClientResilient.Settings(4, 4, 50, Duration.ofSeconds(30), 2, 1, Duration.ZERO, Duration.ofHours(1)),
+            clock);
+
+    @Test
+    void opens_after_the_failure_rate_and_then_fails_fast_with_the_last_known_department() {
+        when(remote.getDepartment(1L)).thenReturn(new DepartmentDTO(1L, "Eng", null))
+                .thenThrow(new IllegalStateException("read timeout"));
+
+        assertThat(client.getDepartment(1L).getName()).isEqualTo("Eng");
+        for (int i = 0; i < 3; i++) {
+            // failures answer from the last-known copy instead of propagating
+            assertThat(client.getDepartment(1L).getName()).isEqualTo("Eng");
+        }
+
+        assertThat(client.state()).isEqualTo(DepartmentClientResilient.State.OPEN);
+        assertThat(client.getDepartment(2L)).isNull();
+        verify(remote, times(4)).getDepartment(anyLong());
+        verify(remote, never()).getDepartment(2L);
+        assertThat(registry.get("department.client.rejections").tag("reason", "circuit_open").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("department.client.circuit.state").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void half_open_trials_close_the_breaker_again() {
+        when(remote.getDepartments(anyCollection())).thenThrow(new IllegalStateException("down"));
+        for (int i = 0; i < 4; i++) assertThat(client.getDepartments(List.of(1L))).isEmpty();
+        assertThat(client.state()).isEqualTo(DepartmentClientResilient.State.OPEN);
+
+        clock.advance(Duration.ofSeconds(31));
+        assertThat(client.state()).isEqualTo(DepartmentClientResilient.State.HALF_OPEN);
+        reset(remote);
+        when(remote.getDepartments(anyCollection())).thenReturn(Map.of(1L, new DepartmentDTO(1L, "Eng", null)));
+
+        client.getDepartments(List.of(1L));
+        client.getDepartments(List.of(1L));
+
+        assertThat(client.state()).isEqualTo(DepartmentClientResilient.State.CLOSED);
+        assertThat(registry.get("department.client.circuit.state").gauge().value()).isEqualTo(0.0);
+    }
+
+    @Test
+    void a_failed_trial_reopens_the_breaker() {
+        when(remote.getDepartment(anyLong())).thenThrow(new IllegalStateException("down"));
+        for (int i = 0; i < 4; i++) client.getDepartment(1L);
+        clock.advance(Duration.ofSeconds(31));
+
+        client.getDepartment(1L);
+
+        assertThat(client.state()).isEqualTo(DepartmentClientResilient.State.OPEN);
+        verify(remote, times(5)).getDepartment(anyLong());
+    }
+
+    @Test
+    void a_404_is_an_answer_and_never_opens_the_breaker() {
+        when(remote.getDepartment(9L)).thenReturn(new DepartmentDTO(9L, "Gone soon", null))
+                .thenThrow(http(404));
+
+        assertThat(client.getDepartment(9L)).isNotNull();
+        for (int i = 0; i < 8; i++) {
+            // deleted department: no stale copy, no breaker failure
+            assertThat(client.getDepartment(9L)).isNull();
+        }
+
+        assertThat(client.state()).isEqualTo(DepartmentClientResilient.State.CLOSED);
+        assertThat(registry.get("department.client.calls").tag("outcome", "failure").counter().count()).isZero();
+        verify(remote, times(9)).getDepartment(9L);
+    }
+
+    @Test
+    void other_client_errors_fall_back_without_counting_as_failures() {
+        when(remote.getDepartments(anyCollection())).thenThrow(http(400));
+
+        for (int i = 0; i < 8; i++) assertThat(client.getDepartments(List.of(1L))).isEmpty();
+
+        assertThat(client.state()).isEqualTo(DepartmentClientResilient.State.CLOSED);
+    }
+
+    @Test
+    void server_errors_open_the_breaker() {
+        when(remote.getDepartment(anyLong())).thenThrow(http(503));
+
+        for (int i = 0; i < 4; i++) client.getDepartment(1L);
+
+        assertThat(client.state()).isEqualTo(DepartmentClientResilient.State.OPEN);
+    }
+
+    @Test
+    void full_bulkhead_rejects_instead_of_queueing() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(remote.getDepartment(1L)).thenAnswer(inv -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new DepartmentDTO(1L, "Eng", null);
+        });
+
+        var slow = CompletableFuture.supplyAsync(() -> client.getDepartment(1L));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(client.getDepartment(2L)).isNull();
+        verify(remote, never()).getDepartment(2L);
+        assertThat(registry.get("department.client.rejections").tag("reason", "bulkhead_full").counter().count()).isEqualTo(1.0);
+
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS).getName()).isEqualTo("Eng");
+    }
+
+    private static FeignException http(int status) {
+        Request request = Request.create(Request.HttpMethod.GET, "/api/v1/departments/9", Map.of(), null, UTF_8, null);
+        return FeignException.errorStatus("DepartmentClient#getDepartment(Long)",
+                Response.builder().status(status).reason("status " + status).request(request).headers(Map.of()).build());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override public ZoneOffset getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(java.time.ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+}
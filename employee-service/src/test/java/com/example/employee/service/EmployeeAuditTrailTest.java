@@ -0,0 +1,143 @@
+package com.example.employee.service;
+
+import com.example.employee.dto.CursorPage;
+import com.example.employee.dto.EmployeeAuditDTO;
+import com.example.employee.error.BadRequestException;
+import com.example.employee.repo.EmployeeAuditRepository.EmployeeAudit;
+import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.EmployeeRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmployeeAuditTrailTest {
+
+    private final EmployeeRepository repository = mock(EmployeeRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private EmployeeAuditTrail trail;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (trail != null) trail.destroy();
+    }
+
+    @Test
+    void entries_written_close_together_are_appended_in_one_batch() throws InterruptedException {
+        // the writer reuses its batch list, so keep a copy of what each append saw
+        var batches = new CopyOnWriteArrayList<List<EmployeeAudit>>();
+        var appended = new CountDownLatch(1);
+        doAnswer(inv -> {
+            batches.add(List.copyOf(inv.<List<EmployeeAudit>>getArgument(0)));
+            appended.countDown();
+            return null;
+        }).when(repository).appendAudit(anyList());
+        trail = trail(100, Duration.ofMillis(300));
+
+        trail.record(EmployeeAuditTrail.Action.CREATE, row(1));
+        trail.recordAll(EmployeeAuditTrail.Action.BULK_UPDATE, List.of(row(2), row(3)));
+
+        assertThat(appended.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(batches).singleElement().satisfies(batch -> {
+            assertThat(batch).extracting(EmployeeAudit::employeeId).containsExactly(1L, 2L, 3L);
+            assertThat(batch).extracting(EmployeeAudit::action).containsExactly("CREATE", "BULK_UPDATE", "BULK_UPDATE");
+        });
+    }
+
+    @Test
+    void shutdown_appends_what_is_still_queued() throws InterruptedException {
+        trail = trail(100, Duration.ofMillis(200));
+
+        trail.record(EmployeeAuditTrail.Action.UPDATE, row(1));
+        trail.record(EmployeeAuditTrail.Action.DELETE, row(2));
+        trail.destroy();
+
+        assertThat(registry.get("employee.audit.written").counter().count()).isEqualTo(2.0);
+        assertThat(registry.get("employee.audit.queue").gauge().value()).isZero();
+    }
+
+    @Test
+    void a_full_queue_holds_the_writer_back_and_then_lets_it_append_itself() throws InterruptedException {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        // the background writer blocks in its first append; appends from other threads go through
+        doAnswer(inv -> {
+            if (Thread.currentThread().getName().equals("employee-audit-writer")) {
+                entered.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(repository).appendAudit(anyList());
+        trail = trail(1, Duration.ZERO);
+
+        trail.record(EmployeeAuditTrail.Action.CREATE, row(1));
+        assertThat(entered.await(2, TimeUnit.SECONDS)).isTrue();
+        trail.record(EmployeeAuditTrail.Action.CREATE, row(2));   // fills the queue
+        trail.record(EmployeeAuditTrail.Action.CREATE, row(3));   // waits, then appends itself
+
+        verify(repository).appendAudit(argThat(entries -> entries.size() == 1 && entries.get(0).employeeId() == 3L));
+        assertThat(registry.get("employee.audit.overflow").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("employee.audit.backpressure").timer().count()).isEqualTo(1);
+        release.countDown();
+        verify(repository, timeout(2000).times(3)).appendAudit(anyList());
+    }
+
+    @Test
+    void history_pages_newest_first_with_a_cursor() {
+        trail = trail(100, Duration.ofMillis(200));
+        Instant ts = Instant.parse("2024-05-01T10:15:30.123456Z");
+        when(repository.findAudit(7L, null, null, 3)).thenReturn(List.of(
+                audit(30, ts.plusSeconds(2)), audit(20, ts), audit(10, ts.minusSeconds(2))));
+
+        CursorPage<EmployeeAuditDTO> page = trail.history(7L, null, 2, token -> "/next?before=" + token);
+
+        assertThat(page.items()).extracting(EmployeeAuditDTO::id).containsExactly(30L, 20L);
+        assertThat(page.next()).isEqualTo("/next?before=" + page.nextCursor());
+        EmployeeAudit cursor = EmployeeAuditTrail.decode(page.nextCursor());
+        assertThat(cursor.ts()).isEqualTo(ts);
+        assertThat(cursor.id()).isEqualTo(20L);
+
+        when(repository.findAudit(7L, ts, 20L, 3)).thenReturn(List.of(audit(10, ts.minusSeconds(2))));
+        CursorPage<EmployeeAuditDTO> last = trail.history(7L, page.nextCursor(), 2, token -> "unused");
+        assertThat(last.items()).extracting(EmployeeAuditDTO::id).containsExactly(10L);
+        assertThat(last.next()).isNull();
+    }
+
+    @Test
+    void history_rejects_bad_cursors_and_limits() {
+        trail = trail(100, Duration.ofMillis(200));
+
+        assertThatThrownBy(() -> trail.history(7L, "not-a-cursor", 10, t -> t)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> trail.history(7L, null, 0, t -> t)).isInstanceOf(BadRequestException.class);
+    }
+
+    // a mock transaction manager: the template just runs the callback
+    @SuppressWarnings("unchecked")
+    private EmployeeAuditTrail trail(int capacity, Duration linger) {
+        ObjectProvider<PlatformTransactionManager> tm = mock(ObjectProvider.class);
+        when(tm.getObject()).thenReturn(mock(PlatformTransactionManager.class));
+        return new EmployeeAuditTrail(repository, tm, registry, true, capacity, 500, linger, Duration.ofMillis(50),
+                Duration.ofSeconds(5), 2);
+    }
+
+    private static EmployeeRow row(long id) {
+        return new EmployeeRow(id, "First", "Last", "e" + id + "@example.com", 1L);
+    }
+
+    private static EmployeeAudit audit(long id, Instant ts) {
+        return new EmployeeAudit(id, ts, 7L, "UPDATE", new EmployeeRow(7L, "First", "Last", "e7@example.com", 1L), "trace");
+    }
+}
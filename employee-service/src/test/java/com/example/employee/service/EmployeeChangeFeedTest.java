@@ -0,0 +1,133 @@
+package com.example.employee.service;
+
+import com.example.employee.dto.EmployeeChangesDTO;
+import com.example.employee.error.BadRequestException;
+import com.example.employee.error.ResourceGoneException;
+import com.example.employee.repo.EmployeeChangeRepository.ChangeLag;
+import com.example.employee.repo.EmployeeChangeRepository.ChangePosition;
+import com.example.employee.repo.EmployeeChangeRepository.EmployeeChange;
+import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.EmployeeRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmployeeChangeFeedTest {
+
+    private final EmployeeRepository repository = mock(EmployeeRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // the periodic check is pushed out of the way; tests drive check() themselves
+    private final EmployeeChangeFeed feed = new EmployeeChangeFeed(repository, registry, Duration.ofHours(1),
+            Duration.ofSeconds(60), Duration.ofMinutes(30), Duration.ofSeconds(15), Duration.ofDays(7));
+
+    @AfterEach
+    void stop() {
+        feed.destroy();
+    }
+
+    @Test
+    void without_a_token_the_feed_hands_out_the_current_head() {
+        when(repository.findChangeHead()).thenReturn(Optional.of(new ChangePosition(900, 42)));
+
+        EmployeeChangesDTO page = feed.read(null, 100);
+
+        assertThat(page.changes()).isEmpty();
+        assertThat(EmployeeChangeFeed.decode(page.next())).isEqualTo(new ChangePosition(900, 42));
+        verify(repository, never()).findChangesAfter(any(), anyInt());
+    }
+
+    @Test
+    void next_token_points_after_the_last_change_returned() {
+        var since = new ChangePosition(900, 42);
+        when(repository.findChangesAfter(since, 2)).thenReturn(List.of(
+                change(901, 43, 7L, "UPSERT"), change(902, 44, 8L, "DELETE")));
+
+        EmployeeChangesDTO page = feed.read(EmployeeChangeFeed.encode(since), 2);
+
+        assertThat(page.changes()).extracting("op").containsExactly("UPSERT", "DELETE");
+        assertThat(page.changes().get(0).employee().getEmail()).isEqualTo("e7@example.com");
+        assertThat(page.changes().get(1).employee()).isNull();
+        assertThat(EmployeeChangeFeed.decode(page.next())).isEqualTo(new ChangePosition(902, 44));
+    }
+
+    @Test
+    void a_long_poll_is_answered_once_a_change_becomes_visible() {
+        var since = new ChangePosition(900, 42);
+        when(repository.findChangesAfter(since, 100)).thenReturn(List.of())
+                .thenReturn(List.of(change(905, 50, 7L, "UPSERT")));
+        when(repository.findChangeHead()).thenReturn(Optional.of(since))
+                .thenReturn(Optional.of(new ChangePosition(905, 50)));
+
+        var result = feed.poll(EmployeeChangeFeed.encode(since), 100, Duration.ofSeconds(30));
+        assertThat(result.hasResult()).isFalse();
+        assertThat(registry.get("employee.changes.waiters").gauge().value()).isEqualTo(1.0);
+
+        feed.check();   // head has not moved: no read
+        assertThat(result.hasResult()).isFalse();
+        feed.check();
+
+        assertThat(result.hasResult()).isTrue();
+        assertThat(((EmployeeChangesDTO) result.getResult()).changes()).hasSize(1);
+        assertThat(registry.get("employee.changes.waiters").gauge().value()).isZero();
+        verify(repository, times(2)).findChangesAfter(since, 100);
+    }
+
+    @Test
+    void pending_changes_answer_a_long_poll_right_away() {
+        var since = new ChangePosition(900, 42);
+        when(repository.findChangesAfter(since, 100)).thenReturn(List.of(change(901, 43, 7L, "UPSERT")));
+
+        var result = feed.poll(EmployeeChangeFeed.encode(since), 100, Duration.ofSeconds(30));
+
+        assertThat(result.hasResult()).isTrue();
+        assertThat(registry.get("employee.changes.waiters").gauge().value()).isZero();
+    }
+
+    @Test
+    void tokens_older_than_the_purged_log_are_gone() {
+        when(repository.findChangesPurgedThrough()).thenReturn(Optional.of(new ChangePosition(950, 60)));
+
+        assertThatThrownBy(() -> feed.read(EmployeeChangeFeed.encode(new ChangePosition(900, 42)), 100))
+                .isInstanceOf(ResourceGoneException.class);
+    }
+
+    @Test
+    void rejects_malformed_tokens_and_out_of_range_arguments() {
+        assertThatThrownBy(() -> feed.read("not-a-token", 100)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> feed.read(null, 0)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> feed.poll(null, 100, Duration.ofMinutes(5))).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void lag_gauges_show_changes_held_back_by_an_open_transaction() {
+        assertThat(registry.get("employee.changes.held").gauge().value()).isNaN();
+        when(repository.findChangeLag()).thenReturn(new ChangeLag(12, Duration.ofSeconds(90)));
+
+        feed.measureLag();
+
+        assertThat(registry.get("employee.changes.held").gauge().value()).isEqualTo(12.0);
+        assertThat(registry.get("employee.changes.held.age").gauge().value()).isEqualTo(90.0);
+
+        when(repository.findChangeLag()).thenThrow(new IllegalStateException("db down"));
+        feed.measureLag();
+
+        assertThat(registry.get("employee.changes.held").gauge().value()).isNaN();
+        assertThat(registry.get("employee.changes.held.age").gauge().value()).isNaN();
+    }
+
+    private static EmployeeChange change(long xid, long id, Long employeeId, String op) {
+        EmployeeRow row = op.equals("DELETE") ? null
+                : new EmployeeRow(employeeId, "First", "Last", "e" + employeeId + "@example.com", 1L);
+        return new EmployeeChange(new ChangePosition(xid, id), employeeId, op, Instant.now(), row);
+    }
+}
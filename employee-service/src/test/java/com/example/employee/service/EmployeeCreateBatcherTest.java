@@ -0,0 +1,102 @@
+package com.example.employee.service;
+
+import com.example.employee.dto.EmployeeDTO;
+import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.EmployeeRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmployeeCreateBatcherTest {
+
+    private final EmployeeRepository repository = mock(EmployeeRepository.class);
+    private final EmployeeSearchIndex searchIndex = mock(EmployeeSearchIndex.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EmployeeCreateBatcher batcher = batcher();
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void stop() {
+        batcher.destroy();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrent_creates_share_one_insert_and_each_caller_gets_its_own_row() throws Exception {
+        when(repository.insertAllIfEmailFree(anyList())).thenAnswer(inv -> {
+            List<EmployeeRow> rows = inv.getArgument(0);
+            List<EmployeeRow> inserted = new ArrayList<>();
+            // b@x.com was taken already
+            for (EmployeeRow r : rows) {
+                if (!r.email().equals("b@x.com")) inserted.add(new EmployeeRow(100L + inserted.size(), r.firstName(),
+                        r.lastName(), r.email(), r.departmentId()));
+            }
+            return inserted;
+        });
+
+        var a = create("a@x.com");
+        var b = create("b@x.com");
+        var c = create("c@x.com");
+        var d1 = create("d@x.com");
+        var d2 = create("D@X.com");
+
+        assertThat(a.get(5, TimeUnit.SECONDS).email()).isEqualTo("a@x.com");
+        assertThat(c.get(5, TimeUnit.SECONDS).email()).isEqualTo("c@x.com");
+        assertThat(a.get().id()).isNotEqualTo(c.get().id());
+        assertThatThrownBy(b::get).hasCauseInstanceOf(IllegalArgumentException.class).hasMessageContaining("Email already exists");
+        // same email in one batch: the first caller gets it, the other one the conflict
+        d1.handle((r, ex) -> null).get(5, TimeUnit.SECONDS);
+        d2.handle((r, ex) -> null).get(5, TimeUnit.SECONDS);
+        assertThat(List.of(d1, d2)).filteredOn(CompletableFuture::isCompletedExceptionally).hasSize(1);
+
+        verify(repository, times(1)).insertAllIfEmailFree(anyList());
+        verify(searchIndex).putAllAfterCommit(anyList());
+        assertThat(registry.get("employee.create.batch.size").summary().max()).isEqualTo(4.0);
+    }
+
+    @Test
+    void a_failing_batch_is_retried_row_by_row() throws Exception {
+        when(repository.insertAllIfEmailFree(anyList())).thenThrow(new IllegalStateException("value too long"));
+        when(repository.insertIfEmailFree(any(), any(), eq("ok@x.com"), any()))
+                .thenReturn(Optional.of(new EmployeeRow(7L, "F", "L", "ok@x.com", null)));
+        when(repository.insertIfEmailFree(any(), any(), eq("bad@x.com"), any()))
+                .thenThrow(new IllegalStateException("value too long"));
+
+        var ok = create("ok@x.com");
+        var bad = create("bad@x.com");
+
+        assertThat(ok.get(5, TimeUnit.SECONDS).id()).isEqualTo(7L);
+        assertThatThrownBy(bad::get).isInstanceOf(ExecutionException.class).hasMessageContaining("value too long");
+    }
+
+    private CompletableFuture<EmployeeRow> create(String email) {
+        return CompletableFuture.supplyAsync(() -> batcher.insert(
+                EmployeeDTO.builder().firstName("F").lastName("L").email(email).build()), callers);
+    }
+
+    // a mock transaction manager: the template just runs the callback
+    @SuppressWarnings("unchecked")
+    private EmployeeCreateBatcher batcher() {
+        ObjectProvider<PlatformTransactionManager> tm = mock(ObjectProvider.class);
+        when(tm.getObject()).thenReturn(mock(PlatformTransactionManager.class));
+        // a generous window, so the test's callers reliably land in one batch
+        return new EmployeeCreateBatcher(repository, searchIndex, tm, registry, true, Duration.ofMillis(300), 16, 64);
+    }
+}
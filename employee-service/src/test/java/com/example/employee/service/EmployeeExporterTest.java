@@ -0,0 +1,123 @@
+package com.example.employee.service;
+
+import com.example.employee.client.DepartmentClient;
+import com.example.employee.dto.DepartmentDTO;
+import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.EmployeeRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmployeeExporterTest {
+
+    private final EmployeeRepository repository = mock(EmployeeRepository.class);
+    private final DepartmentClient departmentClient = mock(DepartmentClient.class);
+    private final ObjectMapper json = JsonMapper.builder().findAndAddModules().build();
+    private final EmployeeExporter exporter = new EmployeeExporter(repository, departmentClient, json);
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    void csv_header_is_flushed_before_the_first_row_is_fetched() throws IOException {
+        var seenAtFirstRow = new AtomicReference<String>();
+        when(repository.streamAll()).thenReturn(Stream.of(row(1, 7L))
+                .peek(r -> seenAtFirstRow.compareAndSet(null, out.toString(UTF_8))));
+
+        exporter.export(EmployeeExporter.Format.CSV, true, out);
+
+        assertThat(seenAtFirstRow).hasValue("id,firstName,lastName,email,departmentId,departmentName\n");
+    }
+
+    @Test
+    void csv_rows_leave_missing_columns_empty() throws IOException {
+        when(repository.streamAll()).thenReturn(Stream.of(row(1, 7L), row(2, null), row(3, 8L)));
+        when(departmentClient.getDepartments(List.of(7L, 8L))).thenReturn(Map.of(7L, new DepartmentDTO(7L, "Eng", "d")));
+
+        long written = exporter.export(EmployeeExporter.Format.CSV, true, out);
+
+        assertThat(written).isEqualTo(3);
+        assertThat(lines()).containsExactly(
+                "id,firstName,lastName,email,departmentId,departmentName",
+                "1,First1,Last1,e1@x.com,7,Eng",
+                "2,First2,Last2,e2@x.com,,",
+                "3,First3,Last3,e3@x.com,8,");
+    }
+
+    @Test
+    void csv_without_expand_has_no_department_name_column() throws IOException {
+        when(repository.streamAll()).thenReturn(Stream.of(row(1, 7L)));
+
+        exporter.export(EmployeeExporter.Format.CSV, false, out);
+
+        assertThat(lines()).containsExactly("id,firstName,lastName,email,departmentId", "1,First1,Last1,e1@x.com,7");
+        verify(departmentClient, never()).getDepartments(anyCollection());
+    }
+
+    @Test
+    void ndjson_is_one_employee_per_line_with_the_department_only_when_expanded() throws IOException {
+        when(repository.streamAll()).thenReturn(Stream.of(row(1, 7L), row(2, null)));
+        when(departmentClient.getDepartments(List.of(7L))).thenReturn(Map.of(7L, new DepartmentDTO(7L, "Eng", "d")));
+
+        exporter.export(EmployeeExporter.Format.NDJSON, true, out);
+
+        assertThat(lines()).containsExactly(
+                "{\"id\":1,\"firstName\":\"First1\",\"lastName\":\"Last1\",\"email\":\"e1@x.com\",\"departmentId\":7,"
+                        + "\"department\":{\"id\":7,\"name\":\"Eng\",\"description\":\"d\"}}",
+                "{\"id\":2,\"firstName\":\"First2\",\"lastName\":\"Last2\",\"email\":\"e2@x.com\",\"departmentId\":null}");
+    }
+
+    @Test
+    void each_chunk_of_500_costs_one_department_lookup_and_is_flushed_before_the_next() throws IOException {
+        when(repository.streamAll()).thenReturn(LongStream.rangeClosed(1, 1201).mapToObj(id -> row(id, id % 3 + 1)));
+        var linesAtLookup = new ArrayList<Integer>();
+        var lookedUp = new ArrayList<Collection<Long>>();
+        when(departmentClient.getDepartments(anyCollection())).thenAnswer(inv -> {
+            linesAtLookup.add(lines().size());
+            lookedUp.add(inv.getArgument(0));
+            return Map.of();
+        });
+
+        long written = exporter.export(EmployeeExporter.Format.NDJSON, true, out);
+
+        assertThat(written).isEqualTo(1201);
+        assertThat(lines()).hasSize(1201);
+        assertThat(linesAtLookup).containsExactly(0, 500, 1000);
+        assertThat(lookedUp).allSatisfy(ids -> assertThat(ids).containsExactlyInAnyOrder(1L, 2L, 3L));
+    }
+
+    @Test
+    void a_failed_department_lookup_still_exports_the_rows() throws IOException {
+        when(repository.streamAll()).thenReturn(Stream.of(row(1, 7L)));
+        when(departmentClient.getDepartments(anyCollection())).thenThrow(new IllegalStateException("down"));
+
+        exporter.export(EmployeeExporter.Format.CSV, true, out);
+
+        assertThat(lines()).containsExactly("id,firstName,lastName,email,departmentId,departmentName",
+                "1,First1,Last1,e1@x.com,7,");
+    }
+
+    private List<String> lines() {
+        return out.toString(UTF_8).lines().toList();
+    }
+
+    private static EmployeeRow row(long id, Long departmentId) {
+        return new EmployeeRow(id, "First" + id, "Last" + id, "e" + id + "@x.com", departmentId);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.employee.service;
+
+import com.example.employee.repo.EmployeeRow;
+import com.example.employee.testsupport.PostgresTest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class EmployeeImporterTest extends PostgresTest {
+
+    private final ObjectMapper json = JsonMapper.builder().findAndAddModules().build();
+    private final EmployeeSearchIndex searchIndex = mock(EmployeeSearchIndex.class);
+    private final EmployeeAuditTrail audit = mock(EmployeeAuditTrail.class);
+    private JdbcTemplate jdbc;
+    private EmployeeImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("truncate employee.employees, employee.outbox_event restart identity cascade");
+        importer = new EmployeeImporter(jdbc, new DataSourceTransactionManager(dataSource), json,
+                Validation.buildDefaultValidatorFactory().getValidator(), searchIndex, audit);
+    }
+
+    @Test
+    void a_duplicate_email_within_the_file_keeps_its_first_row() throws IOException {
+        List<JsonNode> out = run(EmployeeExporter.Format.NDJSON, """
+                {"firstName":"Ann","lastName":"A","email":"a@x.com"}
+                {"firstName":"Bob","lastName":"B","email":"b@x.com"}
+                {"firstName":"Ann","lastName":"Again","email":"A@X.com"}
+                """);
+
+        assertThat(out).hasSize(2);
+        assertReject(out.get(0), 3, "A@X.com", "Duplicate email in import");
+        assertSummary(out.get(1), 3, 2, 1);
+        assertThat(jdbc.queryForList("select last_name from employee.employees order by id", String.class))
+                .containsExactly("A", "B");
+    }
+
+    @Test
+    void an_email_already_in_the_table_is_rejected_and_the_rest_inserted_with_their_events() throws IOException {
+        jdbc.update("insert into employee.employees (first_name, last_name, email) values ('Cid', 'C', 'c@x.com')");
+
+        List<JsonNode> out = run(EmployeeExporter.Format.CSV, """
+                firstName,lastName,email,departmentId
+                Cid,Copy,C@x.com,
+                Dee,D,d@x.com,7
+                """);
+
+        assertThat(out).hasSize(2);
+        assertReject(out.get(0), 1, "C@x.com", "Email already exists");
+        assertSummary(out.get(1), 2, 1, 1);
+        Long dee = jdbc.queryForObject("select id from employee.employees where email = 'd@x.com'", Long.class);
+        assertThat(jdbc.queryForObject("select department_id from employee.employees where id = ?", Long.class, dee))
+                .isEqualTo(7L);
+        assertThat(jdbc.queryForList("select aggregate_id from employee.outbox_event", Long.class)).containsExactly(dee);
+        verify(searchIndex).putAllAfterCommit(List.of(new EmployeeRow(dee, "Dee", "D", "d@x.com", 7L)));
+        verify(audit).recordAll(EmployeeAuditTrail.Action.CREATE, List.of(new EmployeeRow(dee, "Dee", "D", "d@x.com", 7L)));
+    }
+
+    @Test
+    void rejects_stream_in_row_order_and_the_summary_comes_last() throws IOException {
+        String jobId = importer.start().jobId();
+        List<JsonNode> out = run(jobId, EmployeeExporter.Format.NDJSON, """
+                {"firstName":"Ann","lastName":"A","email":"a@x.com"}
+                {not json
+
+                {"firstName":"","lastName":"X","email":"bad"}
+                {"firstName":"Ann","lastName":"Again","email":"a@x.com"}
+                """);
+
+        assertThat(out).hasSize(4);
+        assertReject(out.get(0), 2, null, "Malformed JSON");
+        assertReject(out.get(1), 3, "bad", "email must be valid; firstName is required");
+        assertReject(out.get(2), 4, "a@x.com", "Duplicate email in import");
+        assertSummary(out.get(3), 4, 1, 3);
+        assertThat(importer.job(jobId)).hasValueSatisfying(job -> {
+            assertThat(job.status()).isEqualTo("COMPLETED");
+            assertThat(job.inserted()).isEqualTo(1);
+            assertThat(job.failed()).isEqualTo(3);
+            assertThat(job.finishedAt()).isNotNull();
+        });
+    }
+
+    private List<JsonNode> run(EmployeeExporter.Format format, String body) throws IOException {
+        return run(importer.start().jobId(), format, body);
+    }
+
+    private List<JsonNode> run(String jobId, EmployeeExporter.Format format, String body) throws IOException {
+        var out = new ByteArrayOutputStream();
+        importer.run(jobId, format, new ByteArrayInputStream(body.getBytes(UTF_8)), out);
+        return out.toString(UTF_8).lines().map(this::parse).toList();
+    }
+
+    private JsonNode parse(String line) {
+        try {
+            return json.readTree(line);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void assertReject(JsonNode line, long row, String email, String error) {
+        assertThat(line.get("row").asLong()).isEqualTo(row);
+        assertThat(line.get("email").isNull() ? null : line.get("email").asText()).isEqualTo(email);
+        assertThat(line.get("error").asText()).isEqualTo(error);
+    }
+
+    private static void assertSummary(JsonNode line, long received, long inserted, long failed) {
+        assertThat(line.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(line.get("received").asLong()).isEqualTo(received);
+        assertThat(line.get("inserted").asLong()).isEqualTo(inserted);
+        assertThat(line.get("failed").asLong()).isEqualTo(failed);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.employee.service;
+
+import com.example.employee.domain.Employee;
+import com.example.employee.dto.EmployeeSuggestionDTO;
+import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.EmployeeRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmployeeSearchIndexTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EmployeeRepository repository = mock(EmployeeRepository.class);
+    private final EmployeeSearchIndex index = new EmployeeSearchIndex(repository, registry);
+
+    @BeforeEach
+    void load() {
+        when(repository.streamAll()).thenReturn(Stream.of(
+                new EmployeeRow(1L, "Alice", "Nguyen", "alice.nguyen@example.com", 1L),
+                new EmployeeRow(2L, "Alina", "Martinez", "amartinez@example.com", 1L),
+                new EmployeeRow(3L, "Bob", "Alison", "bob@example.com", 2L)
+        ));
+        index.rebuild();
+    }
+
+    @Test
+    void prefix_matches_tie_break_on_last_name_and_exact_terms_win() {
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.suggest("ali", 10)).extracting(EmployeeSuggestionDTO::id).containsExactly(3L, 2L, 1L);
+        assertThat(index.suggest("alice", 10)).extracting(EmployeeSuggestionDTO::id).containsExactly(1L);
+    }
+
+    @Test
+    void infix_and_multi_token_queries() {
+        assertThat(index.suggest("tinez", 10)).extracting(EmployeeSuggestionDTO::id).containsExactly(2L);
+        assertThat(index.suggest("ali NGU", 10)).extracting(EmployeeSuggestionDTO::id).containsExactly(1L);
+        assertThat(index.suggest("alice.ng", 10)).extracting(EmployeeSuggestionDTO::id).containsExactly(1L);
+    }
+
+    @Test
+    void incremental_updates_and_deletes() {
+        index.putAfterCommit(Employee.builder().id(2L).firstName("Dina").lastName("Khan").email("dina@example.com").build());
+        index.removeAfterCommit(3L);
+
+        assertThat(index.suggest("ali", 10)).extracting(EmployeeSuggestionDTO::id).containsExactly(1L);
+        assertThat(index.suggest("khan", 10)).extracting(EmployeeSuggestionDTO::id).containsExactly(2L);
+        assertThat(index.suggest("tinez", 10)).isEmpty();
+    }
+
+    @Test
+    void size_is_reported_as_meters() {
+        assertThat(registry.get("employee.search.index.documents").gauge().value()).isEqualTo(3.0);
+        assertThat(registry.get("employee.search.index.memory").gauge().value()).isPositive();
+    }
+}
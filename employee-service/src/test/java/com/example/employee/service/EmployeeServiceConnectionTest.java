@@ -0,0 +1,177 @@
+package com.example.employee.service;
+
+import com.example.employee.client.DepartmentClient;
+import com.example.employee.domain.Employee;
+import com.example.employee.dto.DepartmentDTO;
+import com.example.employee.dto.DepartmentStatsDTO;
+import com.example.employee.dto.EmployeeDTO;
+import com.example.employee.repo.EmployeeRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Real transactional proxies over a pool of ONE connection: department-service is only called after the
+ * read's transaction gave its connection back, so a hanging department call cannot starve other reads.
+ */
+@SpringJUnitConfig(EmployeeServiceConnectionTest.Pool.class)
+class EmployeeServiceConnectionTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import(EmployeeService.class)
+    static class Pool {
+        @Bean
+        SimpleMeterRegistry registry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean(destroyMethod = "close")
+        HikariDataSource dataSource(SimpleMeterRegistry registry) {
+            var pool = new HikariDataSource();
+            pool.setJdbcUrl("jdbc:h2:mem:pool-" + UUID.randomUUID());
+            pool.setMaximumPoolSize(1);
+            pool.setConnectionTimeout(250);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            return pool;
+        }
+
+        @Bean
+        DataSourceTransactionManager transactionManager(HikariDataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+    }
+
+    @MockBean EmployeeRepository repository;
+    @MockBean DepartmentClient departmentClient;
+    @MockBean IdempotencyStore idempotencyStore;
+    @MockBean EmployeeSearchIndex searchIndex;
+    @MockBean EmployeeCreateBatcher createBatcher;
+    @MockBean EmployeeAuditTrail audit;
+
+    @Autowired EmployeeService service;
+    @Autowired HikariDataSource pool;
+    @Autowired SimpleMeterRegistry registry;
+
+    private final DepartmentDTO eng = new DepartmentDTO(7L, "Eng", "desc");
+    private final Employee ada = Employee.builder().id(1L).firstName("Ada").lastName("L").email("ada@x.com").departmentId(7L).build();
+
+    @Test
+    void get_by_id_calls_department_service_after_its_transaction_returned_the_connection() {
+        when(repository.findById(1L)).thenAnswer(inv -> {
+            assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+            query();
+            return Optional.of(ada);
+        });
+        when(departmentClient.getDepartment(7L)).thenAnswer(inv -> {
+            assertNothingHeld();
+            return eng;
+        });
+
+        EmployeeDTO out = service.getById(1L);
+
+        assertThat(out.getDepartment()).isEqualTo(eng);
+        assertThat(registry.get("hikaricp.connections.acquire").timer().count()).isPositive();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void list_enriches_the_page_outside_the_transaction() {
+        when(repository.findAll(any(Example.class), any(Pageable.class))).thenAnswer(inv -> {
+            query();
+            return new PageImpl<>(List.of(ada), PageRequest.of(0, 20), 1);
+        });
+        when(departmentClient.getDepartments(anyList())).thenAnswer(inv -> {
+            assertNothingHeld();
+            return Map.of(7L, eng);
+        });
+
+        var page = service.list(Optional.empty(), Optional.empty(), Optional.empty(), PageRequest.of(0, 20));
+
+        assertThat(page.getContent()).extracting(EmployeeDTO::getDepartment).containsExactly(eng);
+    }
+
+    @Test
+    void a_hanging_department_call_does_not_starve_other_reads() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(repository.findById(1L)).thenAnswer(inv -> {
+            query();
+            return Optional.of(ada);
+        });
+        when(departmentClient.getDepartment(7L)).thenAnswer(inv -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return eng;
+        });
+        EmployeeRepository.DeptCount headcount = headcount(7L, 3);
+        when(repository.headcountByDepartment()).thenAnswer(inv -> {
+            query();
+            return List.of(headcount);
+        });
+
+        CompletableFuture<EmployeeDTO> slow = CompletableFuture.supplyAsync(() -> service.getById(1L));
+        try {
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+            // the pool's only connection has to be free: the stats transaction would time out after 250ms otherwise
+            assertThat(service.stats()).singleElement()
+                    .isEqualTo(new DepartmentStatsDTO(7L, 3));
+            assertThat(registry.get("hikaricp.connections.pending").gauge().value()).isZero();
+        } finally {
+            release.countDown();
+        }
+        assertThat(slow.get(5, TimeUnit.SECONDS).getDepartment()).isEqualTo(eng);
+    }
+
+    // stands in for the JPA query: runs on the transaction's connection
+    private void query() {
+        new JdbcTemplate(pool).queryForObject("select 1", Integer.class);
+    }
+
+    private void assertNothingHeld() {
+        assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+        assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+
+    private static EmployeeRepository.DeptCount headcount(Long departmentId, long count) {
+        return new EmployeeRepository.DeptCount() {
+            @Override
+            public Long getDepartmentId() {
+                return departmentId;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+}
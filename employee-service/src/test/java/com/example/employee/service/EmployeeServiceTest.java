@@ -1,11 +1,18 @@
 package com.example.employee.service;
 
 import com.example.employee.client.DepartmentClient;
+import com.example.employee.config.ReadYourWrites;
 import com.example.employee.domain.Employee;
 import com.example.employee.dto.DepartmentDTO;
+import com.example.employee.dto.DepartmentStatsDTO;
+import com.example.employee.dto.EmployeeBulkUpdateDTO;
+import com.example.employee.dto.EmployeeBulkUpdateResultDTO;
 import com.example.employee.dto.EmployeeDTO;
+import com.example.employee.dto.EmployeePatchDTO;
+import com.example.employee.error.BadRequestException;
 import com.example.employee.error.ResourceNotFoundException;
 import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.repo.EmployeeRow;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.DisplayNameGenerator;
@@ -16,9 +23,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +45,18 @@ public class EmployeeServiceTest {
     EmployeeRepository repository;
     @Mock
     DepartmentClient departmentClient;
+    @Mock
+    EmployeeSearchIndex searchIndex;
+    @Mock
+    IdempotencyStore idempotencyStore;
+    @Mock
+    Outbox outbox;
+    @Mock
+    EmployeeAuditTrail audit;
+    @Mock
+    EmployeeCreateBatcher createBatcher;
+    @Mock
+    ObjectProvider<PlatformTransactionManager> transactionManager;
 
 
 
@@ -44,28 +70,59 @@ public class EmployeeServiceTest {
     })
     @DisplayName("create(): throws when email exists; persists otherwise")
     void create_handles_duplicates(String email, boolean duplicate) {
-        when(repository.existsByEmail(email)).thenReturn(duplicate);
+        when(repository.insertIfEmailFree("X", "Y", email, null)).thenReturn(duplicate
+                ? Optional.empty()
+                : Optional.of(new EmployeeRow(101L, "X", "Y", email, null)));
         if (duplicate) {
             assertThatThrownBy(() -> service.create(EmployeeDTO.builder()
                     .firstName("X").lastName("Y").email(email).build()))
                     .isInstanceOf(IllegalArgumentException.class)
                     .hasMessageContaining("Email already exists");
         } else {
-            when(repository.save(any(Employee.class)))
-                    .thenAnswer(inv -> { Employee e = inv.getArgument(0); e.setId(101L); return e; });
             var out = service.create(EmployeeDTO.builder()
                     .firstName("X").lastName("Y").email(email).build());
             assertThat(out.getId()).isEqualTo(101L);
         }
     }
+    @Test
+    void a_batched_create_makes_the_request_read_its_own_writes() {
+        var dto = EmployeeDTO.builder().firstName("A").lastName("B").email("a@b.com").build();
+        when(createBatcher.insert(dto)).thenReturn(new EmployeeRow(7L, "A", "B", "a@b.com", null));
+        var written = new AtomicInteger();
+        ReadYourWrites.begin(false, written::incrementAndGet);
+        try {
+            assertThat(service.createBatched(dto).getId()).isEqualTo(7L);
+        } finally {
+            ReadYourWrites.end();
+        }
+
+        assertThat(written).hasValue(1);
+    }
+
     @Test
     void create_conflict_when_email_exists() {
         var dto = EmployeeDTO.builder().firstName("A").lastName("B").email("a@b.com").departmentId(1L).build();
-        when(repository.existsByEmail("a@b.com")).thenReturn(true);
+        when(repository.insertIfEmailFree("A", "B", "a@b.com", 1L)).thenReturn(Optional.empty());
 
         var ex = assertThrows(IllegalArgumentException.class, () -> service.create(dto));
         assertTrue(ex.getMessage().toLowerCase().contains("email"));
-        verify(repository, never()).save(any());
+        verify(searchIndex, never()).putAfterCommit(any(EmployeeRow.class));
+    }
+
+    @Test
+    void create_is_a_single_repository_call_with_the_event_in_the_same_statement() {
+        var dto = EmployeeDTO.builder().firstName("A").lastName("B").email("a@b.com").departmentId(1L).build();
+        var row = new EmployeeRow(7L, "A", "B", "a@b.com", 1L);
+        when(repository.insertIfEmailFree("A", "B", "a@b.com", 1L)).thenReturn(Optional.of(row));
+
+        var out = service.create(dto);
+
+        assertThat(out.getId()).isEqualTo(7L);
+        verify(repository).insertIfEmailFree("A", "B", "a@b.com", 1L);
+        verifyNoMoreInteractions(repository);
+        verifyNoInteractions(outbox);
+        verify(searchIndex).putAfterCommit(row);
+        verify(audit).record(EmployeeAuditTrail.Action.CREATE, row);
     }
 
     @Test
@@ -78,11 +135,262 @@ public class EmployeeServiceTest {
     void getAll_ok_maps_department() {
         var e = Employee.builder().id(1L).firstName("A").lastName("B").email("a@b.com").departmentId(7L).build();
         when(repository.findAll()).thenReturn(List.of(e));
-        when(departmentClient.getDepartment(7L)).thenReturn(new DepartmentDTO(7L, "Eng", "desc"));
+        when(departmentClient.getDepartments(List.of(7L))).thenReturn(Map.of(7L, new DepartmentDTO(7L, "Eng", "desc")));
 
         var list = service.getAll();
         assertEquals(1, list.size());
         assertEquals("Eng", list.get(0).getDepartment().getName());
     }
 
+    @Test
+    void getAll_resolves_departments_in_one_batch_call() {
+        var a = Employee.builder().id(1L).firstName("A").lastName("B").email("a@b.com").departmentId(7L).build();
+        var b = Employee.builder().id(2L).firstName("C").lastName("D").email("c@d.com").departmentId(7L).build();
+        var c = Employee.builder().id(3L).firstName("E").lastName("F").email("e@f.com").departmentId(8L).build();
+        var d = Employee.builder().id(4L).firstName("G").lastName("H").email("g@h.com").build();
+        when(repository.findAll()).thenReturn(List.of(a, b, c, d));
+        when(departmentClient.getDepartments(List.of(7L, 8L))).thenReturn(Map.of(
+                7L, new DepartmentDTO(7L, "Eng", "desc"),
+                8L, new DepartmentDTO(8L, "HR", "people")));
+
+        var list = service.getAll();
+
+        assertThat(list).extracting(dto -> dto.getDepartment() == null ? null : dto.getDepartment().getName())
+                .containsExactly("Eng", "Eng", "HR", null);
+        verify(departmentClient, times(1)).getDepartments(anyCollection());
+        verify(departmentClient, never()).getDepartment(anyLong());
+    }
+
+    @Test
+    void listAfter_fetches_one_extra_row_and_continues_from_the_cursor() {
+        var a = Employee.builder().id(1L).firstName("A").lastName("Adams").email("a@x.com").build();
+        var b = Employee.builder().id(2L).firstName("B").lastName("Baker").email("b@x.com").build();
+        var c = Employee.builder().id(3L).firstName("C").lastName("Baker").email("c@x.com").build();
+        when(repository.findFirstByLastName(3)).thenReturn(List.of(a, b, c));
+
+        var first = service.listAfter("lastName", null, 2, EmployeeView.FULL, token -> "/next?after=" + token);
+
+        assertThat(first.items()).extracting("id").containsExactly(1L, 2L);
+        assertThat(first.nextCursor()).isNotBlank();
+        assertThat(first.next()).isEqualTo("/next?after=" + first.nextCursor());
+
+        when(repository.findAfterLastName("Baker", 2L, 3)).thenReturn(List.of(c));
+        var second = service.listAfter("lastName", first.nextCursor(), 2, EmployeeView.FULL, token -> "/next?after=" + token);
+
+        assertThat(second.items()).extracting("id").containsExactly(3L);
+        assertThat(second.nextCursor()).isNull();
+        assertThat(second.next()).isNull();
+    }
+
+    @Test
+    void listAfter_looks_up_departments_only_when_expanded_and_honours_sparse_fields() {
+        var a = Employee.builder().id(1L).firstName("A").lastName("Adams").email("a@x.com").departmentId(7L).build();
+        when(repository.findFirstById(2)).thenReturn(List.of(a));
+
+        var plain = service.listAfter("id", null, 1, EmployeeView.parse(null, null), token -> token);
+        assertThat(plain.items()).singleElement()
+                .isEqualTo(EmployeeDTO.builder().id(1L).firstName("A").lastName("Adams").email("a@x.com").departmentId(7L).build());
+        verifyNoInteractions(departmentClient);
+
+        when(departmentClient.getDepartments(List.of(7L))).thenReturn(Map.of(7L, new DepartmentDTO(7L, "Eng", null)));
+        var sparse = service.listAfter("id", null, 1, EmployeeView.parse("id,lastName", "department"), token -> token);
+        assertThat(sparse.items()).singleElement().isEqualTo(Map.of("id", 1L, "lastName", "Adams",
+                "department", new DepartmentDTO(7L, "Eng", null)));
+    }
+
+    @Test
+    void listAfter_rejects_cursor_from_another_sort_order() {
+        var a = Employee.builder().id(1L).firstName("A").lastName("Adams").email("a@x.com").build();
+        var b = Employee.builder().id(2L).firstName("B").lastName("Baker").email("b@x.com").build();
+        when(repository.findFirstById(2)).thenReturn(List.of(a, b));
+        var byId = service.listAfter("id", null, 1, EmployeeView.FULL, token -> token);
+
+        assertThrows(BadRequestException.class, () -> service.listAfter("lastName", byId.nextCursor(), 1, EmployeeView.FULL, token -> token));
+        assertThrows(BadRequestException.class, () -> service.listAfter("id", "not-a-cursor!", 1, EmployeeView.FULL, token -> token));
+    }
+
+    @Test
+    void search_escapes_like_wildcards_and_pages_through_ranked_query() {
+        var a = Employee.builder().id(1L).firstName("A").lastName("Under_Score").email("u@x.com").build();
+        var request = PageRequest.of(0, 20);
+        when(repository.searchRanked("r_s", "%r\\_s%", request)).thenReturn(new PageImpl<>(List.of(a), request, 1));
+
+        var page = service.search("  R_S ", request);
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent()).extracting(EmployeeDTO::getLastName).containsExactly("Under_Score");
+    }
+
+    @Test
+    void getAll_without_expand_skips_the_department_lookup() {
+        var e = Employee.builder().id(1L).firstName("A").lastName("B").email("a@b.com").departmentId(7L).build();
+        when(repository.findAll()).thenReturn(List.of(e));
+
+        var list = service.getAll(new EmployeeView(EmployeeView.ALL_FIELDS, false));
+
+        assertThat(list).extracting(dto -> ((EmployeeDTO) dto).getDepartment()).containsOnlyNulls();
+        verifyNoInteractions(departmentClient);
+    }
+
+    @Test
+    void sparse_view_selects_only_requested_fields_and_embeds_the_department() {
+        var view = EmployeeView.parse("id,email", "department");
+        Map<String, Object> row = new java.util.LinkedHashMap<>(Map.of("id", 1L, "email", "a@b.com", "departmentId", 7L));
+        when(repository.findFieldsById(1L, List.of("id", "email", "departmentId"))).thenReturn(Optional.of(row));
+        when(departmentClient.getDepartments(List.of(7L))).thenReturn(Map.of(7L, new DepartmentDTO(7L, "Eng", "desc")));
+
+        @SuppressWarnings("unchecked")
+        var result = (Map<String, Object>) service.getById(1L, view);
+
+        assertThat(result).containsOnlyKeys("id", "email", "department");
+        assertThat(((DepartmentDTO) result.get("department")).getName()).isEqualTo("Eng");
+        verify(repository, never()).findById(anyLong());
+    }
+
+    @Test
+    void sparse_search_uses_the_projected_ranked_query() {
+        var view = EmployeeView.parse("id,lastName", null);
+        var request = PageRequest.of(0, 20);
+        Map<String, Object> row = new java.util.LinkedHashMap<>(Map.of("id", 1L, "lastName", "Ross"));
+        when(repository.searchRankedFields(List.of("id", "lastName"), "ross", "%ross%", request))
+                .thenReturn(new PageImpl<>(List.of(row), request, 1));
+
+        var page = service.search("Ross", request, view);
+
+        assertThat(page.getContent()).isEqualTo(List.of(row));
+        verify(repository, never()).searchRanked(anyString(), anyString(), any());
+        verifyNoInteractions(departmentClient);
+    }
+
+    @Test
+    void unpaged_search_reads_the_top_matches_without_counting() {
+        var a = Employee.builder().id(1L).firstName("Ann").lastName("A").email("a@x.com").build();
+        var top = PageRequest.of(0, 100);
+        when(repository.searchRankedTop("ann", "%ann%", top)).thenReturn(new SliceImpl<>(List.of(a), top, true));
+
+        var best = service.search("Ann", new EmployeeView(EmployeeView.ALL_FIELDS, false));
+
+        assertThat(best.hasNext()).isTrue();
+        assertThat(best.getContent()).extracting(dto -> ((EmployeeDTO) dto).getEmail()).containsExactly("a@x.com");
+        verify(repository, never()).searchRanked(anyString(), anyString(), any());
+    }
+
+    @Test
+    void sparse_unpaged_search_uses_the_projected_top_query() {
+        var view = EmployeeView.parse("id", null);
+        Map<String, Object> row = new java.util.LinkedHashMap<>(Map.of("id", 1L));
+        when(repository.searchRankedFieldsTop(List.of("id"), "ross", "%ross%", 100))
+                .thenReturn(new SliceImpl<>(List.of(row), PageRequest.of(0, 100), false));
+
+        var best = service.search("Ross", view);
+
+        assertThat(best.hasNext()).isFalse();
+        assertThat(best.getContent()).isEqualTo(List.of(row));
+        verify(repository, never()).searchRankedFields(anyList(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void bulkUpdate_runs_one_set_based_update_and_indexes_the_changed_rows() {
+        var patch = new EmployeePatchDTO();
+        patch.setDepartmentId(5L);
+        var moved = new EmployeeRow(1L, "A", "B", "a@b.com", 5L);
+        when(repository.bulkUpdate(3L, null, null, null, null, 5L, 10_001))
+                .thenReturn(new EmployeeRepository.BulkUpdate(2, List.of(moved)));
+
+        var result = service.bulkUpdate(new EmployeeBulkUpdateDTO(new EmployeeBulkUpdateDTO.Filter(3L, null, null), patch));
+
+        assertThat(result).isEqualTo(new EmployeeBulkUpdateResultDTO(2, 1));
+        verify(searchIndex).putAllAfterCommit(List.of(moved));
+        verify(audit).recordAll(EmployeeAuditTrail.Action.BULK_UPDATE, List.of(moved));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void bulkUpdate_rejects_email_patches_empty_filters_and_oversized_matches() {
+        var email = new EmployeePatchDTO();
+        email.setEmail("x@y.com");
+        var dept = new EmployeePatchDTO();
+        dept.setDepartmentId(5L);
+
+        assertThrows(BadRequestException.class, () -> service.bulkUpdate(
+                new EmployeeBulkUpdateDTO(new EmployeeBulkUpdateDTO.Filter(3L, null, null), email)));
+        assertThrows(BadRequestException.class, () -> service.bulkUpdate(
+                new EmployeeBulkUpdateDTO(new EmployeeBulkUpdateDTO.Filter(null, null, " "), dept)));
+
+        when(repository.bulkUpdate(any(), any(), eq("example.com"), any(), any(), any(), anyInt()))
+                .thenReturn(new EmployeeRepository.BulkUpdate(10_001, List.of()));
+        assertThrows(BadRequestException.class, () -> service.bulkUpdate(
+                new EmployeeBulkUpdateDTO(new EmployeeBulkUpdateDTO.Filter(null, null, "example.com"), dept)));
+        verifyNoInteractions(searchIndex);
+    }
+
+    @Test
+    void search_rejects_oversized_pages() {
+        assertThrows(BadRequestException.class, () -> service.search("ann", PageRequest.of(0, 500)));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void stats_reads_maintained_counters() {
+        EmployeeRepository.DeptCount eng = new EmployeeRepository.DeptCount() {
+            public Long getDepartmentId() { return 7L; }
+            public long getCount() { return 12L; }
+        };
+        when(repository.headcountByDepartment()).thenReturn(List.of(eng));
+        when(repository.headcountOf(7L)).thenReturn(12L);
+
+        assertThat(service.stats()).containsExactly(new DepartmentStatsDTO(7L, 12L));
+        assertThat(service.stats(7L)).isEqualTo(new DepartmentStatsDTO(7L, 12L));
+    }
+
+    @Test
+    void create_with_idempotency_key_goes_through_the_store() {
+        var dto = EmployeeDTO.builder().firstName("A").lastName("B").email("a@b.com").build();
+        var stored = EmployeeDTO.builder().id(5L).firstName("A").lastName("B").email("a@b.com").build();
+        when(idempotencyStore.<EmployeeDTO>execute(eq("k1"), eq(dto), eq(EmployeeDTO.class), any())).thenReturn(stored);
+
+        assertThat(service.create(dto, "k1")).isSameAs(stored);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void update_overwrites_every_field_in_one_statement() {
+        var row = new EmployeeRow(3L, "A", "B", "a@b.com", null);
+        when(repository.updateById(3L, "A", "B", "a@b.com", null, false))
+                .thenReturn(Optional.of(new EmployeeRepository.Written(row, 1L)));
+
+        var out = service.update(3L, EmployeeDTO.builder().firstName("A").lastName("B").email("a@b.com").build());
+
+        assertThat(out.getDepartmentId()).isNull();
+        verify(repository, never()).findById(any());
+        verify(searchIndex).putAfterCommit(row);
+    }
+
+    @Test
+    void patch_passes_only_the_given_fields_and_404s_for_unknown_ids() {
+        var patch = new EmployeePatchDTO();
+        patch.setDepartmentId(2L);
+        var row = new EmployeeRow(3L, "A", "B", "a@b.com", 2L);
+        when(repository.updateById(3L, null, null, null, 2L, true))
+                .thenReturn(Optional.of(new EmployeeRepository.Written(row, 1L)));
+        when(repository.updateById(4L, null, null, null, 2L, true)).thenReturn(Optional.empty());
+
+        assertThat(service.patch(3L, patch).getDepartmentId()).isEqualTo(2L);
+        assertThrows(ResourceNotFoundException.class, () -> service.patch(4L, patch));
+    }
+
+    @Test
+    void delete_is_one_statement_and_404s_for_unknown_ids() {
+        var deleted = new EmployeeRow(4L, "A", "B", "a@b.com", 9L);
+        when(repository.deleteReturning(4L)).thenReturn(Optional.of(deleted));
+        when(repository.deleteReturning(5L)).thenReturn(Optional.empty());
+
+        service.delete(4L);
+        assertThrows(ResourceNotFoundException.class, () -> service.delete(5L));
+
+        verify(searchIndex).removeAfterCommit(4L);
+        verify(audit).record(EmployeeAuditTrail.Action.DELETE, deleted);
+        verify(repository, never()).findById(any());
+    }
+
 }
@@ -0,0 +1,170 @@
+package com.example.employee.service;
+
+import com.example.employee.domain.IdempotencyKey;
+import com.example.employee.dto.EmployeeDTO;
+import com.example.employee.error.BadRequestException;
+import com.example.employee.error.BusinessConflictException;
+import com.example.employee.repo.IdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+    private final ObjectMapper json = new ObjectMapper();
+    private final IdempotencyStore store = new IdempotencyStore(repository, json, new SimpleMeterRegistry(),
+            Duration.ofHours(24), Duration.ofSeconds(1), 100);
+
+    private final EmployeeDTO request = EmployeeDTO.builder().firstName("Dina").lastName("Khan").email("dina@example.com").build();
+
+    @Test
+    void first_call_runs_and_stores_response_then_replays_from_memory() {
+        when(repository.claim(eq("k1"), anyString(), any(), any())).thenReturn(1);
+        var runs = new AtomicInteger();
+
+        var first = store.execute("k1", request, EmployeeDTO.class, () -> created(runs.incrementAndGet()));
+        var second = store.execute("k1", request, EmployeeDTO.class, () -> created(runs.incrementAndGet()));
+
+        assertThat(first.getId()).isEqualTo(1L);
+        assertThat(second.getId()).isEqualTo(1L);
+        assertThat(runs).hasValue(1);
+        verify(repository).complete(eq("k1"), contains("\"id\":1"));
+        verify(repository, times(1)).claim(eq("k1"), anyString(), any(), any());
+    }
+
+    @Test
+    void key_claimed_elsewhere_replays_the_stored_response() {
+        var firstRun = new AtomicInteger();
+        var requestHash = new AtomicReference<String>();
+        when(repository.claim(eq("k2"), anyString(), any(), any())).thenAnswer(inv -> {
+            requestHash.set(inv.getArgument(1));
+            return 0;
+        });
+        // the row as another instance committed it
+        when(repository.findById("k2")).thenAnswer(inv -> Optional.of(new IdempotencyKey("k2", requestHash.get(),
+                json.writeValueAsString(created(42)), Instant.now(), Instant.now().plusSeconds(60))));
+
+        var out = store.execute("k2", request, EmployeeDTO.class, () -> created(firstRun.incrementAndGet()));
+
+        assertThat(out.getId()).isEqualTo(42L);
+        assertThat(firstRun).hasValue(0);
+        verify(repository, never()).complete(anyString(), anyString());
+    }
+
+    @Test
+    void same_key_with_different_body_is_a_conflict() {
+        when(repository.claim(eq("k3"), anyString(), any(), any())).thenReturn(1);
+        store.execute("k3", request, EmployeeDTO.class, () -> created(1));
+
+        var other = EmployeeDTO.builder().firstName("Other").lastName("Person").email("o@example.com").build();
+        assertThatThrownBy(() -> store.execute("k3", other, EmployeeDTO.class, () -> created(2)))
+                .isInstanceOf(BusinessConflictException.class);
+    }
+
+    @Test
+    void a_key_longer_than_the_column_is_rejected_before_anything_is_claimed() {
+        var runs = new AtomicInteger();
+
+        assertThatThrownBy(() -> store.execute("k".repeat(201), request, EmployeeDTO.class,
+                () -> created(runs.incrementAndGet())))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("200");
+        assertThat(runs).hasValue(0);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void a_slow_request_does_not_hold_up_other_keys() throws Exception {
+        when(repository.claim(anyString(), anyString(), any(), any())).thenReturn(1);
+        var inAction = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            // "Aa" and "BB" have the same hash code
+            Future<EmployeeDTO> slow = pool.submit(() -> store.execute("Aa", request, EmployeeDTO.class, () -> {
+                inAction.countDown();
+                await(release);
+                return created(1);
+            }));
+            assertThat(inAction.await(5, TimeUnit.SECONDS)).isTrue();
+
+            var other = store.execute("BB", request, EmployeeDTO.class, () -> created(2));
+
+            assertThat(other.getId()).isEqualTo(2L);
+            release.countDown();
+            assertThat(slow.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void a_concurrent_duplicate_waits_for_the_first_and_replays_it() throws Exception {
+        var requestHash = new AtomicReference<String>();
+        var stored = new AtomicReference<String>();
+        when(repository.claim(eq("k4"), anyString(), any(), any())).thenAnswer(inv -> {
+            requestHash.set(inv.getArgument(1));
+            return stored.get() == null ? 1 : 0;
+        });
+        doAnswer(inv -> {
+            stored.set(inv.getArgument(1));
+            return 1;
+        }).when(repository).complete(eq("k4"), anyString());
+        when(repository.findById("k4")).thenAnswer(inv -> Optional.ofNullable(stored.get()).map(body ->
+                new IdempotencyKey("k4", requestHash.get(), body, Instant.now(), Instant.now().plusSeconds(60))));
+        var inAction = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var runs = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<EmployeeDTO> first = pool.submit(() -> store.execute("k4", request, EmployeeDTO.class, () -> {
+                inAction.countDown();
+                await(release);
+                return created(runs.incrementAndGet());
+            }));
+            assertThat(inAction.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<EmployeeDTO> duplicate = pool.submit(() ->
+                    store.execute("k4", request, EmployeeDTO.class, () -> created(runs.incrementAndGet())));
+            Thread.sleep(100);
+            assertThat(duplicate).isNotDone();
+
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+            assertThat(duplicate.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+            assertThat(runs).hasValue(1);
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static EmployeeDTO created(long id) {
+        return EmployeeDTO.builder().id(id).firstName("Dina").lastName("Khan").email("dina@example.com").build();
+    }
+}
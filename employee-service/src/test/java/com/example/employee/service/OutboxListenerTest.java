@@ -0,0 +1,61 @@
+package com.example.employee.service;
+
+import com.example.employee.testsupport.PostgresTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class OutboxListenerTest extends PostgresTest {
+
+    private final OutboxRelay relay = mock(OutboxRelay.class);
+    private final EmployeeChangeFeed changes = mock(EmployeeChangeFeed.class);
+    private OutboxListener listener;
+
+    @AfterEach
+    void stop() {
+        if (listener != null) listener.destroy();
+    }
+
+    @Test
+    void a_failing_wake_up_does_not_stop_the_listener() throws Exception {
+        var listening = new CountDownLatch(1);
+        var relayWoken = new CountDownLatch(2);
+        var feedWoken = new CountDownLatch(2);
+        doAnswer(inv -> {
+            listening.countDown();
+            throw new IllegalStateException("relay down");
+        }).when(relay).wake(isNull());
+        doAnswer(inv -> {
+            relayWoken.countDown();
+            return null;
+        }).when(relay).wake(any(Instant.class));
+        doAnswer(inv -> {
+            feedWoken.countDown();
+            throw new IllegalStateException("feed down");
+        }).when(changes).wake();
+        listener = new OutboxListener(relay, changes, POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+                POSTGRES.getPassword(), Duration.ofSeconds(30));
+
+        listener.start();
+        assertThat(listening.await(10, TimeUnit.SECONDS)).isTrue();
+        var jdbc = new JdbcTemplate(dataSource);
+        jdbc.queryForList("select pg_notify(?, ?)", OutboxListener.CHANNEL, "1");
+        jdbc.queryForList("select pg_notify(?, ?)", OutboxListener.CHANNEL, "2");
+
+        // both notifications got through although every earlier wake-up threw
+        assertThat(relayWoken.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(feedWoken.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.employee.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import com.example.employee.dto.events.EventAck;
+import com.example.employee.dto.events.EventBatchResult;
+import com.example.employee.dto.events.EventCapabilities;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private final Outbox outbox = mock(Outbox.class);
+    private final RestTemplate http = mock(RestTemplate.class);
+    private final OutboxRelay relay = new OutboxRelay(outbox, http, new SimpleMeterRegistry(),
+            List.of("dept=http://dept/events/employee", "proj=http://proj/events/employee"),
+            Duration.ofSeconds(60), 10, 2, 0, Duration.ZERO, Duration.ofMinutes(5));
+
+    @AfterEach
+    void shutdown() {
+        relay.destroy();
+    }
+
+    @Test
+    void each_subscriber_settles_its_own_deliveries() {
+        when(outbox.claim(anyString(), anyString(), eq(Duration.ofSeconds(60)), eq(10), eq(2), eq(List.of(0, 1))))
+                .thenReturn(List.of(pending(1L), pending(2L)));
+        when(http.postForEntity(anyString(), any(HttpEntity.class), eq(String.class))).thenAnswer(inv -> {
+            HttpEntity<?> req = inv.getArgument(1);
+            if ("{\"seq\":2}".equals(req.getBody()) && inv.getArgument(0).toString().contains("proj")) {
+                throw new ResourceAccessException("timeout");
+            }
+            return ResponseEntity.ok("");
+        });
+
+        relay.deliverOnce().join();
+
+        verify(outbox).fanOut(List.of("dept", "proj"), 10);
+        verify(outbox).settle(eq("dept"), anyString(), argThat(ids -> ids.containsAll(List.of(1L, 2L))), eq(List.of()), eq(List.of()));
+        verify(outbox).settle(eq("proj"), anyString(), eq(List.of(1L)),
+                argThat(failed -> failed.size() == 1 && failed.iterator().next().eventId() == 2L), eq(List.of()));
+    }
+
+    @Test
+    void a_stalled_subscriber_does_not_hold_back_the_others() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // aggregate 1 maps to lane 1 of 2; a claim for lane 0 alone finds nothing
+        when(outbox.claim(anyString(), anyString(), any(), anyInt(), anyInt(), anyCollection()))
+                .thenAnswer(inv -> inv.<Collection<Integer>>getArgument(5).contains(1) ? List.of(pending(1L)) : List.of());
+        when(http.postForEntity(anyString(), any(HttpEntity.class), eq(String.class))).thenAnswer(inv -> {
+            if (inv.getArgument(0).toString().contains("proj")) release.await(5, TimeUnit.SECONDS);
+            return ResponseEntity.ok("");
+        });
+
+        var pass = relay.deliverOnce();
+
+        verify(outbox, timeout(2000)).settle(eq("dept"), anyString(), eq(List.of(1L)), eq(List.of()), eq(List.of()));
+        assertThat(pass).isNotDone();
+        // the stalled lane is not claimed for again until its batch is settled, then catches up at once
+        relay.deliverOnce();
+        verify(outbox, times(1)).claim(eq("proj"), anyString(), any(), anyInt(), eq(2), argThat(lanes -> lanes.contains(1)));
+        verify(outbox, times(1)).claim(eq("proj"), anyString(), any(), anyInt(), eq(2), eq(List.of(0)));
+
+        release.countDown();
+        pass.get(5, TimeUnit.SECONDS);
+        verify(outbox, atLeastOnce()).settle(eq("proj"), anyString(), eq(List.of(1L)), eq(List.of()), eq(List.of()));
+        verify(outbox, timeout(2000).times(2)).claim(eq("proj"), anyString(), any(), anyInt(), eq(2), argThat(lanes -> lanes.contains(1)));
+    }
+
+    @Test
+    void wake_runs_a_pass_and_records_notification_latency() {
+        var registry = new SimpleMeterRegistry();
+        var woken = new OutboxRelay(outbox, http, registry, List.of("dept=http://dept/events/employee"),
+                Duration.ofSeconds(60), 10, 2, 0, Duration.ZERO, Duration.ofMinutes(5));
+        when(outbox.claim(anyString(), anyString(), any(), anyInt(), anyInt(), anyCollection())).thenReturn(List.of(pending(1L)), List.of());
+        when(http.postForEntity(anyString(), any(HttpEntity.class), eq(String.class))).thenReturn(ResponseEntity.ok(""));
+
+        try {
+            woken.wake(Instant.now().minusMillis(5));
+            verify(outbox, timeout(2000)).settle(eq("dept"), anyString(), eq(List.of(1L)), eq(List.of()), eq(List.of()));
+            await(() -> registry.timer("outbox.notify.latency").count() == 1);
+        } finally {
+            woken.destroy();
+        }
+        assertThat(registry.timer("outbox.notify.latency").totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void nothing_due_means_no_http_calls() {
+        when(outbox.claim(anyString(), anyString(), any(), anyInt(), anyInt(), anyCollection())).thenReturn(List.of());
+
+        relay.deliverOnce().join();
+
+        verifyNoInteractions(http);
+    }
+
+    @Test
+    void batch_capable_subscribers_get_one_request_and_retry_only_nacked_events() {
+        var batching = new OutboxRelay(outbox, http, new SimpleMeterRegistry(), List.of("dept=http://dept/events/employee"),
+                Duration.ofSeconds(60), 10, 2, 100, Duration.ZERO, Duration.ofMinutes(5));
+        var one = pending(1L);
+        var two = pending(2L);
+        var three = pending(3L, 3L);
+        when(http.getForObject("http://dept/events/employee/capabilities", EventCapabilities.class))
+                .thenReturn(new EventCapabilities(true, 2));
+        when(outbox.claim(eq("dept"), anyString(), any(), anyInt(), anyInt(), anyCollection())).thenReturn(List.of(one, two, three));
+        when(http.postForEntity(eq("http://dept/events/employee/batch"), any(HttpEntity.class), eq(EventBatchResult.class)))
+                .thenAnswer(inv -> {
+                    String body = (String) ((HttpEntity<?>) inv.getArgument(1)).getBody();
+                    List<EventAck> acks = Stream.of(one, two, three)
+                            .filter(p -> body.contains(p.payloadJson()))
+                            .map(p -> p == two
+                                    ? new EventAck(p.eventUuid(), EventAck.FAILED, "db down")
+                                    : new EventAck(p.eventUuid(), EventAck.ACCEPTED, null))
+                            .toList();
+                    return ResponseEntity.ok(new EventBatchResult(acks));
+                });
+
+        try {
+            batching.deliverOnce().join();
+        } finally {
+            batching.destroy();
+        }
+
+        // the advertised limit of 2 splits three events into two requests
+        verify(http, times(2)).postForEntity(anyString(), any(HttpEntity.class), eq(EventBatchResult.class));
+        verify(http, never()).postForEntity(anyString(), any(HttpEntity.class), eq(String.class));
+        verify(outbox).settle(eq("dept"), anyString(), argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(1L, 3L))),
+                argThat(failed -> failed.size() == 1 && failed.iterator().next().eventId() == 2L), eq(List.of()));
+    }
+
+    @Test
+    void subscribers_without_batch_support_get_single_events() {
+        var batching = new OutboxRelay(outbox, http, new SimpleMeterRegistry(), List.of("proj=http://proj/events/employee"),
+                Duration.ofSeconds(60), 10, 2, 100, Duration.ZERO, Duration.ofMinutes(5));
+        when(http.getForObject(anyString(), eq(EventCapabilities.class))).thenThrow(new ResourceAccessException("404"));
+        when(outbox.claim(eq("proj"), anyString(), any(), anyInt(), anyInt(), anyCollection())).thenReturn(List.of(pending(1L)));
+        when(http.postForEntity(anyString(), any(HttpEntity.class), eq(String.class))).thenReturn(ResponseEntity.ok(""));
+
+        try {
+            batching.deliverOnce().join();
+        } finally {
+            batching.destroy();
+        }
+
+        verify(http).postForEntity(eq("http://proj/events/employee"), any(HttpEntity.class), eq(String.class));
+        verify(outbox).settle(eq("proj"), anyString(), eq(List.of(1L)), eq(List.of()), eq(List.of()));
+    }
+
+    @Test
+    void a_failed_event_holds_back_later_events_of_its_aggregate_only() {
+        // aggregates 1 and 3 share lane 1, so the lane sends all three in event order
+        when(outbox.claim(eq("dept"), anyString(), any(), anyInt(), anyInt(), anyCollection()))
+                .thenReturn(List.of(pending(1L, 1L), pending(2L, 1L), pending(3L, 3L)));
+        when(http.postForEntity(anyString(), any(HttpEntity.class), eq(String.class))).thenAnswer(inv -> {
+            HttpEntity<?> req = inv.getArgument(1);
+            if ("{\"seq\":1}".equals(req.getBody())) throw new ResourceAccessException("timeout");
+            return ResponseEntity.ok("");
+        });
+
+        relay.deliverOnce().join();
+
+        verify(http, never()).postForEntity(anyString(), argThat((HttpEntity<?> req) -> "{\"seq\":2}".equals(req.getBody())), eq(String.class));
+        verify(outbox).settle(eq("dept"), anyString(), eq(List.of(3L)),
+                argThat(failed -> failed.size() == 1 && failed.iterator().next().eventId() == 1L), eq(List.of(2L)));
+    }
+
+    @Test
+    void lanes_are_keyed_by_aggregate_id() {
+        assertThat(relay.laneOf(4L)).isEqualTo(0);
+        assertThat(relay.laneOf(7L)).isEqualTo(1);
+        assertThat(relay.laneOf(-3L)).isEqualTo(1);
+    }
+
+    @Test
+    void backoff_grows_with_attempts_and_stays_jittered_under_the_cap() {
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long ceiling = Math.min(Outbox.BACKOFF_CAP.toMillis(), Outbox.BACKOFF_BASE.toMillis() << (attempt - 1));
+            Duration d = Outbox.backoff(attempt);
+            assertThat(d.toMillis()).isBetween(ceiling / 2, ceiling);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    private static Outbox.Pending pending(long id) {
+        return pending(id, 1L);
+    }
+
+    private static Outbox.Pending pending(long id, long aggregateId) {
+        return new Outbox.Pending(id, UUID.randomUUID(), aggregateId, "employee.created.v1", "{\"seq\":" + id + "}", 0);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.employee.service;
+
+import com.example.employee.domain.outbox.OutboxDeadLetterRepository;
+import com.example.employee.domain.outbox.OutboxDeliveryRepository;
+import com.example.employee.domain.outbox.OutboxEventRepository;
+import com.example.employee.error.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxTest {
+
+    private final OutboxEventRepository events = mock(OutboxEventRepository.class);
+    private final OutboxDeliveryRepository deliveries = mock(OutboxDeliveryRepository.class);
+    private final OutboxDeadLetterRepository deadLetters = mock(OutboxDeadLetterRepository.class);
+    private final Outbox outbox = new Outbox(events, deliveries, deadLetters, new ObjectMapper(), 3);
+
+    @Test
+    void failures_back_off_until_the_attempt_budget_then_dead_letter() {
+        when(deliveries.deadLetter(anyString(), anyLong(), anyString(), any(), anyString())).thenReturn(1);
+
+        outbox.settle("project", "relay-1", List.of(), List.of(
+                new Outbox.Failure(1L, 0, "timeout"),
+                new Outbox.Failure(2L, 2, "timeout")), List.of());
+
+        verify(deliveries).markFailed(eq("project"), eq(1L), eq("relay-1"), any(), any(), eq("timeout"));
+        verify(deliveries).deadLetter(eq("project"), eq(2L), eq("relay-1"), any(), eq("timeout"));
+        verify(deliveries, never()).markFailed(anyString(), eq(2L), anyString(), any(), any(), anyString());
+        verify(events).completeDelivered(List.of(2L));
+    }
+
+    @Test
+    void acked_deliveries_complete_their_events() {
+        outbox.settle("project", "relay-1", List.of(5L, 6L), List.of(), List.of());
+
+        verify(deliveries).markSent(eq("project"), eq(List.of(5L, 6L)), eq("relay-1"), any());
+        verify(events).completeDelivered(List.of(5L, 6L));
+        verifyNoInteractions(deadLetters);
+    }
+
+    @Test
+    void deferred_deliveries_are_released_without_an_attempt() {
+        outbox.settle("project", "relay-1", List.of(), List.of(), List.of(7L));
+
+        verify(deliveries).release("project", List.of(7L), "relay-1");
+        verify(deliveries, never()).markFailed(anyString(), anyLong(), anyString(), any(), any(), anyString());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void requeue_of_unknown_dead_letter_is_not_found() {
+        when(deadLetters.requeue(42L)).thenReturn(0);
+
+        assertThatThrownBy(() -> outbox.requeue(42L)).isInstanceOf(ResourceNotFoundException.class);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.employee.testsupport;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+
+/**
+ * For code that only runs on Postgres (COPY, set-based SQL, snapshots): a throwaway Postgres per test class,
+ * migrated with the service's own Flyway scripts. Skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresTest {
+
+    @Container
+    protected static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    protected static DataSource dataSource;
+
+    @BeforeAll
+    static void migrate() {
+        dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        // same settings as config-repo/employee-service.yml; read from the module's own folder because
+        // department-service (a test dependency) has migrations on the same classpath location
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("filesystem:src/main/resources/db/migration")
+                .schemas("employee")
+                .defaultSchema("employee")
+                .table("flyway_schema_history_employees")
+                .createSchemas(true)
+                .load()
+                .migrate();
+    }
+}
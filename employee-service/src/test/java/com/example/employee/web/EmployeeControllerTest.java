@@ -1,6 +1,7 @@
 package com.example.employee.web;
 import com.example.employee.dto.EmployeeDTO;
 import com.example.employee.service.EmployeeService;
+import com.example.employee.service.EmployeeView;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.*;
@@ -8,14 +9,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -126,12 +131,57 @@ public class EmployeeControllerTest {
     class List_and_Get {
         @Test
         void list_returns_200_and_array() throws Exception {
-            when(service.getAll()).thenReturn(List.of(
+            doReturn(List.of(
                     EmployeeDTO.builder().id(1L).firstName("Alice").lastName("Nguyen").email("alice@example.com").build()
-            ));
+            )).when(service).getAll(any());
             mvc.perform(get("/api/v1/employees"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$[0].email").value("alice@example.com"));
+                    .andExpect(jsonPath("$[0].email").value("alice@example.com"))
+                    .andExpect(jsonPath("$[0].department").doesNotExist());
+
+            verify(service).getAll(new EmployeeView(EmployeeView.ALL_FIELDS, false));
+        }
+
+        @Test
+        void fields_and_expand_select_the_view() throws Exception {
+            when(service.getById(eq(5L), any())).thenReturn(Map.of("id", 5, "email", "e@x.com"));
+
+            mvc.perform(get("/api/v1/employees/5").param("fields", "id, email").param("expand", "department"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.email").value("e@x.com"))
+                    .andExpect(jsonPath("$.lastName").doesNotExist());
+
+            verify(service).getById(5L, new EmployeeView(List.of("id", "email"), true));
+        }
+
+        @Test
+        void unpaged_search_links_to_the_next_page_when_more_matched() throws Exception {
+            doReturn(new SliceImpl<>(List.of(Map.of("id", 1)), PageRequest.of(0, 100), true))
+                    .when(service).search(eq("ann"), any(EmployeeView.class));
+
+            mvc.perform(get("/api/v1/employees/search?q=ann"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").value(1))
+                    .andExpect(header().string("Link",
+                            "<http://localhost/api/v1/employees/search?q=ann&page=1&size=100>; rel=\"next\""));
+        }
+
+        @Test
+        void unpaged_search_has_no_link_when_everything_matched_fits() throws Exception {
+            doReturn(new SliceImpl<>(List.of(Map.of("id", 1)), PageRequest.of(0, 100), false))
+                    .when(service).search(eq("ann"), any(EmployeeView.class));
+
+            mvc.perform(get("/api/v1/employees/search?q=ann"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist("Link"));
+        }
+
+        @Test
+        void unknown_field_returns_400() throws Exception {
+            mvc.perform(get("/api/v1/employees/5").param("fields", "id,salary"))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(service);
         }
     }
 
@@ -177,9 +227,31 @@ public class EmployeeControllerTest {
                     .andExpect(jsonPath("$.id").value(10L));
         }
 
+        @Test
+        void create_without_idempotency_key_is_group_committed_when_batching_is_on() throws Exception {
+            var req = EmployeeDTO.builder().firstName("Dina").lastName("Khan").email("dina@example.com").build();
+            var res = EmployeeDTO.builder().id(11L).firstName("Dina").lastName("Khan").email("dina@example.com").build();
+            when(service.batchesCreates()).thenReturn(true);
+            when(service.createBatched(any(EmployeeDTO.class))).thenReturn(res);
+
+            mvc.perform(post("/api/v1/employees")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(om.writeValueAsString(req)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.id").value(11L));
+
+            mvc.perform(post("/api/v1/employees")
+                            .header("Idempotency-Key", "k1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(om.writeValueAsString(req)))
+                    .andExpect(status().isCreated());
+            verify(service).create(any(EmployeeDTO.class), eq("k1"));
+            verify(service, times(1)).createBatched(any(EmployeeDTO.class));
+        }
+
         @Test
         void getById_not_found_returns_404_problem() throws Exception {
-            when(service.getById(999L)).thenThrow(new EntityNotFoundException("Employee not found"));
+            when(service.getById(eq(999L), any())).thenThrow(new EntityNotFoundException("Employee not found"));
 
             mvc.perform(get("/api/v1/employees/999").header("X-Trace-Id", "t-404"))
                     .andExpect(status().isNotFound())
@@ -191,7 +263,7 @@ public class EmployeeControllerTest {
                     .andExpect(jsonPath("$.timestamp", not(blankOrNullString())))
                     .andExpect(jsonPath("$.traceId").value("t-404"));
 
-            verify(service).getById(999L);
+            verify(service).getById(eq(999L), any());
             verifyNoMoreInteractions(service);
         }
 
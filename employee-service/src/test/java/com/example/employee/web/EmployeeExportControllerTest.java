@@ -0,0 +1,64 @@
+package com.example.employee.web;
+
+import com.example.employee.service.EmployeeExporter;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.time.Duration;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class EmployeeExportControllerTest {
+
+    private final EmployeeExporter exporter = mock(EmployeeExporter.class);
+    // the MVC-wide async timeout stays short; only the export gets the long one
+    private final MockMvc mvc = MockMvcBuilders
+            .standaloneSetup(new EmployeeExportController(exporter, Duration.ofMinutes(30)))
+            .setAsyncRequestTimeout(30_000)
+            .build();
+
+    @Test
+    void the_export_runs_with_its_own_timeout_and_streams_the_file() throws Exception {
+        doAnswer(inv -> {
+            inv.getArgument(2, OutputStream.class).write("id,firstName\n1,Ada\n".getBytes(UTF_8));
+            return 1L;
+        }).when(exporter).export(eq(EmployeeExporter.Format.CSV), eq(true), any());
+
+        MvcResult started = mvc.perform(get("/api/v1/employees/export").param("format", "csv").param("expand", "department"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"employees.csv\""))
+                .andExpect(content().string("id,firstName\n1,Ada\n"));
+    }
+
+    @Test
+    void ndjson_is_the_default_format() throws Exception {
+        MvcResult started = mvc.perform(get("/api/v1/employees/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"employees.ndjson\""));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.employee.web;
+
+import com.example.employee.dto.ImportJobDTO;
+import com.example.employee.service.EmployeeExporter;
+import com.example.employee.service.EmployeeImporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmployeeImportControllerTest {
+
+    private final EmployeeImporter importer = mock(EmployeeImporter.class);
+    private final EmployeeImportController controller = new EmployeeImportController(importer);
+
+    @AfterEach
+    void clear() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void the_job_location_is_sent_before_the_import_runs() throws Exception {
+        var request = new MockHttpServletRequest("POST", "/api/v1/employees/imports");
+        request.setContentType("text/csv");
+        request.setContent("firstName,lastName,email\n".getBytes());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        var response = new MockHttpServletResponse();
+        when(importer.start()).thenReturn(new ImportJobDTO("job-1", "STAGING", 0, 0, 0, Instant.now(), null, null));
+        var committedBeforeRun = new AtomicBoolean();
+        doAnswer(inv -> {
+            committedBeforeRun.set(response.isCommitted());
+            return null;
+        }).when(importer).run(eq("job-1"), eq(EmployeeExporter.Format.CSV), any(), any());
+
+        controller.importEmployees(request, response);
+
+        assertThat(committedBeforeRun).isTrue();
+        assertThat(response.getHeader("Location")).endsWith("/api/v1/employees/imports/job-1");
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.employee.web;
+
+import com.example.employee.client.DepartmentClient;
+import com.example.employee.domain.Employee;
+import com.example.employee.dto.DepartmentDTO;
+import com.example.employee.repo.EmployeeRepository;
+import com.example.employee.service.EmployeeAuditTrail;
+import com.example.employee.service.EmployeeCreateBatcher;
+import com.example.employee.service.EmployeeSearchIndex;
+import com.example.employee.service.EmployeeService;
+import com.example.employee.service.IdempotencyStore;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A read through the whole MVC stack with real Hibernate on a pool of ONE connection. Open-in-view is
+ * registered exactly when the shipped config-repo turns it on, the way Boot's JPA web configuration does;
+ * with it on, the request-scoped EntityManager would keep the connection through the department call.
+ */
+@SpringJUnitWebConfig(EmployeeReadConnectionMvcTest.Web.class)
+class EmployeeReadConnectionMvcTest {
+
+    @Configuration
+    @EnableWebMvc
+    @EnableTransactionManagement
+    @Import({EmployeeController.class, EmployeeService.class, OpenInView.class})
+    static class Web {
+        @Bean(destroyMethod = "close")
+        HikariDataSource dataSource() {
+            var pool = new HikariDataSource();
+            pool.setJdbcUrl("jdbc:h2:mem:mvc-" + UUID.randomUUID());
+            pool.setMaximumPoolSize(1);
+            pool.setConnectionTimeout(250);
+            return pool;
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            var emf = new LocalContainerEntityManagerFactoryBean();
+            emf.setDataSource(dataSource);
+            emf.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            emf.setManagedTypes(PersistenceManagedTypes.of(Employee.class.getName()));
+            return emf;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory emf) {
+            return new JpaTransactionManager(emf);
+        }
+    }
+
+    static class OpenInView implements WebMvcConfigurer {
+        private final EntityManagerFactory emf;
+
+        OpenInView(EntityManagerFactory emf) {
+            this.emf = emf;
+        }
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            if (!openInViewConfigured()) return;
+            var interceptor = new OpenEntityManagerInViewInterceptor();
+            interceptor.setEntityManagerFactory(emf);
+            registry.addWebRequestInterceptor(interceptor);
+        }
+    }
+
+    // Boot's default is true, so a missing or misplaced key turns it on
+    static boolean openInViewConfigured() {
+        var yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new FileSystemResource("../config-repo/employee-service.yml"));
+        return Boolean.parseBoolean(yaml.getObject().getProperty("spring.jpa.open-in-view", "true"));
+    }
+
+    @MockBean EmployeeRepository repository;
+    @MockBean DepartmentClient departmentClient;
+    @MockBean IdempotencyStore idempotencyStore;
+    @MockBean EmployeeSearchIndex searchIndex;
+    @MockBean EmployeeCreateBatcher createBatcher;
+    @MockBean EmployeeAuditTrail audit;
+
+    @Autowired WebApplicationContext context;
+    @Autowired HikariDataSource pool;
+    @Autowired EntityManagerFactory emf;
+
+    MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        mvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    void the_config_repo_turns_open_in_view_off() {
+        assertThat(openInViewConfigured()).isFalse();
+    }
+
+    @Test
+    void an_expanded_read_returns_its_connection_before_calling_department_service() throws Exception {
+        EntityManager em = SharedEntityManagerCreator.createSharedEntityManager(emf);
+        when(repository.findById(1L)).thenAnswer(inv -> {
+            // stands in for the JPA query: runs on the EntityManager's connection
+            em.createNativeQuery("select 1").getSingleResult();
+            return Optional.of(Employee.builder().id(1L).firstName("Ada").lastName("L")
+                    .email("ada@x.com").departmentId(7L).build());
+        });
+        var heldDuringCall = new AtomicInteger(-1);
+        when(departmentClient.getDepartment(7L)).thenAnswer(inv -> {
+            heldDuringCall.set(pool.getHikariPoolMXBean().getActiveConnections());
+            return new DepartmentDTO(7L, "Eng", "desc");
+        });
+
+        mvc.perform(get("/api/v1/employees/1").param("expand", "department"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.department.name").value("Eng"));
+
+        assertThat(heldDuringCall).hasValue(0);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.project_service.api;
+
+import com.example.project_service.api.dto.*;
+import com.example.project_service.exception.BadRequestException;
+import com.example.project_service.service.EmployeeEventService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Receiving side of employee-service's outbox relay: single events, batches with per-event acks,
+// and the capabilities the relay uses to negotiate batch mode.
+@RestController
+@RequestMapping("/events/employee")
+public class EmployeeEventsController {
+
+    private final EmployeeEventService service;
+
+    public EmployeeEventsController(EmployeeEventService service) {
+        this.service = service;
+    }
+
+    @GetMapping("/capabilities")
+    public EventCapabilities capabilities() {
+        return new EventCapabilities(true, EmployeeEventService.MAX_BATCH);
+    }
+
+    @PostMapping
+    public ResponseEntity<EventAck> receive(@RequestBody EmployeeEvent event) {
+        var ack = service.apply(List.of(event)).get(0);
+        var status = EventAck.REJECTED.equals(ack.status()) ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.OK;
+        return ResponseEntity.status(status).body(ack);
+    }
+
+    @PostMapping("/batch")
+    public EventBatchResult receiveBatch(@RequestBody EventBatch batch) {
+        List<EmployeeEvent> events = batch.events() == null ? List.of() : batch.events();
+        if (events.size() > EmployeeEventService.MAX_BATCH) {
+            throw new BadRequestException("At most " + EmployeeEventService.MAX_BATCH + " events per batch");
+        }
+        return new EventBatchResult(service.apply(events));
+    }
+}
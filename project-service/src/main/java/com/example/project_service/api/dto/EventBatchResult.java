@@ -0,0 +1,5 @@
+package com.example.project_service.api.dto;
+
+import java.util.List;
+
+public record EventBatchResult(List<EventAck> acks) {}
@@ -0,0 +1,3 @@
+package com.example.project_service.api.dto;
+
+public record EventCapabilities(boolean batch, int maxEvents) {}
@@ -0,0 +1,33 @@
+package com.example.project_service.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name="received_events", schema="project")
+public class ReceivedEvent {
+
+    @Id
+    @Column(name="event_id")
+    private UUID eventId;
+
+    @Column(nullable=false, length=100)
+    private String type;
+
+    @Column(name="aggregate_id")
+    private Long aggregateId;
+
+    @Column(name="received_at", nullable=false)
+    private OffsetDateTime receivedAt;
+
+    // getters & setters
+    public UUID getEventId() { return eventId; }
+    public void setEventId(UUID eventId) { this.eventId = eventId; }
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public Long getAggregateId() { return aggregateId; }
+    public void setAggregateId(Long aggregateId) { this.aggregateId = aggregateId; }
+    public OffsetDateTime getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(OffsetDateTime receivedAt) { this.receivedAt = receivedAt; }
+}
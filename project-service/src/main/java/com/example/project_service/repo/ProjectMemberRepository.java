@@ -2,6 +2,8 @@ package com.example.project_service.repo;
 
 import com.example.project_service.model.ProjectMember;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
@@ -11,4 +13,9 @@ public interface ProjectMemberRepository extends JpaRepository<ProjectMember, Lo
     List<ProjectMember> findByProjectId(Long projectId);
     Optional<ProjectMember> findByProjectIdAndEmployeeId(Long projectId, Long employeeId);
     long deleteByProjectIdAndEmployeeId(Long projectId, Long employeeId);
+
+    // single statement; the derived deleteBy... would load every membership first
+    @Modifying
+    @Query("delete from ProjectMember m where m.employeeId = :employeeId")
+    int deleteAllByEmployeeId(Long employeeId);
 }
@@ -0,0 +1,20 @@
+package com.example.project_service.repo;
+
+import com.example.project_service.model.ReceivedEvent;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface ReceivedEventRepository extends JpaRepository<ReceivedEvent, UUID> {
+
+    // 1 = first delivery, 0 = already processed
+    @Modifying
+    @Query(value = """
+           insert into project.received_events (event_id, type, aggregate_id)
+           values (:eventId, :type, :aggregateId)
+           on conflict (event_id) do nothing
+           """, nativeQuery = true)
+    int recordIfAbsent(UUID eventId, String type, Long aggregateId);
+}
@@ -0,0 +1,55 @@
+package com.example.project_service.service;
+
+import com.example.project_service.api.dto.EmployeeEvent;
+import com.example.project_service.api.dto.EventAck;
+import com.example.project_service.repo.ProjectMemberRepository;
+import com.example.project_service.repo.ReceivedEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies employee events from employee-service's outbox relay. Delivery is at least once, so every
+ * event is recorded in project.received_events first and a redelivery is acked as DUPLICATE.
+ * A deleted employee loses all project memberships.
+ */
+@Service
+public class EmployeeEventService {
+    private static final Logger log = LoggerFactory.getLogger(EmployeeEventService.class);
+
+    public static final int MAX_BATCH = 500;
+    static final String EMPLOYEE_DELETED = "employee.deleted.v1";
+
+    private final ReceivedEventRepository received;
+    private final ProjectMemberRepository members;
+
+    public EmployeeEventService(ReceivedEventRepository received, ProjectMemberRepository members) {
+        this.received = received; this.members = members;
+    }
+
+    // one transaction per batch: bad events are rejected one by one, a DB failure fails the request
+    @Transactional
+    public List<EventAck> apply(List<EmployeeEvent> events) {
+        var acks = new ArrayList<EventAck>(events.size());
+        for (var e : events) {
+            if (e.eventId() == null || e.type() == null || e.type().isBlank()) {
+                acks.add(new EventAck(e.eventId(), EventAck.REJECTED, "eventId and type are required"));
+                continue;
+            }
+            if (received.recordIfAbsent(e.eventId(), e.type(), e.aggregateId()) == 0) {
+                acks.add(new EventAck(e.eventId(), EventAck.DUPLICATE, null));
+                continue;
+            }
+            if (EMPLOYEE_DELETED.equals(e.type()) && e.aggregateId() != null) {
+                int removed = members.deleteAllByEmployeeId(e.aggregateId());
+                if (removed > 0) log.info("Removed {} memberships of deleted employee {}", removed, e.aggregateId());
+            }
+            acks.add(new EventAck(e.eventId(), EventAck.ACCEPTED, null));
+        }
+        return acks;
+    }
+}
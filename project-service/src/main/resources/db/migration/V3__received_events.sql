@@ -0,0 +1,12 @@
+-- V3: employee events already processed, keyed by the publisher's event id.
+-- employee-service delivers at least once; a redelivery hits the primary key and is acked as DUPLICATE.
+
+CREATE TABLE IF NOT EXISTS project.received_events (
+  event_id     UUID         PRIMARY KEY,
+  type         VARCHAR(100) NOT NULL,
+  aggregate_id BIGINT,
+  received_at  TIMESTAMPTZ  NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_received_events_received_at
+  ON project.received_events (received_at);